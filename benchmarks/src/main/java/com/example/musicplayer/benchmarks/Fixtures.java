@@ -0,0 +1,117 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.model.Track;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates the data the benchmarks run on: synthetic tracks and small but
+ * valid, tagged MP3/FLAC/WAV files.
+ */
+final class Fixtures {
+    private static final int SAMPLE_RATE = 44100;
+    private static final int SECONDS = 3;
+
+    private Fixtures() {
+    }
+
+    static List<Track> tracks(int count) {
+        List<Track> tracks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int artist = i % 1000;
+            tracks.add(new Track("Title " + i, "Artist " + artist,
+                    "file:///music/Artist%20" + artist + "/Album/Track%20" + i + ".mp3", 180 + i % 120));
+        }
+        return tracks;
+    }
+
+    /** Writes an audio file of the given format ("mp3", "flac" or "wav") with title and artist tags. */
+    static Path audioFile(Path dir, String format) throws Exception {
+        Path file = dir.resolve("fixture." + format);
+        switch (format) {
+            case "mp3":
+                Files.write(file, mp3());
+                break;
+            case "flac":
+                Files.write(file, flac());
+                break;
+            case "wav":
+                Files.write(file, wav());
+                break;
+            default:
+                throw new IllegalArgumentException(format);
+        }
+
+        Logger.getLogger("org.jaudiotagger").setLevel(Level.OFF);
+        AudioFile audioFile = AudioFileIO.read(file.toFile());
+        Tag tag = audioFile.getTagOrCreateAndSetDefault();
+        tag.setField(FieldKey.TITLE, "Benchmark Title");
+        tag.setField(FieldKey.ARTIST, "Benchmark Artist");
+        tag.setField(FieldKey.ALBUM, "Benchmark Album");
+        audioFile.commit();
+        return file;
+    }
+
+    /** MPEG-1 Layer III, 128 kbit/s, 44.1 kHz, silent frames. */
+    private static byte[] mp3() {
+        int frameLength = 144 * 128_000 / SAMPLE_RATE;
+        int frames = SECONDS * SAMPLE_RATE / 1152;
+        byte[] data = new byte[frameLength * frames];
+        for (int i = 0; i < frames; i++) {
+            int offset = i * frameLength;
+            data[offset] = (byte) 0xFF;
+            data[offset + 1] = (byte) 0xFB;
+            data[offset + 2] = (byte) 0x90;
+            data[offset + 3] = (byte) 0xC4;
+        }
+        return data;
+    }
+
+    /** 16-bit mono PCM silence. */
+    private static byte[] wav() {
+        int dataLength = SECONDS * SAMPLE_RATE * 2;
+        ByteBuffer buffer = ByteBuffer.allocate(44 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes()).putInt(36 + dataLength).put("WAVE".getBytes());
+        buffer.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 2).putShort((short) 2).putShort((short) 16);
+        buffer.put("data".getBytes()).putInt(dataLength);
+        return buffer.array();
+    }
+
+    /** STREAMINFO plus silent constant-subframe frames. */
+    private static byte[] flac() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("fLaC".getBytes());
+        out.write(new byte[]{(byte) 0x80, 0, 0, 34}); // last block, STREAMINFO, 34 bytes
+
+        long totalSamples = (long) SECONDS * SAMPLE_RATE;
+        ByteBuffer info = ByteBuffer.allocate(34);
+        info.putShort((short) 4096).putShort((short) 4096);
+        info.put(new byte[3]).put(new byte[3]);
+        // 20 bits sample rate, 3 bits channels-1, 5 bits bps-1, 36 bits total samples
+        long packed = ((long) SAMPLE_RATE << 44) | (0L << 41) | (15L << 36) | totalSamples;
+        info.putLong(packed);
+        info.put(new byte[16]);
+        out.write(info.array());
+
+        int frames = (int) ((totalSamples + 4095) / 4096);
+        for (int i = 0; i < frames; i++) {
+            // frame header (block size 4096, 44.1 kHz, mono, 16 bit) + constant subframe of zeros
+            out.write(new byte[]{(byte) 0xFF, (byte) 0xF8, (byte) 0xC9, (byte) 0x08, (byte) i, 0, 0, 0, 0});
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.controller.PlaybackEngine;
+import com.example.musicplayer.controller.SimulatedAudioBackend;
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations per second of the headless playback engine against the simulated
+ * backend: skipping, jumping to a track, pause/resume, tracks running out and
+ * playing through the queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaybackEngineBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private List<Track> tracks;
+    private SimulatedAudioBackend backend;
+    private PlaybackEngine engine;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracks = Fixtures.tracks(size);
+        backend = new SimulatedAudioBackend();
+        engine = new PlaybackEngine(new Playlist(), backend);
+        engine.addTracks(tracks);
+        engine.getQueue().add(tracks.get(0));
+        engine.play();
+    }
+
+    @Benchmark
+    public Track next() {
+        engine.next();
+        return engine.getCurrentTrack();
+    }
+
+    @Benchmark
+    public Track nextShuffled() {
+        if (!engine.isShuffle()) {
+            engine.setShuffle(true);
+        }
+        engine.next();
+        return engine.getCurrentTrack();
+    }
+
+    @Benchmark
+    public Track playTrack() {
+        cursor = (cursor + 7919) % size;
+        engine.play(tracks.get(cursor));
+        return engine.getCurrentTrack();
+    }
+
+    @Benchmark
+    public PlaybackEngine.State togglePlayPause() {
+        engine.togglePlayPause();
+        return engine.getState();
+    }
+
+    @Benchmark
+    public Track endOfMedia() {
+        backend.complete();
+        return engine.getCurrentTrack();
+    }
+
+    /** Queues a track, alternating between the ends, and plays it; the queue stays at one entry. */
+    @Benchmark
+    public Track queueAndNext() {
+        cursor = (cursor + 7919) % size;
+        if ((cursor & 1) == 0) {
+            engine.getQueue().add(tracks.get(cursor));
+        } else {
+            engine.getQueue().addFirst(tracks.get(cursor));
+        }
+        engine.next();
+        return engine.getCurrentTrack();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.ShuffleOrder;
+import com.example.musicplayer.model.Track;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Navigation, lookup, add and remove on playlists of 1k to 1M tracks. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PlaylistBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private List<Track> tracks;
+    private Playlist playlist;
+    private Playlist shuffled;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracks = Fixtures.tracks(size);
+        playlist = new Playlist();
+        playlist.addTracks(tracks);
+        shuffled = new Playlist(new ShuffleOrder(42));
+        shuffled.addTracks(tracks);
+        shuffled.setShuffle(true);
+    }
+
+    @Benchmark
+    public Track next() {
+        return playlist.nextTrack();
+    }
+
+    @Benchmark
+    public Track prev() {
+        return playlist.prevTrack();
+    }
+
+    @Benchmark
+    public Track nextShuffled() {
+        return shuffled.nextTrack();
+    }
+
+    @Benchmark
+    public int indexOf() {
+        cursor = (cursor + 7919) % size;
+        return playlist.indexOf(tracks.get(cursor));
+    }
+
+    @Benchmark
+    public Track peekNext() {
+        return playlist.peekNextTrack();
+    }
+
+    /** Removes a track from the middle and appends it again, keeping the size constant. */
+    @Benchmark
+    public int removeMiddleAndAppend() {
+        Track track = playlist.getTrack(playlist.size() / 2);
+        playlist.removeTrack(playlist.size() / 2);
+        playlist.addTrack(track);
+        return playlist.size();
+    }
+
+    /** A removal in the middle followed by a lookup, the pattern of deleting tracks one by one from a view. */
+    @Benchmark
+    public int removeMiddleThenIndexOf() {
+        Track track = playlist.getTrack(playlist.size() / 2);
+        playlist.removeTrack(playlist.size() / 2);
+        cursor = (cursor + 7919) % size;
+        int index = playlist.indexOf(tracks.get(cursor));
+        playlist.addTrack(track);
+        return index;
+    }
+
+    /** Removes the last track and appends it again. */
+    @Benchmark
+    public int removeLastAndAppend() {
+        int last = playlist.size() - 1;
+        Track track = playlist.getTrack(last);
+        playlist.removeTrack(last);
+        playlist.addTrack(track);
+        return playlist.size();
+    }
+}
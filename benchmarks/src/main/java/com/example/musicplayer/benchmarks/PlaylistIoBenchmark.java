@@ -0,0 +1,71 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.playlist.PlaylistReader;
+import com.example.musicplayer.playlist.PlaylistWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Load and save throughput of extended M3U and PLS playlists. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaylistIoBenchmark {
+    @Param({"1000", "100000"})
+    public int entries;
+
+    @Param({"m3u", "pls"})
+    public String format;
+
+    private Path dir;
+    private Path source;
+    private Path target;
+    private List<Track> tracks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("playlist-bench");
+        source = dir.resolve("source." + format);
+        target = dir.resolve("target." + format);
+        tracks = Fixtures.tracks(entries);
+        PlaylistWriter.write(source, tracks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) throws IOException {
+        PlaylistReader.read(source, blackhole::consume);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        PlaylistWriter.write(target, tracks);
+    }
+}
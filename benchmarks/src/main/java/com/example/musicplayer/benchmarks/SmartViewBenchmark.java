@@ -0,0 +1,74 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.smart.Rule;
+import com.example.musicplayer.smart.SmartPlaylist;
+import com.example.musicplayer.smart.SmartView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** An edited track propagating to live smart playlists, and positional access into one. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SmartViewBenchmark {
+    @Param({"10000", "200000"})
+    public int size;
+
+    private Playlist playlist;
+    private List<Track> tracks;
+    private SmartView shortTracks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracks = Fixtures.tracks(size);
+        playlist = new Playlist();
+        playlist.addTracks(tracks);
+        shortTracks = new SmartView(playlist, new SmartPlaylist("Short",
+                List.of(new Rule(Rule.Kind.SHORTER_THAN, "4"))).predicate(track -> false));
+        new SmartView(playlist, new SmartPlaylist("Artist",
+                List.of(new Rule(Rule.Kind.ARTIST_IS, "Artist 7"))).predicate(track -> false));
+        new SmartView(playlist, new SmartPlaylist("Title",
+                List.of(new Rule(Rule.Kind.TITLE_CONTAINS, "99"))).predicate(track -> false));
+    }
+
+    /** Moves a track across the four minute boundary and back, through all three views. */
+    @Benchmark
+    public int editTrack() {
+        Track track = tracks.get(next);
+        next = (next + 7919) % size;
+        track.setDuration(track.getDuration() < 240 ? 250 : 230);
+        playlist.trackUpdated(track);
+        return shortTracks.size();
+    }
+
+    @Benchmark
+    public Track get() {
+        next = (next + 7919) % shortTracks.size();
+        return shortTracks.get(next);
+    }
+
+    @Benchmark
+    public int indexOf() {
+        next = (next + 7919) % size;
+        return shortTracks.indexOf(tracks.get(next));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.stats.PlayEvent;
+import com.example.musicplayer.stats.StatsService;
+import com.example.musicplayer.stats.TrackStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording a listen and the two queries of the statistics dialog, against
+ * the aggregates of a library where every track has been played.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsBenchmark {
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private StatsService stats;
+    private String[] locations;
+    private long now;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stats = StatsService.inMemory();
+        now = System.currentTimeMillis();
+        locations = new String[size];
+        for (int i = 0; i < size; i++) {
+            locations[i] = "file:///music/Track%20" + i + ".mp3";
+            for (int plays = random.nextInt(20); plays >= 0; plays--) {
+                stats.record(new PlayEvent(PlayEvent.Kind.PLAYED, locations[i], now - random.nextInt(365) * DAY, 180_000));
+            }
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        stats.record(new PlayEvent(PlayEvent.Kind.PLAYED, locations[random.nextInt(size)], now, 180_000));
+    }
+
+    @Benchmark
+    public List<TrackStats> mostPlayed() {
+        return stats.mostPlayed(100);
+    }
+
+    @Benchmark
+    public List<TrackStats> notPlayedIn90Days() {
+        return stats.playedBefore(now - 90 * DAY, 100);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.library.MetadataCache;
+import com.example.musicplayer.library.TagReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metadata extraction per format: a full JAudiotagger parse versus a hit in
+ * the metadata cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagReadBenchmark {
+    @Param({"mp3", "flac", "wav"})
+    public String format;
+
+    private Path dir;
+    private File file;
+    private TagReader cachedReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("tag-bench");
+        file = Fixtures.audioFile(dir, format).toFile();
+        cachedReader = new TagReader(new MetadataCache(null));
+        cachedReader.readTags(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public MetadataCache.Entry parse() {
+        return new TagReader(new MetadataCache(null)).readTags(file);
+    }
+
+    @Benchmark
+    public MetadataCache.Entry cacheHit() {
+        return cachedReader.readTags(file);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.view.TimeFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time formatting on the progress-update path: the old String.format based
+ * label, the buffer based formatter, and one label update as done by
+ * ProgressRenderer when the displayed second changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeFormatBenchmark {
+    private final char[] buffer = new char[TimeFormatter.MAX_LENGTH * 2 + 3];
+    private final char[] total = new char[TimeFormatter.MAX_LENGTH + 3];
+    private int totalLength;
+    private double seconds = 3725.4;
+
+    public TimeFormatBenchmark() {
+        total[0] = ' ';
+        total[1] = '/';
+        total[2] = ' ';
+        totalLength = 3 + TimeFormatter.format(4000, total, 3);
+    }
+
+    @Benchmark
+    public String legacyLabel() {
+        seconds += 0.25;
+        return legacyFormat(seconds) + " / " + legacyFormat(4000);
+    }
+
+    @Benchmark
+    public int formatIntoBuffer() {
+        seconds += 0.25;
+        return TimeFormatter.format((long) seconds, buffer, 0);
+    }
+
+    @Benchmark
+    public String progressLabel() {
+        seconds += 0.25;
+        int length = TimeFormatter.format((long) seconds, buffer, 0);
+        System.arraycopy(total, 0, buffer, length, totalLength);
+        return new String(buffer, 0, length + totalLength);
+    }
+
+    private static String legacyFormat(double seconds) {
+        int hours = (int) (seconds / 3600);
+        int minutes = (int) ((seconds % 3600) / 60);
+        int secs = (int) (seconds % 60);
+
+        if (hours > 0) {
+            return String.format("%d:%02d:%02d", hours, minutes, secs);
+        } else {
+            return String.format("%02d:%02d", minutes, secs);
+        }
+    }
+}
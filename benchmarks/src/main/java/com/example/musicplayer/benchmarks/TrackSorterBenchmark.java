@@ -0,0 +1,80 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.SortKey;
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.model.TrackSorter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Sorting a shuffled playlist by one and two keys, and applying the result. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TrackSorterBenchmark {
+    private static final List<SortKey> ARTIST_TITLE = List.of(
+            SortKey.ascending(SortKey.Field.ARTIST), SortKey.ascending(SortKey.Field.TITLE));
+    private static final List<SortKey> TITLE = List.of(SortKey.ascending(SortKey.Field.TITLE));
+    private static final List<SortKey> DURATION = List.of(SortKey.descending(SortKey.Field.DURATION));
+
+    @Param({"10000", "200000"})
+    public int size;
+
+    private Track[] tracks;
+    private Playlist playlist;
+    private List<Track> byArtist;
+    private List<Track> byTitle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Track> shuffled = Fixtures.tracks(size);
+        Collections.shuffle(shuffled, new Random(42));
+        tracks = shuffled.toArray(new Track[0]);
+        playlist = new Playlist();
+        playlist.addTracks(shuffled);
+        byArtist = Arrays.asList(TrackSorter.sort(tracks, ARTIST_TITLE, Locale.ENGLISH));
+        byTitle = Arrays.asList(TrackSorter.sort(tracks, TITLE, Locale.ENGLISH));
+    }
+
+    @Benchmark
+    public Track[] artistThenTitle() {
+        return TrackSorter.sort(tracks, ARTIST_TITLE, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public Track[] title() {
+        return TrackSorter.sort(tracks, TITLE, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public Track[] durationDescending() {
+        return TrackSorter.sort(tracks, DURATION, Locale.ENGLISH);
+    }
+
+    /** Swaps between two orders, each apply is one permutation of the whole list. */
+    @Benchmark
+    public int applyOrder() {
+        playlist.applyOrder(playlist.getTrack(0) == byArtist.get(0) ? byTitle : byArtist);
+        return playlist.getCurrentTrackIndex();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.musicplayer.benchmarks;
+
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.model.TrackPool;
+import com.example.musicplayer.session.SessionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opening a playlist tab whose tracks the library already holds: the saved
+ * file is read and every entry resolves to the pooled track.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkspaceBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Path dir;
+    private Path file;
+    private List<String> locations;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("workspace-bench");
+        file = dir.resolve("1.playlist");
+        List<Track> tracks = Fixtures.tracks(size);
+        locations = new ArrayList<>(size);
+        for (Track track : tracks) {
+            TrackPool.shared().intern(track);
+            locations.add(track.getFilePath());
+        }
+        SessionStore.savePlaylist(file, tracks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public Playlist openSharedTab() throws IOException {
+        Playlist playlist = new Playlist();
+        List<Track> batch = new ArrayList<>(size);
+        SessionStore.readPlaylist(file, batch::add);
+        playlist.addTracks(batch);
+        return playlist;
+    }
+
+    @Benchmark
+    public int poolLookup() {
+        int found = 0;
+        for (String location : locations) {
+            if (TrackPool.shared().get(location) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
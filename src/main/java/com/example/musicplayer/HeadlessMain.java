@@ -0,0 +1,255 @@
+// HeadlessMain.java
+package com.example.musicplayer;
+
+import com.example.musicplayer.controller.AudioBackend;
+import com.example.musicplayer.controller.MediaPlayerBackend;
+import com.example.musicplayer.controller.PlaybackEngine;
+import com.example.musicplayer.controller.SimulatedAudioBackend;
+import com.example.musicplayer.library.FolderScanner;
+import com.example.musicplayer.library.MetadataCache;
+import com.example.musicplayer.library.PlaylistImportTask;
+import com.example.musicplayer.library.TagReader;
+import com.example.musicplayer.metrics.PlayerMetrics;
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.playlist.PlaylistReader;
+import com.example.musicplayer.remote.RemoteServer;
+import javafx.application.Platform;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Runs the player without a window, controlled by commands on standard input:
+ * play, pause, toggle, stop, next, prev, shuffle, repeat, seek SECONDS,
+ * volume 0..1, status, metrics, quit.
+ * <p>
+ * Arguments are audio files, folders and playlists. By default the FX toolkit
+ * is never started and playback is simulated; {@code --media} plays through
+ * JavaFX media instead (the toolkit starts, but no window is shown).
+ * With {@code -Dmusicplayer.remote.port=PORT} the same commands are also
+ * served over HTTP, see {@link RemoteServer}.
+ */
+public class HeadlessMain {
+    private final PlaybackEngine engine;
+    private final Executor engineThread;
+
+    private HeadlessMain(PlaybackEngine engine, Executor engineThread) {
+        this.engine = engine;
+        this.engineThread = engineThread;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean media = false;
+        List<Path> inputs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--media")) {
+                media = true;
+            } else {
+                inputs.add(Paths.get(arg));
+            }
+        }
+
+        PlayerMetrics.register();
+        TagReader tagReader = new TagReader(MetadataCache.openDefault());
+        List<Track> tracks = new ArrayList<>();
+        for (Path input : inputs) {
+            load(input, tagReader, tracks);
+        }
+        tagReader.getCache().saveIfDirty();
+        System.out.println("Loaded " + tracks.size() + " tracks");
+
+        Executor engineThread;
+        AudioBackend backend;
+        if (media) {
+            Platform.startup(() -> { });
+            Platform.setImplicitExit(false);
+            engineThread = Platform::runLater;
+            backend = new MediaPlayerBackend();
+        } else {
+            ScheduledExecutorService clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "engine");
+                thread.setDaemon(true);
+                return thread;
+            });
+            engineThread = clock;
+            backend = new SimulatedAudioBackend(clock);
+        }
+
+        Playlist playlist = new Playlist();
+        PlaybackEngine engine = new PlaybackEngine(playlist, backend);
+        HeadlessMain daemon = new HeadlessMain(engine, engineThread);
+        daemon.call(() -> {
+            engine.addListener(new StatusPrinter());
+            engine.addTracks(tracks);
+        });
+        RemoteServer remote = RemoteServer.fromSystemProperties(engine, engineThread);
+        if (remote != null) {
+            remote.start();
+            System.out.println("Remote control on http://" + hostAndPort(remote.getHttpAddress())
+                    + "/api/, events on ws://" + hostAndPort(remote.getEventAddress()) + "/");
+        }
+        daemon.run();
+
+        if (remote != null) {
+            remote.stop();
+        }
+        daemon.call(engine::close);
+        if (media) {
+            Platform.exit();
+        }
+    }
+
+    private void run() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] words = line.trim().split("\\s+");
+            String command = words[0].toLowerCase(Locale.ROOT);
+            if (command.isEmpty()) {
+                continue;
+            }
+            if (command.equals("quit") || command.equals("exit")) {
+                return;
+            }
+            try {
+                call(() -> execute(command, words));
+            } catch (RuntimeException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void execute(String command, String[] words) {
+        switch (command) {
+            case "play":
+                engine.play();
+                break;
+            case "pause":
+                engine.pause();
+                break;
+            case "toggle":
+                engine.togglePlayPause();
+                break;
+            case "stop":
+                engine.stop();
+                break;
+            case "next":
+                engine.next();
+                break;
+            case "prev":
+                engine.prev();
+                break;
+            case "shuffle":
+                engine.setShuffle(!engine.isShuffle());
+                System.out.println("Shuffle " + (engine.isShuffle() ? "on" : "off"));
+                break;
+            case "repeat":
+                engine.setRepeat(!engine.isRepeat());
+                System.out.println("Repeat " + (engine.isRepeat() ? "on" : "off"));
+                break;
+            case "seek":
+                engine.seek(Double.parseDouble(words[1]));
+                break;
+            case "volume":
+                engine.setVolume(Double.parseDouble(words[1]));
+                break;
+            case "queue":
+                if (words.length > 1) {
+                    engine.getQueue().add(engine.getPlaylist().getTrack(Integer.parseInt(words[1]) - 1));
+                }
+                engine.getQueue().entries(10).forEach(entry -> System.out.println("  " + entry));
+                System.out.println(engine.getQueue().size() + " queued");
+                break;
+            case "playnext":
+                engine.getQueue().addFirst(engine.getPlaylist().getTrack(Integer.parseInt(words[1]) - 1));
+                break;
+            case "unqueue":
+                engine.getQueue().clear();
+                break;
+            case "metrics":
+                PlayerMetrics metrics = PlayerMetrics.get();
+                System.out.println("Track open: " + metrics.getTrackOpen());
+                System.out.println("Track switch: " + metrics.getTrackSwitchGap());
+                System.out.println("Tag read: " + metrics.getTagRead() + ", cache hits=" + metrics.getTagCacheHits()
+                        + ", failures=" + metrics.getTagReadFailures());
+                System.out.println("Playback errors: " + metrics.getPlaybackErrors());
+                break;
+            case "status":
+                System.out.printf(Locale.ROOT, "%s %s at %.1fs, %d tracks%n", engine.getState(),
+                        engine.getCurrentTrack(), engine.getPosition(), engine.getPlaylist().size());
+                break;
+            default:
+                System.out.println("Unknown command: " + command);
+        }
+    }
+
+    /** Runs {@code action} on the engine thread and waits for it. */
+    private void call(Runnable action) {
+        CompletableFuture.runAsync(action, engineThread).join();
+    }
+
+    private static String hostAndPort(InetSocketAddress address) {
+        String host = address.getHostString();
+        return (host.contains(":") ? "[" + host + "]" : host) + ":" + address.getPort();
+    }
+
+    private static void load(Path input, TagReader tagReader, List<Track> tracks) throws IOException {
+        String name = input.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (Files.isDirectory(input)) {
+            FolderScanner.walk(input, file -> tracks.add(tagReader.read(file.toFile())), directory -> { });
+        } else if (name.endsWith(".m3u") || name.endsWith(".m3u8") || name.endsWith(".pls")) {
+            PlaylistReader.read(input, entry -> {
+                Track track = PlaylistImportTask.toTrack(entry);
+                if (!track.isResolved() && track.getFilePath().startsWith("file:")) {
+                    MetadataCache.Entry tags = tagReader.tryReadTags(new File(URI.create(track.getFilePath())));
+                    if (tags != null) {
+                        track.setTitle(tags.getTitle());
+                        track.setArtist(tags.getArtist());
+                        track.setDuration(tags.getDuration());
+                        track.setResolved(true);
+                    }
+                }
+                tracks.add(track);
+            });
+        } else {
+            tracks.add(tagReader.read(input.toFile()));
+        }
+    }
+
+    private static final class StatusPrinter implements PlaybackEngine.Listener {
+        @Override
+        public void trackChanged(Track track) {
+            System.out.println(track != null ? "Track: " + track : "Playlist empty");
+        }
+
+        @Override
+        public void stateChanged(PlaybackEngine.State state) {
+            System.out.println("State: " + state);
+        }
+
+        @Override
+        public void trackReady(Track track, double durationSeconds) {
+        }
+
+        @Override
+        public void playbackFailed(Track track, String message) {
+            System.out.println("Cannot play " + track + ": " + message);
+        }
+    }
+}
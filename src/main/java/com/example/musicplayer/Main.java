@@ -3,15 +3,26 @@ package com.example.musicplayer;
 
 import javafx.application.Application;
 import javafx.stage.Stage;
+import com.example.musicplayer.metrics.PlayerMetrics;
 import com.example.musicplayer.view.PlayerView;
 
 public class Main extends Application {
+    private PlayerView playerView;
+
     @Override
     public void start(Stage primaryStage) {
-        PlayerView playerView = new PlayerView();
+        PlayerMetrics.register();
+        playerView = new PlayerView();
         playerView.show(primaryStage);
     }
 
+    @Override
+    public void stop() {
+        if (playerView != null) {
+            playerView.shutdown();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,183 @@
+package com.example.musicplayer.analysis;
+
+import com.example.musicplayer.model.Track;
+import javafx.application.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Computes and caches waveforms and loudness. The playing track is analysed on
+ * demand; the rest of the library is swept by a few minimum-priority threads,
+ * as decoding and metering is CPU bound. While something plays, all of them
+ * together read at a limited rate (see {@link Throttle}).
+ */
+public class AnalysisService {
+    private static final long DEFAULT_PLAYING_RATE = 1024 * 1024;
+    // leaves cores for playback and the UI
+    private static final int SWEEP_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private final AnalysisStore store;
+    // the playing track does not queue behind the sweep for its share of the rate
+    private final Throttle throttle;
+    private final Throttle sweepThrottle;
+    private final AudioAnalyzer analyzer;
+    private final AudioAnalyzer sweepAnalyzer;
+    private final ExecutorService foreground = Executors.newSingleThreadExecutor(threads("analysis", Thread.NORM_PRIORITY));
+    private final ExecutorService background = Executors.newFixedThreadPool(SWEEP_THREADS,
+            threads("analysis-sweep", Thread.MIN_PRIORITY));
+    private final Map<Path, CompletableFuture<TrackAnalysis>> inFlight = new ConcurrentHashMap<>();
+    private volatile long latestRequest;
+
+    public AnalysisService(AnalysisStore store, long playingBytesPerSecond) {
+        this.store = store;
+        this.throttle = new Throttle(playingBytesPerSecond);
+        this.sweepThrottle = new Throttle(playingBytesPerSecond);
+        this.analyzer = new AudioAnalyzer(throttle);
+        this.sweepAnalyzer = new AudioAnalyzer(sweepThrottle);
+    }
+
+    public static AnalysisService createDefault() {
+        long rate = Long.getLong("musicplayer.analysis.kbps", DEFAULT_PLAYING_RATE / 1024) * 1024;
+        return new AnalysisService(AnalysisStore.openDefault(), rate);
+    }
+
+    /**
+     * Delivers the analysis of {@code track} to {@code consumer} on the FX
+     * thread, analysing it first if needed; null if it is not a local file.
+     * Only the most recent request is delivered.
+     */
+    public void request(Track track, Consumer<TrackAnalysis> consumer) {
+        long request = ++latestRequest;
+        Path path = localPath(track);
+        if (path == null) {
+            consumer.accept(null);
+            return;
+        }
+        foreground.execute(() -> {
+            if (request != latestRequest) {
+                return;
+            }
+            TrackAnalysis analysis = analyze(path, analyzer);
+            Platform.runLater(() -> {
+                if (request == latestRequest) {
+                    consumer.accept(analysis);
+                }
+            });
+        });
+    }
+
+    /** Queues tracks for analysis in the background; already analysed files are skipped cheaply. */
+    public void enqueue(Collection<Track> tracks) {
+        for (Track track : tracks) {
+            Path path = localPath(track);
+            if (path != null) {
+                background.execute(() -> sweep(path));
+            }
+        }
+    }
+
+    /** Volume factor that levels {@code track} to the target loudness; 1 until it was analysed. */
+    public double gain(Track track) {
+        Path path = localPath(track);
+        return path != null ? TrackAnalysis.gainFactor(store.loudness(path)) : 1.0;
+    }
+
+    /** Limits the read rate while playback is running. */
+    public void setPlaybackActive(boolean active) {
+        throttle.setActive(active);
+        sweepThrottle.setActive(active);
+    }
+
+    public void shutdown() {
+        foreground.shutdownNow();
+        background.shutdownNow();
+        try {
+            store.close();
+        } catch (IOException e) {
+            // nothing useful to do while exiting
+        }
+    }
+
+    private void sweep(Path path) {
+        try {
+            if (!store.contains(path, Files.readAttributes(path, BasicFileAttributes.class))) {
+                analyze(path, sweepAnalyzer);
+            }
+        } catch (IOException e) {
+            // gone or unreadable, nothing to analyse
+        }
+    }
+
+    private TrackAnalysis analyze(Path path, AudioAnalyzer analyzer) {
+        CompletableFuture<TrackAnalysis> own = new CompletableFuture<>();
+        CompletableFuture<TrackAnalysis> running = inFlight.putIfAbsent(path, own);
+        if (running != null) {
+            // the other worker is already on it
+            return running.join();
+        }
+        try {
+            TrackAnalysis analysis = loadOrAnalyze(path, analyzer);
+            own.complete(analysis);
+            return analysis;
+        } catch (RuntimeException e) {
+            own.complete(null);
+            return null;
+        } finally {
+            inFlight.remove(path);
+        }
+    }
+
+    private TrackAnalysis loadOrAnalyze(Path path, AudioAnalyzer analyzer) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            TrackAnalysis stored = store.read(path, attributes);
+            if (stored != null) {
+                return stored;
+            }
+            TrackAnalysis analysis = analyzer.analyze(path.toFile());
+            store.store(path, attributes, analysis);
+            return analysis;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static Path localPath(Track track) {
+        String location = track.getFilePath();
+        if (location == null || !location.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(URI.create(location)).toPath();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory threads(String prefix, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        };
+    }
+}
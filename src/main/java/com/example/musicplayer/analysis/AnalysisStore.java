@@ -0,0 +1,302 @@
+package com.example.musicplayer.analysis;
+
+import com.example.musicplayer.util.AppDirectories;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent analysis results keyed by absolute file path, valid while the
+ * file's modification time and size are unchanged. Records are appended to a
+ * single file; only path, validity and loudness stay in memory, waveforms are
+ * read back on demand. Superseded records are dropped when the file is opened
+ * and more than half of it is garbage; a corrupt file is discarded.
+ */
+public class AnalysisStore {
+    private static final int MAGIC = 0x4D50414E; // "MPAN"
+    // 2: MP3 and FLAC are decoded, earlier empty results for them are stale
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_PATH_BYTES = 1 << 16;
+
+    private final Path location;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private FileChannel channel;
+    private long end;
+
+    private AnalysisStore(Path location) {
+        this.location = location;
+    }
+
+    /** A store that keeps nothing across runs. */
+    public static AnalysisStore inMemory() {
+        return new AnalysisStore(null);
+    }
+
+    public static AnalysisStore openDefault() {
+        try {
+            return open(AppDirectories.configFile("analysis.cache"));
+        } catch (IOException e) {
+            return inMemory();
+        }
+    }
+
+    public static AnalysisStore open(Path location) throws IOException {
+        AnalysisStore store = new AnalysisStore(location);
+        long live = store.load();
+        if (store.end > HEADER_SIZE && live < (store.end - HEADER_SIZE) / 2) {
+            store.compact();
+        }
+        store.channel = FileChannel.open(location, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (store.end == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            store.channel.write(header, 0);
+            store.end = HEADER_SIZE;
+        }
+        // drops a record torn by a crash
+        store.channel.truncate(store.end);
+        return store;
+    }
+
+    /** Loudness of {@code file} without checking that the file is unchanged; NaN if unknown. */
+    public float loudness(Path file) {
+        Entry entry = entries.get(file.toString());
+        return entry != null ? entry.loudness : Float.NaN;
+    }
+
+    /** Whether an up-to-date analysis of the file exists. */
+    public boolean contains(Path file, BasicFileAttributes attributes) {
+        return valid(entries.get(file.toString()), attributes);
+    }
+
+    /** The stored analysis if the file on disk still matches it, otherwise null. */
+    public TrackAnalysis read(Path file, BasicFileAttributes attributes) throws IOException {
+        Entry entry = entries.get(file.toString());
+        if (!valid(entry, attributes)) {
+            return null;
+        }
+        if (entry.waveform != null) {
+            return new TrackAnalysis(entry.loudness, entry.waveform[0], entry.waveform[1]);
+        }
+        byte[] peaks = new byte[entry.points];
+        byte[] rms = new byte[entry.points];
+        ByteBuffer buffer = ByteBuffer.allocate(entry.points * 2);
+        long position = entry.waveformOffset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        buffer.get(peaks).get(rms);
+        return new TrackAnalysis(entry.loudness, peaks, rms);
+    }
+
+    public synchronized void store(Path file, BasicFileAttributes attributes, TrackAnalysis analysis)
+            throws IOException {
+        String path = file.toString();
+        long modified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        byte[] peaks = analysis.peaks();
+        byte[] rms = analysis.rms();
+        if (channel == null) {
+            entries.put(path, new Entry(modified, size, analysis.getLoudness(), peaks.length, -1,
+                    new byte[][]{peaks, rms}));
+            return;
+        }
+
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(4 + pathBytes.length + 8 + 8 + 4 + 2 + peaks.length * 2);
+        record.putInt(pathBytes.length).put(pathBytes)
+                .putLong(modified).putLong(size).putFloat(analysis.getLoudness())
+                .putShort((short) peaks.length).put(peaks).put(rms);
+        record.flip();
+        long offset = end;
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        end = offset + record.limit();
+        entries.put(path, new Entry(modified, size, analysis.getLoudness(), peaks.length,
+                end - peaks.length * 2L, null));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /** Reads the index and returns the number of bytes in live records. */
+    private long load() throws IOException {
+        if (!Files.exists(location)) {
+            return 0;
+        }
+        long position = 0;
+        long live = 0;
+        try (CountingInput in = new CountingInput(Files.newInputStream(location))) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                Files.delete(location);
+                return 0;
+            }
+            position = in.count;
+            while (true) {
+                int pathLength = data.readInt();
+                if (pathLength < 0 || pathLength > MAX_PATH_BYTES) {
+                    throw new IOException("Corrupt record at " + position);
+                }
+                byte[] pathBytes = new byte[pathLength];
+                data.readFully(pathBytes);
+                long modified = data.readLong();
+                long size = data.readLong();
+                float loudness = data.readFloat();
+                int points = data.readUnsignedShort();
+                long waveformOffset = in.count;
+                skipFully(data, points * 2L);
+
+                Entry entry = new Entry(modified, size, loudness, points, waveformOffset, null);
+                entry.recordSize = in.count - position;
+                Entry previous = entries.put(new String(pathBytes, StandardCharsets.UTF_8), entry);
+                live += entry.recordSize - (previous != null ? previous.recordSize : 0);
+                position = in.count;
+            }
+        } catch (EOFException e) {
+            // end of file, or a torn last record that is cut off
+        } catch (IOException | RuntimeException e) {
+            // a corrupt record; the records are not framed, so nothing after it can be found and the file starts over
+            entries.clear();
+            Files.delete(location);
+            position = 0;
+            live = 0;
+        }
+        end = position;
+        return live;
+    }
+
+    private void compact() throws IOException {
+        Path temp = location.resolveSibling(location.getFileName() + ".tmp");
+        try (FileChannel source = FileChannel.open(location, StandardOpenOption.READ);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long position = HEADER_SIZE;
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                byte[] pathBytes = e.getKey().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer waveform = ByteBuffer.allocate(entry.points * 2);
+                while (waveform.hasRemaining()) {
+                    if (source.read(waveform, entry.waveformOffset + waveform.position()) < 0) {
+                        throw new EOFException();
+                    }
+                }
+                out.writeInt(pathBytes.length);
+                out.write(pathBytes);
+                out.writeLong(entry.modified);
+                out.writeLong(entry.size);
+                out.writeFloat(entry.loudness);
+                out.writeShort(entry.points);
+                long headerSize = 4 + pathBytes.length + 8 + 8 + 4 + 2;
+                out.write(waveform.array());
+                entry.waveformOffset = position + headerSize;
+                position += headerSize + waveform.capacity();
+            }
+            end = position;
+        }
+        Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void skipFully(InputStream in, long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    private static boolean valid(Entry entry, BasicFileAttributes attributes) {
+        return entry != null
+                && entry.modified == attributes.lastModifiedTime().toMillis()
+                && entry.size == attributes.size();
+    }
+
+    private static final class Entry {
+        final long modified;
+        final long size;
+        final float loudness;
+        final int points;
+        long waveformOffset;
+        long recordSize;
+        // only for stores without a file
+        final byte[][] waveform;
+
+        Entry(long modified, long size, float loudness, int points, long waveformOffset, byte[][] waveform) {
+            this.modified = modified;
+            this.size = size;
+            this.loudness = loudness;
+            this.points = points;
+            this.waveformOffset = waveformOffset;
+            this.waveform = waveform;
+        }
+    }
+
+    private static final class CountingInput extends BufferedInputStream {
+        long count;
+
+        CountingInput(InputStream in) {
+            super(in, 1 << 16);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public synchronized long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.musicplayer.analysis;
+
+import com.example.musicplayer.util.PcmDecoder;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Decodes a file through {@link PcmDecoder} and computes its waveform and
+ * loudness in a single pass. Formats without a decoder (AAC among the ones
+ * the player plays) produce an empty analysis.
+ */
+final class AudioAnalyzer {
+    static final int POINTS = 256;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Throttle throttle;
+
+    AudioAnalyzer(Throttle throttle) {
+        this.throttle = throttle;
+    }
+
+    TrackAnalysis analyze(File file) throws IOException, InterruptedException {
+        try (AudioInputStream in = PcmDecoder.open(file.toPath(), BUFFER_SIZE)) {
+            return analyze(in, in.getFormat(), in.getFrameLength());
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            return empty();
+        }
+    }
+
+    private TrackAnalysis analyze(AudioInputStream in, AudioFormat format, long frameLength)
+            throws IOException, InterruptedException {
+        int channels = format.getChannels();
+        int frameSize = channels * 2;
+        // without a known length, collect 100 ms buckets and merge them at the end
+        long bucketFrames = frameLength > 0
+                ? Math.max(1, (frameLength + POINTS - 1) / POINTS)
+                : Math.max(1, Math.round(format.getSampleRate() / 10));
+
+        LoudnessMeter meter = new LoudnessMeter(format.getSampleRate(), channels);
+        double[] frame = new double[channels];
+        float[] peaks = new float[POINTS];
+        float[] squares = new float[POINTS];
+        int points = 0;
+        double bucketPeak = 0;
+        double bucketSquares = 0;
+        long bucketFill = 0;
+
+        byte[] buffer = new byte[BUFFER_SIZE - BUFFER_SIZE % frameSize];
+        int read;
+        while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+            throttle.acquire(read);
+            for (int offset = 0; offset + frameSize <= read; offset += frameSize) {
+                double framePeak = 0;
+                double frameSquares = 0;
+                for (int c = 0; c < channels; c++) {
+                    int i = offset + c * 2;
+                    double sample = (short) ((buffer[i] & 0xFF) | buffer[i + 1] << 8) / 32768.0;
+                    frame[c] = sample;
+                    framePeak = Math.max(framePeak, Math.abs(sample));
+                    frameSquares += sample * sample;
+                }
+                meter.add(frame);
+
+                bucketPeak = Math.max(bucketPeak, framePeak);
+                bucketSquares += frameSquares / channels;
+                if (++bucketFill == bucketFrames) {
+                    if (points == peaks.length) {
+                        peaks = Arrays.copyOf(peaks, points * 2);
+                        squares = Arrays.copyOf(squares, points * 2);
+                    }
+                    peaks[points] = (float) bucketPeak;
+                    squares[points] = (float) (bucketSquares / bucketFill);
+                    points++;
+                    bucketPeak = 0;
+                    bucketSquares = 0;
+                    bucketFill = 0;
+                }
+            }
+        }
+        if (bucketFill > 0) {
+            if (points == peaks.length) {
+                peaks = Arrays.copyOf(peaks, points + 1);
+                squares = Arrays.copyOf(squares, points + 1);
+            }
+            peaks[points] = (float) bucketPeak;
+            squares[points] = (float) (bucketSquares / bucketFill);
+            points++;
+        }
+
+        int target = Math.min(points, POINTS);
+        byte[] peakBytes = new byte[target];
+        byte[] rmsBytes = new byte[target];
+        for (int p = 0; p < target; p++) {
+            int from = (int) ((long) p * points / target);
+            int to = (int) ((long) (p + 1) * points / target);
+            double peak = 0;
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                peak = Math.max(peak, peaks[i]);
+                sum += squares[i];
+            }
+            peakBytes[p] = quantize(peak);
+            rmsBytes[p] = quantize(Math.sqrt(sum / (to - from)));
+        }
+        return new TrackAnalysis((float) meter.loudness(), peakBytes, rmsBytes);
+    }
+
+    static TrackAnalysis empty() {
+        return new TrackAnalysis(Float.NaN, new byte[0], new byte[0]);
+    }
+
+    private static byte quantize(double value) {
+        return (byte) Math.round(Math.min(1.0, value) * 255);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.musicplayer.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Integrated loudness after ITU-R BS.1770: K-weighting, 400 ms blocks with
+ * 75% overlap, an absolute gate at -70 LUFS and a relative gate 10 LU below
+ * the ungated level.
+ */
+final class LoudnessMeter {
+    private static final double ABSOLUTE_GATE = -70.0;
+    private static final double RELATIVE_GATE = -10.0;
+
+    private final int channels;
+    private final int subBlockFrames;
+    private final double[] shelfB = new double[3];
+    private final double[] shelfA = new double[3];
+    private final double[] highPassB = {1, -2, 1};
+    private final double[] highPassA = new double[3];
+    // per channel: last two inputs and outputs of both biquads
+    private final double[][] state;
+
+    private double subBlockEnergy;
+    private int subBlockFill;
+    private double[] subBlocks = new double[256];
+    private int subBlockCount;
+
+    LoudnessMeter(float sampleRate, int channels) {
+        this.channels = channels;
+        this.subBlockFrames = Math.max(1, Math.round(sampleRate / 10));
+        this.state = new double[channels][8];
+
+        double k = Math.tan(Math.PI * 1681.974450955533 / sampleRate);
+        double q = 0.7071752369554196;
+        double vh = Math.pow(10, 3.999843853973347 / 20);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1 + k / q + k * k;
+        shelfB[0] = (vh + vb * k / q + k * k) / a0;
+        shelfB[1] = 2 * (k * k - vh) / a0;
+        shelfB[2] = (vh - vb * k / q + k * k) / a0;
+        shelfA[0] = 1;
+        shelfA[1] = 2 * (k * k - 1) / a0;
+        shelfA[2] = (1 - k / q + k * k) / a0;
+
+        k = Math.tan(Math.PI * 38.13547087602444 / sampleRate);
+        q = 0.5003270373238773;
+        a0 = 1 + k / q + k * k;
+        highPassA[0] = 1;
+        highPassA[1] = 2 * (k * k - 1) / a0;
+        highPassA[2] = (1 - k / q + k * k) / a0;
+    }
+
+    /** Adds one frame; {@code samples} holds one value per channel in -1..1. */
+    void add(double[] samples) {
+        double energy = 0;
+        for (int c = 0; c < channels; c++) {
+            double[] s = state[c];
+            double x = samples[c];
+            double y = shelfB[0] * x + shelfB[1] * s[0] + shelfB[2] * s[1] - shelfA[1] * s[2] - shelfA[2] * s[3];
+            s[1] = s[0];
+            s[0] = x;
+            s[3] = s[2];
+            s[2] = y;
+            double z = highPassB[0] * y + highPassB[1] * s[4] + highPassB[2] * s[5] - highPassA[1] * s[6] - highPassA[2] * s[7];
+            s[5] = s[4];
+            s[4] = y;
+            s[7] = s[6];
+            s[6] = z;
+            // surround channels of a 5.1 layout weigh more
+            energy += (c == 3 || c == 4 ? 1.41 : 1.0) * z * z;
+        }
+        subBlockEnergy += energy;
+        if (++subBlockFill == subBlockFrames) {
+            if (subBlockCount == subBlocks.length) {
+                subBlocks = Arrays.copyOf(subBlocks, subBlockCount * 2);
+            }
+            subBlocks[subBlockCount++] = subBlockEnergy / subBlockFrames;
+            subBlockEnergy = 0;
+            subBlockFill = 0;
+        }
+    }
+
+    /** Integrated loudness in LUFS, NaN if there was nothing above the absolute gate. */
+    double loudness() {
+        int blocks = subBlockCount - 3;
+        if (blocks <= 0) {
+            return Double.NaN;
+        }
+        double[] power = new double[blocks];
+        for (int i = 0; i < blocks; i++) {
+            power[i] = (subBlocks[i] + subBlocks[i + 1] + subBlocks[i + 2] + subBlocks[i + 3]) / 4;
+        }
+
+        double relativeGate = loudness(gatedMean(power, ABSOLUTE_GATE)) + RELATIVE_GATE;
+        return loudness(gatedMean(power, Math.max(ABSOLUTE_GATE, relativeGate)));
+    }
+
+    private static double gatedMean(double[] power, double gate) {
+        double sum = 0;
+        int count = 0;
+        for (double p : power) {
+            if (loudness(p) > gate) {
+                sum += p;
+                count++;
+            }
+        }
+        return count == 0 ? 0 : sum / count;
+    }
+
+    private static double loudness(double power) {
+        return power <= 0 ? Double.NaN : -0.691 + 10 * Math.log10(power);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.musicplayer.analysis;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how fast analysis reads audio while something is playing, so decoding
+ * never starves playback of disk bandwidth or CPU. Idle players analyse at
+ * full speed. The limit is shared by all reading threads, each waits for its
+ * turn at the rate; a limit of zero or less turns it off.
+ */
+final class Throttle {
+    private final long bytesPerSecond;
+    private volatile boolean active;
+    // System.nanoTime() at which the bytes granted so far have been read at the rate
+    private long granted;
+
+    Throttle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    void setActive(boolean active) {
+        this.active = active;
+    }
+
+    /** Waits as long as reading {@code bytes} takes at the limited rate, after the bytes of other threads. */
+    void acquire(int bytes) throws InterruptedException {
+        if (!active || bytesPerSecond <= 0) {
+            return;
+        }
+        long until;
+        synchronized (this) {
+            granted = Math.max(granted, System.nanoTime()) + bytes * 1_000_000_000L / bytesPerSecond;
+            until = granted;
+        }
+        TimeUnit.NANOSECONDS.sleep(until - System.nanoTime());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.musicplayer.analysis;
+
+/**
+ * Result of analysing one file: a downsampled peak/RMS waveform, quantized to
+ * a byte per point, and the integrated loudness in LUFS. Files that could not
+ * be decoded have no points and an unknown loudness.
+ */
+public final class TrackAnalysis {
+    /** Reference level of the gain, as in ReplayGain 2. */
+    public static final double TARGET_LOUDNESS = -18.0;
+
+    private static final double MAX_BOOST_DB = 6.0;
+    private static final double MAX_CUT_DB = -20.0;
+
+    private final float loudness;
+    private final byte[] peaks;
+    private final byte[] rms;
+
+    TrackAnalysis(float loudness, byte[] peaks, byte[] rms) {
+        this.loudness = loudness;
+        this.peaks = peaks;
+        this.rms = rms;
+    }
+
+    /** Integrated loudness in LUFS, NaN if unknown or the file is silent. */
+    public float getLoudness() {
+        return loudness;
+    }
+
+    public int getPoints() {
+        return peaks.length;
+    }
+
+    /** Peak amplitude of point {@code i}, 0..1. */
+    public double getPeak(int i) {
+        return (peaks[i] & 0xFF) / 255.0;
+    }
+
+    /** RMS amplitude of point {@code i}, 0..1. */
+    public double getRms(int i) {
+        return (rms[i] & 0xFF) / 255.0;
+    }
+
+    public boolean hasWaveform() {
+        return peaks.length > 0;
+    }
+
+    /** Volume factor that brings a track of {@code loudness} LUFS to the target level; 1 if unknown. */
+    public static double gainFactor(double loudness) {
+        if (Double.isNaN(loudness)) {
+            return 1.0;
+        }
+        double gainDb = Math.max(MAX_CUT_DB, Math.min(MAX_BOOST_DB, TARGET_LOUDNESS - loudness));
+        return Math.pow(10, gainDb / 20);
+    }
+
+    byte[] peaks() {
+        return peaks;
+    }
+
+    byte[] rms() {
+        return rms;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.musicplayer.artwork;
+
+import javafx.scene.image.Image;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of decoded artwork bounded by the memory the pixels take.
+ * Keys are artwork content hashes, so all tracks of an album share one image.
+ */
+public class ArtworkCache {
+    private final long maxBytes;
+    private final LinkedHashMap<Long, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    public ArtworkCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized Image get(long key) {
+        return images.get(key);
+    }
+
+    public synchronized void put(long key, Image image) {
+        Image previous = images.put(key, image);
+        if (previous != null) {
+            usedBytes -= sizeOf(previous);
+        }
+        usedBytes += sizeOf(image);
+
+        Iterator<Map.Entry<Long, Image>> eldest = images.entrySet().iterator();
+        while (usedBytes > maxBytes && images.size() > 1 && eldest.hasNext()) {
+            Map.Entry<Long, Image> entry = eldest.next();
+            if (entry.getKey() == key) {
+                continue;
+            }
+            usedBytes -= sizeOf(entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.musicplayer.artwork;
+
+import com.example.musicplayer.library.MetadataCache;
+import com.example.musicplayer.metrics.PlayerMetrics;
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.util.AppDirectories;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.images.Artwork;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Loads embedded album art in the background and decodes it straight to the
+ * requested size. Decoded images are shared between tracks with identical
+ * artwork through {@link ArtworkCache}; an optional {@link ThumbnailStore}
+ * keeps them across runs.
+ */
+public class ArtworkService {
+    private static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private final MetadataCache metadataCache;
+    private final ArtworkCache cache;
+    private final ThumbnailStore thumbnails;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "artwork-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long latestRequest;
+
+    public ArtworkService(MetadataCache metadataCache, ArtworkCache cache, ThumbnailStore thumbnails) {
+        this.metadataCache = metadataCache;
+        this.cache = cache;
+        this.thumbnails = thumbnails;
+    }
+
+    public static ArtworkService createDefault(MetadataCache metadataCache) {
+        ThumbnailStore thumbnails = null;
+        if (Boolean.parseBoolean(System.getProperty("musicplayer.thumbnails", "true"))) {
+            long maxBytes = Long.getLong("musicplayer.thumbnails.mb", ThumbnailStore.DEFAULT_MAX_BYTES >> 20) << 20;
+            thumbnails = new ThumbnailStore(AppDirectories.configDir().resolve("thumbnails"), maxBytes);
+        }
+        return new ArtworkService(metadataCache, new ArtworkCache(DEFAULT_CACHE_BYTES), thumbnails);
+    }
+
+    /**
+     * Delivers the artwork of {@code track}, at most {@code size} pixels wide and
+     * high, to {@code consumer} on the FX thread; null means the track has none.
+     * Only the most recent request is delivered. Must be called on the FX thread.
+     */
+    public void load(Track track, int size, Consumer<Image> consumer) {
+        long request = ++latestRequest;
+        Path path = localPath(track);
+        if (path == null) {
+            consumer.accept(null);
+            return;
+        }
+
+        executor.execute(() -> {
+            if (request != latestRequest) {
+                return;
+            }
+            Image image = loadInBackground(path, size);
+            Platform.runLater(() -> {
+                if (request == latestRequest) {
+                    consumer.accept(image);
+                }
+            });
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Image loadInBackground(Path path, int size) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+
+        // a hash recorded for the file as it is now spares parsing it
+        MetadataCache.Entry entry = metadataCache.lookup(path, attributes);
+        long knownHash = entry != null ? entry.getArtworkHash() : 0;
+        if (knownHash == MetadataCache.NO_ARTWORK) {
+            return null;
+        }
+        if (knownHash != 0) {
+            long key = key(knownHash, size);
+            Image image = cache.get(key);
+            if (image == null) {
+                image = fromThumbnails(key);
+            }
+            if (image != null) {
+                return image;
+            }
+        }
+
+        byte[] data;
+        try {
+            Tag tag = AudioFileIO.read(path.toFile()).getTag();
+            Artwork artwork = tag != null ? tag.getFirstArtwork() : null;
+            data = artwork != null ? artwork.getBinaryData() : null;
+        } catch (Exception e) {
+            return null;
+        }
+        long contentHash = MetadataCache.artworkHash(data);
+        metadataCache.recordArtwork(path, attributes, contentHash);
+        if (contentHash == MetadataCache.NO_ARTWORK) {
+            return null;
+        }
+
+        long key = key(contentHash, size);
+        Image image = cache.get(key);
+        if (image == null) {
+            image = fromThumbnails(key);
+        }
+        if (image == null) {
+            long started = System.nanoTime();
+            image = new Image(new ByteArrayInputStream(data), size, size, true, true);
+            PlayerMetrics.get().recordArtworkDecode(path, System.nanoTime() - started, data.length);
+            if (image.isError()) {
+                return null;
+            }
+            cache.put(key, image);
+            if (thumbnails != null) {
+                thumbnails.write(key, image);
+            }
+        }
+        return image;
+    }
+
+    private Image fromThumbnails(long key) {
+        if (thumbnails == null) {
+            return null;
+        }
+        Image image = thumbnails.read(key);
+        if (image != null) {
+            cache.put(key, image);
+        }
+        return image;
+    }
+
+    private static long key(long contentHash, int size) {
+        return contentHash * 31 + size;
+    }
+
+    private static Path localPath(Track track) {
+        String location = track.getFilePath();
+        if (!location.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(URI.create(location)).toPath();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.musicplayer.artwork;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Downsampled artwork on disk as deflated ARGB pixels, so a thumbnail can be
+ * shown without reopening the audio file or decoding the original image.
+ * Reading a thumbnail touches its modification time; once the files outgrow
+ * the limit, the least recently used are deleted down to three quarters of it.
+ */
+public class ThumbnailStore {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_DIMENSION = 4096;
+    private static final String SUFFIX = ".thumb";
+
+    private final Path directory;
+    private final long maxBytes;
+    // unknown until the first write lists the directory
+    private long usedBytes = -1;
+
+    public ThumbnailStore(Path directory) {
+        this(directory, DEFAULT_MAX_BYTES);
+    }
+
+    public ThumbnailStore(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public Image read(long key) {
+        Path file = fileFor(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(file))))) {
+            int width = in.readInt();
+            int height = in.readInt();
+            if (width <= 0 || height <= 0 || width > MAX_DIMENSION || height > MAX_DIMENSION) {
+                return null;
+            }
+            int[] pixels = new int[width * height];
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = in.readInt();
+            }
+            WritableImage image = new WritableImage(width, height);
+            image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+            touch(file);
+            return image;
+        } catch (IOException e) {
+            // missing or unreadable, decode from the audio file instead
+            return null;
+        }
+    }
+
+    public synchronized void write(long key, Image image) {
+        PixelReader reader = image.getPixelReader();
+        if (reader == null) {
+            return;
+        }
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] pixels = new int[width * height];
+        reader.getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+
+        Path file = fileFor(key);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(width);
+                out.writeInt(height);
+                for (int pixel : pixels) {
+                    out.writeInt(pixel);
+                }
+            }
+            long replaced = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            if (usedBytes < 0) {
+                usedBytes = measure();
+            } else {
+                usedBytes += Files.size(file) - replaced;
+            }
+            if (usedBytes > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            // thumbnails are only an optimisation
+        }
+    }
+
+    private Path fileFor(long key) {
+        return directory.resolve(Long.toHexString(key) + SUFFIX);
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // it only ages sooner
+        }
+    }
+
+    private long measure() throws IOException {
+        long total = 0;
+        for (Thumbnail thumbnail : list()) {
+            total += thumbnail.size;
+        }
+        return total;
+    }
+
+    /** Deletes the least recently used thumbnails until they take three quarters of the limit. */
+    private void evict() throws IOException {
+        List<Thumbnail> thumbnails = list();
+        thumbnails.sort(Comparator.comparingLong(thumbnail -> thumbnail.used));
+        long total = 0;
+        for (Thumbnail thumbnail : thumbnails) {
+            total += thumbnail.size;
+        }
+        long target = maxBytes / 4 * 3;
+        for (int i = 0; i < thumbnails.size() && total > target; i++) {
+            Thumbnail thumbnail = thumbnails.get(i);
+            if (Files.deleteIfExists(thumbnail.file)) {
+                total -= thumbnail.size;
+            }
+        }
+        usedBytes = total;
+    }
+
+    private List<Thumbnail> list() throws IOException {
+        List<Thumbnail> thumbnails = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.getFileName().toString().endsWith(SUFFIX)) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    thumbnails.add(new Thumbnail(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (IOException e) {
+                    // deleted meanwhile
+                }
+            }
+        }
+        return thumbnails;
+    }
+
+    private static final class Thumbnail {
+        final Path file;
+        final long size;
+        final long used;
+
+        Thumbnail(Path file, long size, long used) {
+            this.file = file;
+            this.size = size;
+            this.used = used;
+        }
+    }
+}
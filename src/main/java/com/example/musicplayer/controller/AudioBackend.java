@@ -0,0 +1,56 @@
+package com.example.musicplayer.controller;
+
+import com.example.musicplayer.model.Track;
+
+import java.util.function.Supplier;
+
+/**
+ * Produces the sound for {@link PlaybackEngine}. A backend plays one track at a
+ * time; opening a track replaces the previous one. Calls and listener events
+ * happen on the thread that owns the engine.
+ */
+public interface AudioBackend {
+
+    interface Listener {
+        /** The track is decoded; {@code durationSeconds} is negative when unknown. */
+        void ready(double durationSeconds);
+
+        void endOfMedia();
+
+        void error(String message);
+    }
+
+    /** Makes {@code track} current, paused at the start. Events of earlier tracks stop. */
+    void open(Track track, Listener listener);
+
+    void play();
+
+    void pause();
+
+    /** Stops and rewinds the current track. */
+    void stop();
+
+    void seek(double seconds);
+
+    /** Position of the current track in seconds. */
+    double getPosition();
+
+    void setVolume(double volume);
+
+    void setRate(double rate);
+
+    /** Releases the current track and anything prepared for later. */
+    void close();
+
+    /** Forgets that {@code track} failed before, so the next open tries it again. */
+    default void retry(Track track) {
+    }
+
+    /** Lets the backend prepare the track likely to be opened next. */
+    default void setUpcomingTrack(Supplier<Track> upcomingTrack) {
+    }
+
+    /** The track returned by the upcoming-track supplier may have changed. */
+    default void upcomingChanged() {
+    }
+}
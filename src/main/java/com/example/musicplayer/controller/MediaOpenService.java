@@ -0,0 +1,151 @@
+package com.example.musicplayer.controller;
+
+import javafx.scene.media.Media;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks and opens media off the FX thread. A file on a dead network share can
+ * block {@link File#isFile()} or the {@link Media} constructor for minutes, so
+ * each open runs on its own daemon thread and is abandoned after a timeout.
+ * Failed locations are remembered for a while and fail at once when asked for
+ * again, so auto-advance does not keep retrying the same broken files; a
+ * location the user picks is tried again through {@link #forgetFailure}.
+ */
+public class MediaOpenService {
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    private static final long FAILURE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+    private final Map<String, Failure> failures = new ConcurrentHashMap<>();
+
+    public MediaOpenService() {
+        this(Long.getLong("musicplayer.open.timeout.millis", DEFAULT_TIMEOUT_MILLIS));
+    }
+
+    public MediaOpenService(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger counter = new AtomicInteger();
+        // unbounded on purpose: a thread stuck on a dead share must not hold up the next open
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "media-open-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens {@code location}; the future fails with a readable message if the
+     * file is missing, unreadable, unsupported, known to be bad or too slow.
+     * Completes on a background thread.
+     */
+    public CompletableFuture<Media> open(String location) {
+        String known = knownFailure(location);
+        if (known != null) {
+            return CompletableFuture.failedFuture(new MediaOpenException(known));
+        }
+        return CompletableFuture.supplyAsync(() -> load(location), executor)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((media, error) -> {
+                    if (error != null) {
+                        recordFailure(location, message(error));
+                    } else {
+                        failures.remove(location);
+                    }
+                });
+    }
+
+    /** The message of a recent failure of {@code location}, or null if it is not known to be bad. */
+    public String knownFailure(String location) {
+        Failure failure = failures.get(location);
+        if (failure == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - failure.at > FAILURE_TTL_MILLIS) {
+            failures.remove(location, failure);
+            return null;
+        }
+        return failure.message;
+    }
+
+    public void recordFailure(String location, String message) {
+        failures.put(location, new Failure(message, System.currentTimeMillis()));
+    }
+
+    /** Lets {@code location} be tried again on the next open. */
+    public void forgetFailure(String location) {
+        failures.remove(location);
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** The message to show for a failed {@link #open}. */
+    public String message(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            return "Timed out after " + timeoutMillis + " ms";
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    private static Media load(String location) {
+        if (location.startsWith("file:")) {
+            File file;
+            try {
+                file = new File(URI.create(location));
+            } catch (IllegalArgumentException e) {
+                throw new MediaOpenException("Bad location " + location);
+            }
+            if (!file.isFile()) {
+                throw new MediaOpenException("File not found: " + file);
+            }
+            if (!file.canRead()) {
+                throw new MediaOpenException("File not readable: " + file);
+            }
+            if (file.length() == 0) {
+                throw new MediaOpenException("File is empty: " + file);
+            }
+        }
+        try {
+            return new Media(location);
+        } catch (RuntimeException e) {
+            throw new MediaOpenException(e.getMessage() != null ? e.getMessage() : "Unsupported media");
+        }
+    }
+
+    private static final class Failure {
+        final String message;
+        final long at;
+
+        Failure(String message, long at) {
+            this.message = message;
+            this.at = at;
+        }
+    }
+
+    /** Why a location could not be opened; the message is meant for the user. */
+    public static final class MediaOpenException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public MediaOpenException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.musicplayer.controller;
+
+import com.example.musicplayer.model.Track;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+import java.util.function.Supplier;
+
+/**
+ * Plays through JavaFX {@link MediaPlayer}, prefetching the upcoming track via
+ * {@link PrefetchingPlayer}. Media is opened asynchronously by a
+ * {@link MediaOpenService}; play, volume and rate requested meanwhile are
+ * applied once the player exists. A player that does not get ready within the
+ * open timeout fails like any other broken file. Needs the FX toolkit and must
+ * be used on the FX thread.
+ */
+public class MediaPlayerBackend implements AudioBackend {
+    private final MediaOpenService openService;
+    private final PrefetchingPlayer player;
+    private final PauseTransition readyTimeout;
+    // bumped by every open and close, so late results of an earlier open are dropped
+    private long openSequence;
+    private boolean playing;
+    private double volume = 1;
+    private double rate = 1;
+
+    public MediaPlayerBackend() {
+        this(new MediaOpenService());
+    }
+
+    public MediaPlayerBackend(MediaOpenService openService) {
+        this.openService = openService;
+        this.player = new PrefetchingPlayer(openService);
+        this.readyTimeout = new PauseTransition(Duration.millis(openService.getTimeoutMillis()));
+    }
+
+    @Override
+    public void open(Track track, Listener listener) {
+        long sequence = ++openSequence;
+        readyTimeout.stop();
+        playing = false;
+        String location = track.getFilePath();
+        if (player.isPrepared(track)) {
+            attach(sequence, track, null, listener);
+            return;
+        }
+
+        // the previous track would otherwise keep playing while this one opens
+        player.close();
+        openService.open(location).whenComplete((media, error) -> Platform.runLater(() -> {
+            if (sequence != openSequence) {
+                return;
+            }
+            if (error != null) {
+                listener.error(openService.message(error));
+            } else {
+                attach(sequence, track, media, listener);
+            }
+        }));
+    }
+
+    private void attach(long sequence, Track track, Media media, Listener listener) {
+        String location = track.getFilePath();
+        MediaPlayer mediaPlayer;
+        try {
+            mediaPlayer = player.open(track, media);
+        } catch (RuntimeException e) {
+            player.close();
+            openService.recordFailure(location, e.getMessage());
+            listener.error(e.getMessage());
+            return;
+        }
+
+        Runnable onReady = () -> {
+            readyTimeout.stop();
+            listener.ready(seconds(mediaPlayer.getMedia().getDuration()));
+        };
+        Runnable onError = () -> {
+            readyTimeout.stop();
+            String message = mediaPlayer.getError() != null
+                    ? mediaPlayer.getError().getMessage() : "Unknown media error";
+            openService.recordFailure(location, message);
+            listener.error(message);
+        };
+        mediaPlayer.setOnReady(onReady);
+        mediaPlayer.setOnEndOfMedia(listener::endOfMedia);
+        mediaPlayer.setOnError(onError);
+        mediaPlayer.setVolume(volume);
+        mediaPlayer.setRate(rate);
+        if (playing) {
+            mediaPlayer.play();
+        }
+
+        // a prefetched player may already be ready, or already have failed
+        if (mediaPlayer.getStatus() == MediaPlayer.Status.READY) {
+            onReady.run();
+        } else if (mediaPlayer.getStatus() == MediaPlayer.Status.HALTED) {
+            onError.run();
+        } else {
+            readyTimeout.setOnFinished(e -> {
+                if (sequence == openSequence) {
+                    String message = "Timed out after " + openService.getTimeoutMillis() + " ms";
+                    openService.recordFailure(location, message);
+                    player.close();
+                    listener.error(message);
+                }
+            });
+            readyTimeout.playFromStart();
+        }
+    }
+
+    @Override
+    public void retry(Track track) {
+        openService.forgetFailure(track.getFilePath());
+    }
+
+    @Override
+    public void play() {
+        playing = true;
+        MediaPlayer mediaPlayer = player.getCurrent();
+        if (mediaPlayer != null) {
+            mediaPlayer.play();
+        }
+    }
+
+    @Override
+    public void pause() {
+        playing = false;
+        MediaPlayer mediaPlayer = player.getCurrent();
+        if (mediaPlayer != null) {
+            mediaPlayer.pause();
+        }
+    }
+
+    @Override
+    public void stop() {
+        playing = false;
+        MediaPlayer mediaPlayer = player.getCurrent();
+        if (mediaPlayer != null) {
+            mediaPlayer.stop();
+        }
+    }
+
+    @Override
+    public void seek(double seconds) {
+        MediaPlayer mediaPlayer = player.getCurrent();
+        if (mediaPlayer != null) {
+            mediaPlayer.seek(Duration.seconds(seconds));
+        }
+    }
+
+    @Override
+    public double getPosition() {
+        MediaPlayer mediaPlayer = player.getCurrent();
+        return mediaPlayer != null ? mediaPlayer.getCurrentTime().toSeconds() : 0;
+    }
+
+    @Override
+    public void setVolume(double volume) {
+        this.volume = volume;
+        MediaPlayer mediaPlayer = player.getCurrent();
+        if (mediaPlayer != null) {
+            mediaPlayer.setVolume(volume);
+        }
+    }
+
+    @Override
+    public void setRate(double rate) {
+        this.rate = rate;
+        MediaPlayer mediaPlayer = player.getCurrent();
+        if (mediaPlayer != null) {
+            mediaPlayer.setRate(rate);
+        }
+    }
+
+    @Override
+    public void close() {
+        openSequence++;
+        readyTimeout.stop();
+        playing = false;
+        player.close();
+    }
+
+    @Override
+    public void setUpcomingTrack(Supplier<Track> upcomingTrack) {
+        player.setUpcomingTrack(upcomingTrack);
+    }
+
+    @Override
+    public void upcomingChanged() {
+        player.upcomingChanged();
+    }
+
+    /** The player of the current track, for views that render its progress. */
+    public MediaPlayer getMediaPlayer() {
+        return player.getCurrent();
+    }
+
+    public PrefetchingPlayer getPlayer() {
+        return player;
+    }
+
+    public MediaOpenService getOpenService() {
+        return openService;
+    }
+
+    private static double seconds(Duration duration) {
+        if (duration == null || duration.isUnknown() || duration.isIndefinite()) {
+            return -1;
+        }
+        return duration.toSeconds();
+    }
+}
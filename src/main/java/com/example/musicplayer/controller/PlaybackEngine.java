@@ -0,0 +1,564 @@
+package com.example.musicplayer.controller;
+
+import com.example.musicplayer.metrics.PlayerMetrics;
+import com.example.musicplayer.model.PlayQueue;
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Playback state machine without any UI: the current track, play/pause/stop,
+ * repeat and shuffle, what happens at the end of a track, and playlist edits
+ * that affect what plays next. Tracks in the {@link PlayQueue} play before
+ * the playlist continues from where it left off. Sound comes from a pluggable
+ * {@link AudioBackend}, so the engine runs the same behind the JavaFX view, in
+ * a headless daemon or against {@link SimulatedAudioBackend} in tests.
+ * <p>
+ * A track that fails to open is reported and skipped, up to
+ * {@link #MAX_CONSECUTIVE_FAILURES} in a row, so one broken file does not stop
+ * auto-advance and a dead share does not spin through the whole playlist.
+ * <p>
+ * Not thread-safe: all calls, and all backend events, must happen on one
+ * thread (the FX thread for {@link MediaPlayerBackend}).
+ */
+public class PlaybackEngine {
+
+    public enum State { STOPPED, PLAYING, PAUSED }
+
+    public static final int MAX_CONSECUTIVE_FAILURES = 10;
+
+    public interface Listener {
+        /** A new track was opened; null when playback was reset because the playlist emptied. */
+        void trackChanged(Track track);
+
+        void stateChanged(State state);
+
+        /** The current track is decoded; {@code durationSeconds} is negative when unknown. */
+        void trackReady(Track track, double durationSeconds);
+
+        void playbackFailed(Track track, String message);
+
+        /**
+         * {@code track} was left: it ended ({@code completed}), or another track
+         * was opened or playback closed before its end. {@code heardSeconds}
+         * counts what actually played, without the parts jumped over by seeking;
+         * {@code durationSeconds} is negative when unknown. Not raised for tracks that failed to open.
+         */
+        default void trackFinished(Track track, double heardSeconds, double durationSeconds, boolean completed) {
+        }
+    }
+
+    private Playlist playlist;
+    private final PlayQueue queue = new PlayQueue();
+    private final AudioBackend backend;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private State state = State.STOPPED;
+    private Track current;
+    private boolean failed;
+    // the current track came from the queue, the playlist position is where to continue
+    private boolean fromQueue;
+    private boolean skipFailed = true;
+    private int consecutiveFailures;
+    // skips requested while a track is being started run after it, not nested in it
+    private int starting;
+    private boolean skipPending;
+    private boolean repeat;
+    private double volume = 1;
+    private double rate = 1;
+    private ToDoubleFunction<Track> gainProvider = track -> 1.0;
+    private double trackGain = 1;
+
+    // what was heard of the open track: seconds before the last seek, and where playing resumed after it
+    private boolean listening;
+    private double heardSeconds;
+    private double segmentStart;
+    private double currentDuration = -1;
+
+    // System.nanoTime() stamps for open latency and the gap after a track ran out
+    private long openedAt;
+    private long endedAt;
+    private long switchStartedAt;
+
+    // events raised while a track is being opened run once listeners know about the track
+    private long generation;
+    private boolean opening;
+    private final List<Runnable> deferred = new ArrayList<>();
+
+    public PlaybackEngine(Playlist playlist, AudioBackend backend) {
+        this.playlist = playlist;
+        this.backend = backend;
+        backend.setUpcomingTrack(this::peekNextTrack);
+        queue.addListener(backend::upcomingChanged);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Resumes a paused track, or starts the playlist's current track (the first one if none). */
+    public void play() {
+        if (state == State.PLAYING) {
+            return;
+        }
+        if (fromQueue && current != null && !failed) {
+            backend.play();
+            setState(State.PLAYING);
+            return;
+        }
+        if (playlist.getCurrentTrack() == null && !playlist.isEmpty()) {
+            playlist.setCurrentTrackIndex(0);
+        }
+        Track track = playlist.getCurrentTrack();
+        if (track == null) {
+            return;
+        }
+        if (track == current && !failed) {
+            backend.play();
+            setState(State.PLAYING);
+        } else {
+            // asked for by the user, so a file that failed earlier gets another try
+            backend.retry(track);
+            start(track, false);
+        }
+    }
+
+    /** Makes {@code track} current and plays it from the start; ignored if it is not in the playlist. */
+    public void play(Track track) {
+        int index = playlist.indexOf(track);
+        if (index == -1) {
+            return;
+        }
+        playlist.setCurrentTrackIndex(index);
+        backend.retry(track);
+        start(track, false);
+    }
+
+    public void pause() {
+        if (state == State.PLAYING) {
+            backend.pause();
+            setState(State.PAUSED);
+        }
+    }
+
+    public void togglePlayPause() {
+        if (state == State.PLAYING) {
+            pause();
+        } else {
+            play();
+        }
+    }
+
+    public void stop() {
+        if (current != null) {
+            // stopping rewinds, what played so far stays heard
+            endSegment(0);
+            backend.stop();
+        }
+        setState(State.STOPPED);
+    }
+
+    /** Plays the next queued track, or else the next one in playlist order. */
+    public void next() {
+        Track queued = pollQueue();
+        if (queued != null) {
+            start(queued, true);
+            return;
+        }
+        Track next = playlist.nextTrack();
+        if (next != null) {
+            start(next, false);
+        }
+    }
+
+    public void prev() {
+        Track prev = playlist.prevTrack();
+        if (prev != null) {
+            start(prev, false);
+        }
+    }
+
+    public void seek(double seconds) {
+        if (current != null) {
+            endSegment(seconds);
+            backend.seek(seconds);
+        }
+    }
+
+    public double getPosition() {
+        return current != null ? backend.getPosition() : 0;
+    }
+
+    public void setVolume(double volume) {
+        this.volume = volume;
+        backend.setVolume(effectiveVolume());
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+        backend.setRate(rate);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Sets the per-track volume factor, such as a loudness correction. It is
+     * asked when a track is opened and on {@link #gainChanged}, and multiplies
+     * the user volume.
+     */
+    public void setGainProvider(ToDoubleFunction<Track> gainProvider) {
+        this.gainProvider = gainProvider;
+    }
+
+    /** Asks the gain provider again if {@code track} is open, e.g. once its loudness was measured. */
+    public void gainChanged(Track track) {
+        if (track == null || track != current) {
+            return;
+        }
+        double gain = gainProvider.applyAsDouble(track);
+        if (gain != trackGain) {
+            trackGain = gain;
+            backend.setVolume(effectiveVolume());
+        }
+    }
+
+    private double effectiveVolume() {
+        return Math.min(1.0, volume * trackGain);
+    }
+
+    /** Whether the current track starts over when it ends, instead of moving on. */
+    public boolean isRepeat() {
+        return repeat;
+    }
+
+    public void setRepeat(boolean repeat) {
+        this.repeat = repeat;
+        backend.upcomingChanged();
+    }
+
+    public boolean isShuffle() {
+        return playlist.isShuffle();
+    }
+
+    public void setShuffle(boolean shuffle) {
+        playlist.setShuffle(shuffle);
+        backend.upcomingChanged();
+    }
+
+    /** The track {@link #next()} or the end of the current track will move to. */
+    public Track peekNextTrack() {
+        if (repeat) {
+            return null;
+        }
+        Track queued = peekQueue();
+        return queued != null ? queued : playlist.peekNextTrack();
+    }
+
+    /** Whether a track that fails to open is skipped instead of stopping playback. */
+    public boolean isSkipFailed() {
+        return skipFailed;
+    }
+
+    public void setSkipFailed(boolean skipFailed) {
+        this.skipFailed = skipFailed;
+    }
+
+    /** Tracks to play next, before the playlist continues; edits refresh the prefetch. */
+    public PlayQueue getQueue() {
+        return queue;
+    }
+
+    public void addTracks(Collection<Track> tracks) {
+        playlist.addTracks(tracks);
+        backend.upcomingChanged();
+    }
+
+    public void removeTrack(int index) {
+        playlist.removeTrack(index);
+        afterRemoval();
+    }
+
+    public void removeTracks(Collection<Track> tracks) {
+        playlist.removeTracks(tracks);
+        afterRemoval();
+    }
+
+    /** Reorders the playlist, see {@link Playlist#applyOrder(List)}. */
+    public void applyOrder(List<Track> ordered) {
+        playlist.applyOrder(ordered);
+        backend.upcomingChanged();
+    }
+
+    /** Restricts next and previous to a view of the playlist, see {@link Playlist#setScope(List)}. */
+    public void setScope(List<Track> scope) {
+        playlist.setScope(scope);
+        backend.upcomingChanged();
+    }
+
+    /** Empties the playlist and the queue; the open track keeps playing until something else is opened. */
+    public void clear() {
+        playlist.clear();
+        queue.clear();
+        backend.upcomingChanged();
+    }
+
+    private void afterRemoval() {
+        // removed tracks leave the queue too, this walks the queue only
+        queue.removeIf(entry -> !isQueueable(entry));
+        if (playlist.isEmpty() && current != null) {
+            reset();
+        } else {
+            backend.upcomingChanged();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /** The open track; it may have been removed from the playlist since. */
+    public Track getCurrentTrack() {
+        return current;
+    }
+
+    public Playlist getPlaylist() {
+        return playlist;
+    }
+
+    /**
+     * Makes next, previous and the end of a track walk {@code playlist} from now
+     * on, e.g. once a track of another tab is started. The open track keeps
+     * playing and shuffle carries over. Queued tracks stay if they were queued
+     * from a playlist that still holds them, or are in {@code playlist}.
+     */
+    public void setPlaylist(Playlist playlist) {
+        if (playlist == this.playlist) {
+            return;
+        }
+        playlist.setShuffle(this.playlist.isShuffle());
+        this.playlist = playlist;
+        queue.removeIf(entry -> !isQueueable(entry));
+        backend.upcomingChanged();
+    }
+
+    public AudioBackend getBackend() {
+        return backend;
+    }
+
+    /** Releases the backend; the engine can be used again afterwards. */
+    public void close() {
+        finishListening(false);
+        generation++;
+        backend.close();
+        current = null;
+        setState(State.STOPPED);
+    }
+
+    private void reset() {
+        close();
+        for (Listener listener : listeners) {
+            listener.trackChanged(null);
+        }
+    }
+
+    /** The first queued track, or null if there is none or it was removed. */
+    private Track peekQueue() {
+        PlayQueue.Entry first = queue.first();
+        return first != null && isQueueable(first) ? first.getTrack() : null;
+    }
+
+    /** Takes the first queued track, dropping any removed ones. */
+    private Track pollQueue() {
+        PlayQueue.Entry first;
+        while ((first = queue.first()) != null) {
+            queue.remove(first);
+            if (isQueueable(first)) {
+                return first.getTrack();
+            }
+        }
+        return null;
+    }
+
+    /** Whether the playlist {@code entry} was queued from, or else the playing one, still holds its track. */
+    private boolean isQueueable(PlayQueue.Entry entry) {
+        Playlist source = entry.getSource() != null ? entry.getSource() : playlist;
+        return source.contains(entry.getTrack());
+    }
+
+    private void start(Track track, boolean queued) {
+        starting++;
+        try {
+            open(track, queued);
+        } finally {
+            starting--;
+        }
+        if (starting == 0 && skipPending) {
+            skipPending = false;
+            next();
+        }
+    }
+
+    private void open(Track track, boolean queued) {
+        finishListening(false);
+        long opened = ++generation;
+        current = track;
+        fromQueue = queued;
+        failed = false;
+        openedAt = System.nanoTime();
+        switchStartedAt = endedAt;
+        endedAt = 0;
+        listening = true;
+        heardSeconds = 0;
+        segmentStart = 0;
+        currentDuration = -1;
+
+        opening = true;
+        try {
+            backend.open(track, new BackendEvents(opened));
+            trackGain = gainProvider.applyAsDouble(track);
+            backend.setVolume(effectiveVolume());
+            backend.setRate(rate);
+        } finally {
+            opening = false;
+        }
+
+        for (Listener listener : listeners) {
+            listener.trackChanged(track);
+        }
+        List<Runnable> pending = new ArrayList<>(deferred);
+        deferred.clear();
+        pending.forEach(Runnable::run);
+
+        if (current == track && generation == opened && !failed) {
+            backend.play();
+            setState(State.PLAYING);
+        }
+    }
+
+    private void onReady(double durationSeconds) {
+        consecutiveFailures = 0;
+        currentDuration = durationSeconds;
+        long now = System.nanoTime();
+        PlayerMetrics.get().recordTrackOpen(current, now - openedAt);
+        if (switchStartedAt != 0) {
+            PlayerMetrics.get().recordTrackSwitch(current, now - switchStartedAt);
+            switchStartedAt = 0;
+        }
+        for (Listener listener : listeners) {
+            listener.trackReady(current, durationSeconds);
+        }
+    }
+
+    private void onEndOfMedia() {
+        finishListening(true);
+        if (repeat) {
+            // each time round is a listen of its own
+            listening = true;
+            backend.seek(0);
+            backend.play();
+        } else {
+            endedAt = System.nanoTime();
+            next();
+            endedAt = 0;
+        }
+    }
+
+    private void onError(String message) {
+        failed = true;
+        listening = false;
+        PlayerMetrics.get().recordPlaybackError(current, message);
+        setState(State.STOPPED);
+        for (Listener listener : listeners) {
+            listener.playbackFailed(current, message);
+        }
+
+        consecutiveFailures++;
+        if (skipFailed && !repeat && consecutiveFailures < Math.min(MAX_CONSECUTIVE_FAILURES, playlist.size())) {
+            if (starting > 0) {
+                skipPending = true;
+            } else {
+                next();
+            }
+        }
+    }
+
+    /** Counts the part played since the last seek as heard, then resumes counting at {@code resumeAt}. */
+    private void endSegment(double resumeAt) {
+        heardSeconds += Math.max(0, backend.getPosition() - segmentStart);
+        segmentStart = resumeAt;
+    }
+
+    /** Reports how much of the open track was heard, once per time it was played. */
+    private void finishListening(boolean completed) {
+        if (!listening || current == null) {
+            return;
+        }
+        listening = false;
+        double end = completed && currentDuration > 0 ? currentDuration : backend.getPosition();
+        double heard = heardSeconds + Math.max(0, end - segmentStart);
+        heardSeconds = 0;
+        segmentStart = 0;
+        for (Listener listener : listeners) {
+            listener.trackFinished(current, heard, currentDuration, completed);
+        }
+    }
+
+    private void setState(State state) {
+        if (this.state == state) {
+            return;
+        }
+        this.state = state;
+        for (Listener listener : listeners) {
+            listener.stateChanged(state);
+        }
+    }
+
+    /** Forwards events of one opened track, dropping them once another track was opened. */
+    private final class BackendEvents implements AudioBackend.Listener {
+        private final long opened;
+
+        BackendEvents(long opened) {
+            this.opened = opened;
+        }
+
+        @Override
+        public void ready(double durationSeconds) {
+            dispatch(() -> onReady(durationSeconds));
+        }
+
+        @Override
+        public void endOfMedia() {
+            dispatch(PlaybackEngine.this::onEndOfMedia);
+        }
+
+        @Override
+        public void error(String message) {
+            dispatch(() -> onError(message));
+        }
+
+        private void dispatch(Runnable event) {
+            if (opened != generation) {
+                return;
+            }
+            if (opening) {
+                deferred.add(event);
+            } else {
+                event.run();
+            }
+        }
+    }
+}
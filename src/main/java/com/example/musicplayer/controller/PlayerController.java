@@ -1,97 +1,72 @@
 // PlayerController.java
 package com.example.musicplayer.controller;
 
-import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
 import com.example.musicplayer.model.Playlist;
 import com.example.musicplayer.model.Track;
 
+/** Wires a {@link PlaybackEngine} to JavaFX media playback for the desktop view. */
 public class PlayerController {
-    private Playlist playlist;
-    private MediaPlayer mediaPlayer;
+    private static final String PRE_ROLL_PROPERTY = "musicplayer.preroll.seconds";
+
+    private final MediaPlayerBackend backend = new MediaPlayerBackend();
+    private final PlaybackEngine engine;
 
     public PlayerController(Playlist playlist) {
-        this.playlist = playlist;
+        this.engine = new PlaybackEngine(playlist, backend);
+        String preRoll = System.getProperty(PRE_ROLL_PROPERTY);
+        if (preRoll != null) {
+            backend.getPlayer().setPreRoll(Duration.seconds(Double.parseDouble(preRoll)));
+        }
     }
 
     public void play() {
-        if (mediaPlayer != null) {
-            mediaPlayer.play();
-        } else {
-            Track currentTrack = playlist.getCurrentTrack();
-            if (currentTrack != null) {
-                Media media = new Media(currentTrack.getFilePath());
-                mediaPlayer = new MediaPlayer(media);
-                mediaPlayer.play();
-            }
-        }
+        engine.play();
+    }
+
+    public void play(Track track) {
+        engine.play(track);
     }
 
     public void pause() {
-        if (mediaPlayer != null) {
-            mediaPlayer.pause();
-        }
+        engine.pause();
     }
 
     public void next() {
-        Track nextTrack = playlist.nextTrack();
-        if (nextTrack != null) {
-            if (mediaPlayer != null) {
-                mediaPlayer.stop();
-            }
-            Media media = new Media(nextTrack.getFilePath());
-            mediaPlayer = new MediaPlayer(media);
-            mediaPlayer.play();
-        }
+        engine.next();
     }
 
     public void prev() {
-        Track prevTrack = playlist.prevTrack();
-        if (prevTrack != null) {
-            if (mediaPlayer != null) {
-                mediaPlayer.stop();
-            }
-            Media media = new Media(prevTrack.getFilePath());
-            mediaPlayer = new MediaPlayer(media);
-            mediaPlayer.play();
-        }
+        engine.prev();
     }
 
     public void togglePlayPause() {
-        if (mediaPlayer != null) {
-            if (mediaPlayer.getStatus() == MediaPlayer.Status.PLAYING) {
-                mediaPlayer.pause();
-            } else {
-                mediaPlayer.play();
-            }
-        } else {
-            play();
-        }
+        engine.togglePlayPause();
     }
 
     public void setPlaybackRate(double rate) {
-        if (mediaPlayer != null) {
-            mediaPlayer.setRate(rate);
-        }
+        engine.setRate(rate);
     }
 
     public void setVolume(double volume) {
-        if (mediaPlayer != null) {
-            mediaPlayer.setVolume(volume);
-        }
+        engine.setVolume(volume);
     }
 
     public void stop() {
-        if (mediaPlayer != null) {
-            mediaPlayer.stop();
-        }
+        engine.stop();
+    }
+
+    public void close() {
+        engine.close();
+        backend.getOpenService().shutdown();
     }
 
     public MediaPlayer getMediaPlayer() {
-        return mediaPlayer;
+        return backend.getMediaPlayer();
     }
 
-    public void setMediaPlayer(MediaPlayer mediaPlayer) {
-        this.mediaPlayer = mediaPlayer;
+    public PlaybackEngine getEngine() {
+        return engine;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.example.musicplayer.controller;
+
+import com.example.musicplayer.model.Track;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+import java.util.function.Supplier;
+
+/**
+ * Owns the active {@link MediaPlayer} and prepares the player for the upcoming
+ * track while the current one is still playing. Once the current track enters
+ * the pre-roll window, the track returned by the upcoming-track supplier is
+ * opened in the background. If the next {@link #open} asks for that track, the
+ * prepared player is already demuxed and starts without a gap. Media is loaded
+ * through a {@link MediaOpenService}, never on the FX thread.
+ * Must be used on the FX thread.
+ */
+public class PrefetchingPlayer {
+    public static final Duration DEFAULT_PRE_ROLL = Duration.seconds(10);
+
+    private final MediaOpenService openService;
+    private Duration preRoll = DEFAULT_PRE_ROLL;
+    private Supplier<Track> upcomingTrack = () -> null;
+
+    private MediaPlayer current;
+    private Track currentTrack;
+    private MediaPlayer prepared;
+    private Track preparedTrack;
+    private Track preparing;
+    private boolean prefetchRequested;
+
+    private final ChangeListener<Duration> preRollWatcher = (obs, oldTime, newTime) -> {
+        if (prefetchRequested || current == null) {
+            return;
+        }
+        Duration total = current.getTotalDuration();
+        if (total == null || total.isUnknown() || total.isIndefinite()) {
+            return;
+        }
+        if (total.subtract(newTime).lessThanOrEqualTo(preRoll)) {
+            prefetchRequested = true;
+            prepare(upcomingTrack.get());
+        }
+    };
+
+    public PrefetchingPlayer(MediaOpenService openService) {
+        this.openService = openService;
+    }
+
+    /** Whether {@link #open} can start {@code track} from the prefetched player. */
+    public boolean isPrepared(Track track) {
+        return prepared != null && preparedTrack == track;
+    }
+
+    /**
+     * Makes {@code track} the current track and returns its player, reusing the
+     * prepared one when it was prefetched and creating one for {@code media}
+     * otherwise. The previous player is disposed.
+     */
+    public MediaPlayer open(Track track, Media media) {
+        MediaPlayer player;
+        if (isPrepared(track)) {
+            player = prepared;
+            prepared = null;
+            preparedTrack = null;
+        } else {
+            discardPrepared();
+            player = new MediaPlayer(media);
+        }
+
+        release(current);
+        current = player;
+        currentTrack = track;
+        prefetchRequested = false;
+        current.currentTimeProperty().addListener(preRollWatcher);
+        return current;
+    }
+
+    /** Opens {@code track} ahead of time; a null track just drops any prepared player. */
+    public void prepare(Track track) {
+        if (isPrepared(track) || (track != null && track == preparing)) {
+            return;
+        }
+        discardPrepared();
+        if (track == null) {
+            return;
+        }
+        preparing = track;
+        openService.open(track.getFilePath()).whenComplete((media, error) -> Platform.runLater(() -> {
+            if (preparing != track) {
+                return;
+            }
+            preparing = null;
+            if (media == null) {
+                // the track will fail again, visibly, when it is actually opened
+                return;
+            }
+            try {
+                prepared = new MediaPlayer(media);
+                preparedTrack = track;
+            } catch (RuntimeException e) {
+                openService.recordFailure(track.getFilePath(), e.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Re-evaluates the upcoming track after the play order changed. A prepared
+     * player is kept if the same track is still next.
+     */
+    public void upcomingChanged() {
+        if (prefetchRequested) {
+            prepare(upcomingTrack.get());
+        }
+    }
+
+    public void close() {
+        discardPrepared();
+        release(current);
+        current = null;
+        currentTrack = null;
+    }
+
+    public MediaPlayer getCurrent() {
+        return current;
+    }
+
+    public Track getCurrentTrack() {
+        return currentTrack;
+    }
+
+    public Duration getPreRoll() {
+        return preRoll;
+    }
+
+    public void setPreRoll(Duration preRoll) {
+        this.preRoll = preRoll;
+    }
+
+    public void setUpcomingTrack(Supplier<Track> upcomingTrack) {
+        this.upcomingTrack = upcomingTrack;
+    }
+
+    private void discardPrepared() {
+        preparing = null;
+        if (prepared != null) {
+            prepared.dispose();
+            prepared = null;
+            preparedTrack = null;
+        }
+    }
+
+    private void release(MediaPlayer player) {
+        if (player != null) {
+            player.currentTimeProperty().removeListener(preRollWatcher);
+            player.stop();
+            player.dispose();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.musicplayer.controller;
+
+import com.example.musicplayer.model.Track;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays nothing but keeps time like a real backend: tracks are ready as soon as
+ * they are opened and last {@link Track#getDuration()} seconds. With a clock
+ * executor the end of each track is reported on that executor, which must be
+ * the engine's thread; without one, time only ends when {@link #complete()} is
+ * called, which makes the engine fully deterministic for tests and load runs.
+ */
+public class SimulatedAudioBackend implements AudioBackend {
+    private final ScheduledExecutorService clock;
+
+    private Track track;
+    private Listener listener;
+    private boolean playing;
+    private double position;
+    private long resumedAt;
+    private double rate = 1;
+    private double volume = 1;
+    private ScheduledFuture<?> end;
+    private long openCount;
+
+    public SimulatedAudioBackend() {
+        this(null);
+    }
+
+    public SimulatedAudioBackend(ScheduledExecutorService clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void open(Track track, Listener listener) {
+        cancelEnd();
+        this.track = track;
+        this.listener = listener;
+        playing = false;
+        position = 0;
+        openCount++;
+        listener.ready(track.getDuration() > 0 ? track.getDuration() : -1);
+    }
+
+    @Override
+    public void play() {
+        if (track == null || playing) {
+            return;
+        }
+        playing = true;
+        resumedAt = System.nanoTime();
+        scheduleEnd();
+    }
+
+    @Override
+    public void pause() {
+        if (playing) {
+            position = getPosition();
+            playing = false;
+            cancelEnd();
+        }
+    }
+
+    @Override
+    public void stop() {
+        playing = false;
+        position = 0;
+        cancelEnd();
+    }
+
+    @Override
+    public void seek(double seconds) {
+        position = Math.max(0, seconds);
+        resumedAt = System.nanoTime();
+        if (playing) {
+            scheduleEnd();
+        }
+    }
+
+    @Override
+    public double getPosition() {
+        double now = playing ? position + (System.nanoTime() - resumedAt) / 1e9 * rate : position;
+        if (track != null && track.getDuration() > 0) {
+            return Math.min(now, track.getDuration());
+        }
+        return now;
+    }
+
+    @Override
+    public void setVolume(double volume) {
+        this.volume = volume;
+    }
+
+    @Override
+    public void setRate(double rate) {
+        position = getPosition();
+        resumedAt = System.nanoTime();
+        this.rate = rate;
+        if (playing) {
+            scheduleEnd();
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelEnd();
+        track = null;
+        listener = null;
+        playing = false;
+        position = 0;
+    }
+
+    /** Lets the current track reach its end now. */
+    public void complete() {
+        if (track == null) {
+            return;
+        }
+        cancelEnd();
+        playing = false;
+        position = Math.max(0, track.getDuration());
+        listener.endOfMedia();
+    }
+
+    public Track getTrack() {
+        return track;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /** How many tracks have been opened so far. */
+    public long getOpenCount() {
+        return openCount;
+    }
+
+    private void scheduleEnd() {
+        cancelEnd();
+        if (clock == null || track.getDuration() <= 0) {
+            return;
+        }
+        double remaining = (track.getDuration() - getPosition()) / rate;
+        end = clock.schedule(this::complete, (long) (Math.max(0, remaining) * 1000), TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelEnd() {
+        if (end != null) {
+            end.cancel(false);
+            end = null;
+        }
+    }
+}
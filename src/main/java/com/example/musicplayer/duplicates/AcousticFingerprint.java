@@ -0,0 +1,65 @@
+package com.example.musicplayer.duplicates;
+
+/**
+ * 128-bit summary of the opening seconds of a track: whether the energy rises
+ * from one frame to the next, and whether the balance shifts towards the low
+ * band. Both are independent of volume, bit depth, sample rate and channel
+ * count, so copies of one recording in different files land within a few bits.
+ */
+final class AcousticFingerprint {
+    static final int BANDS = 16;
+    static final int BAND_BITS = 8;
+    // below 2 * BANDS, so some band of a match differs in at most one bit
+    static final int MAX_DISTANCE = 20;
+    static final int MAX_DURATION_DIFFERENCE_MILLIS = 2000;
+
+    private final long energy;
+    private final long balance;
+    private final int durationMillis;
+
+    AcousticFingerprint(long energy, long balance, int durationMillis) {
+        this.energy = energy;
+        this.balance = balance;
+        this.durationMillis = durationMillis;
+    }
+
+    long getEnergy() {
+        return energy;
+    }
+
+    long getBalance() {
+        return balance;
+    }
+
+    /** Length of the whole track, -1 if the decoder did not know it. */
+    int getDurationMillis() {
+        return durationMillis;
+    }
+
+    int distance(AcousticFingerprint other) {
+        return Long.bitCount(energy ^ other.energy) + Long.bitCount(balance ^ other.balance);
+    }
+
+    boolean matches(AcousticFingerprint other) {
+        if ((durationMillis < 0) != (other.durationMillis < 0)
+                || Math.abs(durationMillis - other.durationMillis) > MAX_DURATION_DIFFERENCE_MILLIS) {
+            return false;
+        }
+        return distance(other) <= MAX_DISTANCE;
+    }
+
+    /**
+     * Byte {@code i} of the 16 bytes of the fingerprint. Fingerprints at most
+     * {@link #MAX_DISTANCE} bits apart differ in at most one bit of at least
+     * one byte, so a byte and its one-bit neighbours find every match.
+     */
+    int band(int i) {
+        long bits = i < 8 ? energy : balance;
+        return (int) (bits >>> (i % 8 * 8)) & 0xFF;
+    }
+
+    /** Coarse duration, tracks that can match are at most one bucket apart. */
+    int durationBucket() {
+        return durationMillis < 0 ? -1 : durationMillis / MAX_DURATION_DIFFERENCE_MILLIS;
+    }
+}
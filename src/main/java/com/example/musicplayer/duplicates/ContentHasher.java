@@ -0,0 +1,45 @@
+package com.example.musicplayer.duplicates;
+
+import com.example.musicplayer.util.Hash64;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Hashes whole file contents with {@link Hash64}. Large files are mapped a
+ * window at a time instead of being copied through a heap buffer; small files,
+ * where setting up a mapping costs more than it saves, are read directly.
+ * Both paths produce the same hash.
+ */
+final class ContentHasher {
+    // a multiple of eight, so only the last window has a tail to mix in
+    private static final long WINDOW = 16L << 20;
+    private static final int SMALL_FILE = 256 * 1024;
+
+    private ContentHasher() {
+    }
+
+    static long hash(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long h = Hash64.seed();
+            if (size <= SMALL_FILE) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // read until full or end of file
+                }
+                buffer.flip();
+                h = Hash64.update(h, buffer);
+            } else {
+                for (long position = 0; position < size; position += WINDOW) {
+                    h = Hash64.update(h, channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(WINDOW, size - position)));
+                }
+            }
+            return Hash64.finish(h, size);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.musicplayer.duplicates;
+
+import com.example.musicplayer.model.Track;
+
+/**
+ * A track found to repeat one that was already known.
+ */
+public final class Duplicate {
+    public enum Kind {
+        /** Byte-for-byte the same file content. */
+        IDENTICAL,
+        /** A different file that sounds the same, e.g. an MP3 and a FLAC copy. */
+        ACOUSTIC
+    }
+
+    private final Track track;
+    private final Track original;
+    private final Kind kind;
+
+    Duplicate(Track track, Track original, Kind kind) {
+        this.track = track;
+        this.original = original;
+        this.kind = kind;
+    }
+
+    public Track getTrack() {
+        return track;
+    }
+
+    /** The earlier track {@link #getTrack()} repeats; the track itself when the library already holds it. */
+    public Track getOriginal() {
+        return original;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.musicplayer.duplicates;
+
+import com.example.musicplayer.model.Track;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Known tracks by file size, content hash and fingerprint band, so a new
+ * track is compared only with the few that can possibly match it. Close
+ * fingerprints lie at most one duration bucket apart, and at least one of
+ * their 16 bytes is equal or one bit off, so the lookup probes each byte and
+ * its eight neighbours. Not thread-safe.
+ */
+final class DuplicateIndex {
+    private final Map<Track, FileKey> keys = new HashMap<>();
+    private final Map<Long, List<Track>> bySize = new HashMap<>();
+    private final Map<Long, List<Track>> byContent = new HashMap<>();
+    private final Map<Long, List<Track>> byBand = new HashMap<>();
+
+    boolean contains(Track track) {
+        return keys.containsKey(track);
+    }
+
+    FileKey key(Track track) {
+        return keys.get(track);
+    }
+
+    /** Known tracks with files of {@code size} bytes. */
+    List<Track> sameSize(long size) {
+        return bySize.getOrDefault(size, Collections.emptyList());
+    }
+
+    /**
+     * The known track that {@code track} repeats, or null. Identical content
+     * wins over a similar sound; among similar ones the closest wins.
+     */
+    Duplicate find(Track track, FileKey key) {
+        if (key.isHashed()) {
+            for (Track candidate : byContent.getOrDefault(key.getContentHash(), Collections.emptyList())) {
+                if (candidate != track) {
+                    return new Duplicate(track, candidate, Duplicate.Kind.IDENTICAL);
+                }
+            }
+        }
+
+        AcousticFingerprint fingerprint = key.getFingerprint();
+        if (fingerprint == null) {
+            return null;
+        }
+        Track closest = null;
+        int closestDistance = Integer.MAX_VALUE;
+        int bucket = fingerprint.durationBucket();
+        for (int b = bucket < 0 ? bucket : bucket - 1; b <= (bucket < 0 ? bucket : bucket + 1); b++) {
+            for (int band = 0; band < AcousticFingerprint.BANDS; band++) {
+                int value = fingerprint.band(band);
+                // flip == BAND_BITS probes the value itself
+                for (int flip = 0; flip <= AcousticFingerprint.BAND_BITS; flip++) {
+                    int probe = flip < AcousticFingerprint.BAND_BITS ? value ^ 1 << flip : value;
+                    List<Track> candidates = byBand.get(bandKey(b, band, probe));
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (Track candidate : candidates) {
+                        AcousticFingerprint other = keys.get(candidate).getFingerprint();
+                        if (candidate != track && fingerprint.matches(other)) {
+                            int distance = fingerprint.distance(other);
+                            if (distance < closestDistance) {
+                                closest = candidate;
+                                closestDistance = distance;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return closest != null ? new Duplicate(track, closest, Duplicate.Kind.ACOUSTIC) : null;
+    }
+
+    void add(Track track, FileKey key) {
+        if (keys.containsKey(track)) {
+            remove(track);
+        }
+        keys.put(track, key);
+        bySize.computeIfAbsent(key.getSize(), size -> new ArrayList<>(1)).add(track);
+        if (key.isHashed()) {
+            byContent.computeIfAbsent(key.getContentHash(), hash -> new ArrayList<>(1)).add(track);
+        }
+        AcousticFingerprint fingerprint = key.getFingerprint();
+        if (fingerprint != null) {
+            for (int band = 0; band < AcousticFingerprint.BANDS; band++) {
+                byBand.computeIfAbsent(bandKey(fingerprint.durationBucket(), band, fingerprint.band(band)),
+                        k -> new ArrayList<>(1)).add(track);
+            }
+        }
+    }
+
+    void remove(Track track) {
+        FileKey key = keys.remove(track);
+        if (key == null) {
+            return;
+        }
+        removeFrom(bySize, key.getSize(), track);
+        if (key.isHashed()) {
+            removeFrom(byContent, key.getContentHash(), track);
+        }
+        AcousticFingerprint fingerprint = key.getFingerprint();
+        if (fingerprint != null) {
+            for (int band = 0; band < AcousticFingerprint.BANDS; band++) {
+                removeFrom(byBand, bandKey(fingerprint.durationBucket(), band, fingerprint.band(band)), track);
+            }
+        }
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    private static long bandKey(int durationBucket, int band, int value) {
+        return (long) durationBucket << 12 | band << 8 | value;
+    }
+
+    private static void removeFrom(Map<Long, List<Track>> map, long key, Track track) {
+        List<Track> tracks = map.get(key);
+        if (tracks != null) {
+            tracks.remove(track);
+            if (tracks.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.musicplayer.duplicates;
+
+import com.example.musicplayer.model.Track;
+import javafx.application.Platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Finds tracks that repeat one already in the library, in two tiers: files
+ * with identical content, and different files of the same recording. Content
+ * is hashed only when another file of the same size exists, fingerprints are
+ * computed once per file version and kept in a {@link DuplicateStore}.
+ * <p>
+ * File work runs on a pool sized to the number of cores. The index of known
+ * tracks belongs to a single coordinator thread, so checks, scans and
+ * removals apply in the order they were requested. Results are delivered on
+ * the FX thread.
+ */
+public class DuplicateService {
+    private final DuplicateStore store;
+    private final DuplicateIndex index = new DuplicateIndex();
+    private final ExecutorService workers;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(daemonThreads("dedupe"));
+
+    public DuplicateService(DuplicateStore store) {
+        this(store, Runtime.getRuntime().availableProcessors());
+    }
+
+    public DuplicateService(DuplicateStore store, int parallelism) {
+        this.store = store;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, parallelism), daemonThreads("dedupe-worker"));
+    }
+
+    public static DuplicateService createDefault() {
+        return new DuplicateService(DuplicateStore.openDefault());
+    }
+
+    /**
+     * Adds tracks that are already in the library, e.g. restored ones, using
+     * stored keys only. Tracks never checked before stay unknown until a scan.
+     */
+    public void register(Collection<Track> tracks) {
+        List<Track> copy = new ArrayList<>(tracks);
+        coordinator.execute(() -> {
+            for (Track track : copy) {
+                Path path = localPath(track);
+                FileKey key = path != null ? store.get(path) : null;
+                if (key != null) {
+                    index.add(track, key);
+                }
+            }
+        });
+    }
+
+    /** Drops tracks that left the library, so importing them again is not a duplicate. */
+    public void forget(Collection<Track> tracks) {
+        List<Track> copy = new ArrayList<>(tracks);
+        coordinator.execute(() -> copy.forEach(index::remove));
+    }
+
+    /**
+     * Checks newly imported tracks against the library and each other. The
+     * tracks to add are indexed and passed to {@code consumer} in their
+     * original order, together with the duplicates. Only identical files are
+     * left out; acoustic duplicates may be a different mix or master, so they
+     * are added and reported for the user to decide.
+     */
+    public void filter(List<Track> tracks, BiConsumer<List<Track>, List<Duplicate>> consumer) {
+        List<Track> copy = new ArrayList<>(tracks);
+        coordinator.execute(() -> {
+            // tracks come from the shared pool, a file imported again is the very track already indexed
+            List<Track> fresh = new ArrayList<>(copy.size());
+            List<Duplicate> duplicates = new ArrayList<>();
+            Set<Track> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Track track : copy) {
+                if (index.contains(track) || !seen.add(track)) {
+                    duplicates.add(new Duplicate(track, track, Duplicate.Kind.IDENTICAL));
+                } else {
+                    fresh.add(track);
+                }
+            }
+            List<Duplicate> matched = match(index, fresh, true);
+            duplicates.addAll(matched);
+            Set<Track> identical = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Duplicate duplicate : matched) {
+                if (duplicate.getKind() == Duplicate.Kind.IDENTICAL) {
+                    identical.add(duplicate.getTrack());
+                }
+            }
+            List<Track> added = new ArrayList<>(fresh.size());
+            for (Track track : fresh) {
+                if (!identical.contains(track)) {
+                    added.add(track);
+                }
+            }
+            Platform.runLater(() -> consumer.accept(added, duplicates));
+        });
+    }
+
+    /**
+     * Reports every track of {@code tracks}, the whole library in order, that
+     * repeats an earlier one. The scan matches against an index of its own;
+     * the library index keeps what it holds and gains the tracks it lacked.
+     */
+    public void scan(List<Track> tracks, Consumer<List<Duplicate>> consumer) {
+        List<Track> copy = new ArrayList<>(tracks);
+        coordinator.execute(() -> {
+            List<Duplicate> duplicates = match(new DuplicateIndex(), copy, false);
+            for (Track track : copy) {
+                Path path = localPath(track);
+                FileKey key = path != null && !index.contains(track) ? store.get(path) : null;
+                if (key != null) {
+                    index.add(track, key);
+                }
+            }
+            save();
+            Platform.runLater(() -> consumer.accept(duplicates));
+        });
+    }
+
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+        save();
+    }
+
+    /**
+     * Matches {@code tracks} in order against {@code known}, indexing the ones
+     * that are new, and acoustic duplicates too if {@code keepAcoustic}.
+     */
+    private List<Duplicate> match(DuplicateIndex known, List<Track> tracks, boolean keepAcoustic) {
+        // fingerprints and sizes, in parallel
+        List<CompletableFuture<FileKey>> pending = new ArrayList<>(tracks.size());
+        for (Track track : tracks) {
+            Path path = localPath(track);
+            pending.add(path != null
+                    ? CompletableFuture.supplyAsync(() -> key(path), workers)
+                    : CompletableFuture.completedFuture(null));
+        }
+        FileKey[] keys = new FileKey[tracks.size()];
+        Map<Long, Integer> sizes = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = pending.get(i).join();
+            if (keys[i] != null) {
+                sizes.merge(keys[i].getSize(), 1, Integer::sum);
+            }
+        }
+
+        // identical content needs identical size, only hash where sizes collide
+        Map<Track, CompletableFuture<FileKey>> hashing = new IdentityHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            FileKey key = keys[i];
+            if (key == null) {
+                continue;
+            }
+            List<Track> sameSize = known.sameSize(key.getSize());
+            if (!key.isHashed() && (!sameSize.isEmpty() || sizes.get(key.getSize()) > 1)) {
+                hashing.put(tracks.get(i), hash(tracks.get(i), key));
+            }
+            for (Track other : sameSize) {
+                if (!known.key(other).isHashed() && !hashing.containsKey(other)) {
+                    hashing.put(other, hash(other, known.key(other)));
+                }
+            }
+        }
+        for (Map.Entry<Track, CompletableFuture<FileKey>> e : hashing.entrySet()) {
+            FileKey hashed = e.getValue().join();
+            if (known.contains(e.getKey())) {
+                known.add(e.getKey(), hashed);
+            }
+        }
+
+        List<Duplicate> duplicates = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            Track track = tracks.get(i);
+            CompletableFuture<FileKey> hashed = hashing.get(track);
+            FileKey key = hashed != null ? hashed.join() : keys[i];
+            if (key == null) {
+                continue;
+            }
+            Duplicate duplicate = known.find(track, key);
+            if (duplicate != null) {
+                duplicates.add(duplicate);
+            }
+            if (duplicate == null || keepAcoustic && duplicate.getKind() == Duplicate.Kind.ACOUSTIC) {
+                known.add(track, key);
+            }
+        }
+        return duplicates;
+    }
+
+    /** The key of the file as it is now, null if it cannot be read. */
+    private FileKey key(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            FileKey key = store.lookup(path, attributes);
+            if (key == null) {
+                AcousticFingerprint fingerprint;
+                try {
+                    fingerprint = Fingerprinter.compute(path);
+                } catch (IOException | RuntimeException e) {
+                    fingerprint = null;
+                }
+                key = new FileKey(attributes.lastModifiedTime().toMillis(), attributes.size(), 0, fingerprint);
+                store.store(path, key);
+            }
+            return key;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private CompletableFuture<FileKey> hash(Track track, FileKey key) {
+        Path path = localPath(track);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                FileKey hashed = key.withContentHash(ContentHasher.hash(path));
+                store.store(path, hashed);
+                return hashed;
+            } catch (IOException e) {
+                // unreadable now, it can still match by sound
+                return key;
+            }
+        }, workers);
+    }
+
+    private void save() {
+        try {
+            store.saveIfDirty();
+        } catch (IOException e) {
+            // the store is only an optimisation
+        }
+    }
+
+    private static Path localPath(Track track) {
+        String location = track.getFilePath();
+        if (location == null || !location.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(URI.create(location)).toPath();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
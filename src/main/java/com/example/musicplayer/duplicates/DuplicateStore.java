@@ -0,0 +1,157 @@
+package com.example.musicplayer.duplicates;
+
+import com.example.musicplayer.util.AppDirectories;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent content hashes and fingerprints keyed by absolute file path, so
+ * a library is read and decoded once rather than on every scan. An entry is
+ * valid only while the file's modification time and size are unchanged.
+ */
+public class DuplicateStore {
+    private static final int MAGIC = 0x4D504450; // "MPDP"
+    // 2: MP3 and FLAC are decoded, files stored without a fingerprint get one
+    private static final int VERSION = 2;
+    // far above any path or tag, far below what a corrupt length could ask for
+    private static final int MAX_STRING_BYTES = 1 << 20;
+    private static final int HAS_FINGERPRINT = 1;
+
+    private final Path location;
+    private final Map<String, FileKey> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    public DuplicateStore(Path location) {
+        this.location = location;
+    }
+
+    /** A store that keeps nothing across runs. */
+    public static DuplicateStore inMemory() {
+        return new DuplicateStore(null);
+    }
+
+    public static DuplicateStore openDefault() {
+        try {
+            DuplicateStore store = new DuplicateStore(AppDirectories.configFile("duplicates.cache"));
+            store.load();
+            return store;
+        } catch (IOException e) {
+            return inMemory();
+        }
+    }
+
+    /** Returns the stored key if the file on disk still matches it. */
+    FileKey lookup(Path file, BasicFileAttributes attributes) {
+        FileKey key = entries.get(file.toString());
+        if (key != null
+                && key.getModified() == attributes.lastModifiedTime().toMillis()
+                && key.getSize() == attributes.size()) {
+            return key;
+        }
+        return null;
+    }
+
+    /** The stored key without checking that the file is unchanged, or null. */
+    FileKey get(Path file) {
+        return entries.get(file.toString());
+    }
+
+    void store(Path file, FileKey key) {
+        entries.put(file.toString(), key);
+        dirty = true;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void load() throws IOException {
+        if (location == null) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(location), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = readString(in);
+                long modified = in.readLong();
+                long size = in.readLong();
+                long contentHash = in.readLong();
+                AcousticFingerprint fingerprint = null;
+                if ((in.readByte() & HAS_FINGERPRINT) != 0) {
+                    fingerprint = new AcousticFingerprint(in.readLong(), in.readLong(), in.readInt());
+                }
+                entries.put(path, new FileKey(modified, size, contentHash, fingerprint));
+            }
+        } catch (NoSuchFileException e) {
+            // first run
+        } catch (EOFException e) {
+            // truncated file, keep what was read
+        } catch (IOException | RuntimeException e) {
+            // a corrupt file; none of it can be trusted, the next save replaces it
+            entries.clear();
+        }
+    }
+
+    public synchronized void saveIfDirty() throws IOException {
+        if (location == null || !dirty) {
+            return;
+        }
+        dirty = false;
+
+        Path temp = location.resolveSibling(location.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            // a snapshot of the map, entries added meanwhile mark the store dirty again
+            Map<String, FileKey> snapshot = Map.copyOf(entries);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, FileKey> e : snapshot.entrySet()) {
+                FileKey key = e.getValue();
+                writeString(out, e.getKey());
+                out.writeLong(key.getModified());
+                out.writeLong(key.getSize());
+                out.writeLong(key.getContentHash());
+                AcousticFingerprint fingerprint = key.getFingerprint();
+                out.writeByte(fingerprint != null ? HAS_FINGERPRINT : 0);
+                if (fingerprint != null) {
+                    out.writeLong(fingerprint.getEnergy());
+                    out.writeLong(fingerprint.getBalance());
+                    out.writeInt(fingerprint.getDurationMillis());
+                }
+            }
+        }
+        Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.musicplayer.duplicates;
+
+/**
+ * What duplicate detection knows about one file version. The content hash is
+ * only computed once another file of the same size turns up; 0 means not yet.
+ */
+final class FileKey {
+    private final long modified;
+    private final long size;
+    private final long contentHash;
+    private final AcousticFingerprint fingerprint;
+
+    FileKey(long modified, long size, long contentHash, AcousticFingerprint fingerprint) {
+        this.modified = modified;
+        this.size = size;
+        this.contentHash = contentHash;
+        this.fingerprint = fingerprint;
+    }
+
+    long getModified() {
+        return modified;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getContentHash() {
+        return contentHash;
+    }
+
+    boolean isHashed() {
+        return contentHash != 0;
+    }
+
+    /** Null if the file could not be decoded or is too short. */
+    AcousticFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    FileKey withContentHash(long hash) {
+        // 0 is reserved for "not hashed"
+        return new FileKey(modified, size, hash != 0 ? hash : 1, fingerprint);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.musicplayer.duplicates;
+
+import com.example.musicplayer.util.PcmDecoder;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Computes an {@link AcousticFingerprint} from the first twelve seconds of
+ * sound, decoded through {@link PcmDecoder}. Leading silence is skipped so
+ * encoder padding does not shift the frames. Files without a decoder, and
+ * tracks too short to fill the frames, have no fingerprint.
+ */
+final class Fingerprinter {
+    private static final int FRAMES = 65;
+    private static final double FRAME_SECONDS = 0.186;
+    private static final double LOW_CUTOFF_HZ = 500;
+    private static final double SILENCE = 1.0 / 1024;
+    private static final double EPSILON = 1e-12;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Fingerprinter() {
+    }
+
+    static AcousticFingerprint compute(Path file) throws IOException {
+        try (AudioInputStream in = PcmDecoder.open(file, BUFFER_SIZE)) {
+            AudioFormat format = in.getFormat();
+            int durationMillis = in.getFrameLength() > 0 && format.getFrameRate() > 0
+                    ? (int) Math.min(Integer.MAX_VALUE, Math.round(in.getFrameLength() * 1000.0 / format.getFrameRate()))
+                    : -1;
+            return compute(in, format, durationMillis);
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static AcousticFingerprint compute(AudioInputStream in, AudioFormat format, int durationMillis)
+            throws IOException {
+        int channels = format.getChannels();
+        int frameSize = channels * 2;
+        float rate = format.getSampleRate();
+        long samplesPerFrame = Math.max(1, Math.round(rate * FRAME_SECONDS));
+        double alpha = 1 - Math.exp(-2 * Math.PI * LOW_CUTOFF_HZ / rate);
+
+        double[] total = new double[FRAMES];
+        double[] low = new double[FRAMES];
+        int frames = 0;
+        long fill = 0;
+        boolean started = false;
+        double lowpass = 0;
+
+        byte[] buffer = new byte[BUFFER_SIZE - BUFFER_SIZE % frameSize];
+        int read;
+        fill:
+        while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+            for (int offset = 0; offset + frameSize <= read; offset += frameSize) {
+                double sample = 0;
+                for (int c = 0; c < channels; c++) {
+                    int i = offset + c * 2;
+                    sample += (short) ((buffer[i] & 0xFF) | buffer[i + 1] << 8);
+                }
+                sample /= 32768.0 * channels;
+                if (!started) {
+                    if (Math.abs(sample) < SILENCE) {
+                        continue;
+                    }
+                    started = true;
+                }
+                lowpass += alpha * (sample - lowpass);
+                total[frames] += sample * sample;
+                low[frames] += lowpass * lowpass;
+                if (++fill == samplesPerFrame) {
+                    fill = 0;
+                    if (++frames == FRAMES) {
+                        break fill;
+                    }
+                }
+            }
+        }
+        if (frames < FRAMES) {
+            return null;
+        }
+
+        long energy = 0;
+        long balance = 0;
+        for (int i = 0; i < FRAMES - 1; i++) {
+            if (total[i + 1] > total[i]) {
+                energy |= 1L << i;
+            }
+            if (low[i + 1] / (total[i + 1] + EPSILON) > low[i] / (total[i] + EPSILON)) {
+                balance |= 1L << i;
+            }
+        }
+        return new AcousticFingerprint(energy, balance, durationMillis);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.musicplayer.library;
+
+import com.example.musicplayer.model.Track;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Base for background tasks that produce tracks. Tracks passed to {@link #emit}
+ * are delivered to the sink on the FX thread in batches, at most every
+ * {@code PUBLISH_INTERVAL} or whenever a batch fills up.
+ */
+public abstract class BatchingTask extends Task<Integer> {
+    private static final long PUBLISH_INTERVAL_NANOS = 100_000_000L;
+
+    private final Consumer<List<Track>> sink;
+    private final int batchSize;
+    private List<Track> batch;
+    private long lastPublish = System.nanoTime();
+
+    protected BatchingTask(Consumer<List<Track>> sink, int batchSize) {
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    protected void emit(Track track) {
+        batch.add(track);
+        long now = System.nanoTime();
+        if (batch.size() >= batchSize || now - lastPublish >= PUBLISH_INTERVAL_NANOS) {
+            flush();
+            lastPublish = now;
+        }
+    }
+
+    protected void flush() {
+        if (batch.isEmpty() || isCancelled()) {
+            return;
+        }
+        List<Track> published = batch;
+        batch = new ArrayList<>(batchSize);
+        Platform.runLater(() -> {
+            if (!isCancelled()) {
+                sink.accept(published);
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.musicplayer.library;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Files to import, produced either from an explicit selection or lazily
+ * while a directory tree is walked.
+ */
+interface FileSource {
+    /** Number of files, or -1 if only known once {@link #forEach} returns. */
+    int size();
+
+    void forEach(Consumer<File> action) throws IOException;
+
+    static FileSource of(List<File> files) {
+        return new FileSource() {
+            @Override
+            public int size() {
+                return files.size();
+            }
+
+            @Override
+            public void forEach(Consumer<File> action) {
+                files.forEach(action);
+            }
+        };
+    }
+
+    static FileSource walking(Path root) {
+        return new FileSource() {
+            @Override
+            public int size() {
+                return -1;
+            }
+
+            @Override
+            public void forEach(Consumer<File> action) throws IOException {
+                FolderScanner.walk(root, file -> action.accept(file.toFile()), dir -> {
+                });
+            }
+        };
+    }
+}
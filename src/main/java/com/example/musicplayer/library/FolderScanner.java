@@ -0,0 +1,64 @@
+package com.example.musicplayer.library;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Recursive directory walk that reports audio files. Symbolic links are
+ * followed; link cycles and unreadable entries are skipped, not fatal.
+ */
+public final class FolderScanner {
+    public static final Set<String> AUDIO_EXTENSIONS = Set.of("mp3", "wav", "flac", "m4a", "aif", "aiff");
+
+    private FolderScanner() {
+    }
+
+    public static boolean isAudioFile(Path file) {
+        String name = file.getFileName() != null ? file.getFileName().toString() : "";
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && AUDIO_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Walks {@code root}, passing every audio file to {@code files} and every
+     * directory, including the root, to {@code directories}.
+     */
+    public static void walk(Path root, Consumer<Path> files, Consumer<Path> directories) throws IOException {
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        directories.accept(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile() && isAudioFile(file)) {
+                            files.accept(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        // FileSystemLoopException, AccessDeniedException, vanished files...
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+}
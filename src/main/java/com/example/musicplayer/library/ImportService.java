@@ -0,0 +1,76 @@
+package com.example.musicplayer.library;
+
+import com.example.musicplayer.model.Track;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs tag reading off the FX thread. Tags are read on a bounded pool sized to
+ * the number of cores; each import is coordinated by its own {@link ImportTask}.
+ */
+public class ImportService {
+    private static final int BATCH_SIZE = 200;
+
+    private final int parallelism;
+    private final TagReader tagReader;
+    private final ExecutorService workers;
+    private final ExecutorService coordinators;
+
+    public ImportService(TagReader tagReader) {
+        this(tagReader, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ImportService(TagReader tagReader, int parallelism) {
+        this.tagReader = tagReader;
+        this.parallelism = Math.max(1, parallelism);
+        this.workers = Executors.newFixedThreadPool(this.parallelism, daemonThreads("tag-reader"));
+        this.coordinators = Executors.newCachedThreadPool(daemonThreads("import"));
+    }
+
+    public ImportTask importFiles(List<File> files, Consumer<List<Track>> sink) {
+        return start(FileSource.of(new ArrayList<>(files)), sink);
+    }
+
+    /** Imports every audio file below {@code root}, reading tags while the tree is still being walked. */
+    public ImportTask importFolder(Path root, Consumer<List<Track>> sink) {
+        return start(FileSource.walking(root), sink);
+    }
+
+    private ImportTask start(FileSource source, Consumer<List<Track>> sink) {
+        ImportTask task = new ImportTask(source, sink, tagReader, workers, parallelism * 4, BATCH_SIZE);
+        coordinators.execute(task);
+        return task;
+    }
+
+    public PlaylistImportTask importPlaylist(Path file, Consumer<List<Track>> sink) {
+        PlaylistImportTask task = new PlaylistImportTask(file, sink, BATCH_SIZE);
+        coordinators.execute(task);
+        return task;
+    }
+
+    public TagReader getTagReader() {
+        return tagReader;
+    }
+
+    public void shutdown() {
+        coordinators.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
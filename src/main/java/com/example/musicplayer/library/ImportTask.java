@@ -0,0 +1,100 @@
+package com.example.musicplayer.library;
+
+import com.example.musicplayer.model.Track;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Reads tags for the files of a {@link FileSource} on the worker pool and
+ * hands the resulting tracks to the sink on the FX thread in batches,
+ * preserving file order. Files are submitted as the source produces them, so a
+ * directory walk and tag reading overlap. The value of the task is the number
+ * of imported tracks.
+ */
+public class ImportTask extends BatchingTask {
+    private final FileSource source;
+    private final TagReader tagReader;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final Deque<Future<Track>> inFlight;
+    private int submitted;
+    private int done;
+
+    ImportTask(FileSource source, Consumer<List<Track>> sink, TagReader tagReader,
+               ExecutorService workers, int maxInFlight, int batchSize) {
+        super(sink, batchSize);
+        this.source = source;
+        this.tagReader = tagReader;
+        this.workers = workers;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new ArrayDeque<>(maxInFlight);
+    }
+
+    @Override
+    protected Integer call() throws Exception {
+        try {
+            source.forEach(this::submit);
+            while (!inFlight.isEmpty() && !isCancelled()) {
+                completeOldest();
+            }
+        } catch (CancellationException e) {
+            // cancelled while the source was still producing files
+        } finally {
+            for (Future<Track> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+
+        flush();
+        saveCache();
+        return done;
+    }
+
+    private void submit(File file) {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+        while (inFlight.size() >= maxInFlight) {
+            completeOldest();
+        }
+        inFlight.addLast(workers.submit(() -> tagReader.read(file)));
+        submitted++;
+    }
+
+    private void completeOldest() {
+        emit(await(inFlight.removeFirst()));
+        done++;
+        int total = source.size() >= 0 ? source.size() : submitted;
+        updateProgress(done, total);
+        updateMessage("Importing " + done + " / " + total);
+    }
+
+    private Track await(Future<Track> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        } catch (ExecutionException e) {
+            // TagReader never throws, so this only happens on shutdown
+            throw new CancellationException(e.getMessage());
+        }
+    }
+
+    private void saveCache() {
+        try {
+            tagReader.getCache().saveIfDirty();
+        } catch (IOException e) {
+            // the cache is only an optimisation
+        }
+    }
+}
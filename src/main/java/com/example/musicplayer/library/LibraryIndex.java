@@ -0,0 +1,256 @@
+package com.example.musicplayer.library;
+
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over title, artist and path tokens.
+ * <p>
+ * Tokens are lower-cased and stripped of accents, and kept in a sorted map so
+ * that every query term matches as a prefix. Postings are ascending doc-id
+ * arrays; removed or re-indexed tracks are tombstoned in a live-doc bitset
+ * and the postings are rebuilt once tombstones dominate. All index state is confined to one
+ * background thread, so updates and queries never block the FX thread.
+ */
+public class LibraryIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            ImportService.daemonThreads("library-index"));
+
+    // confined to the executor thread
+    private final List<Track> docs = new ArrayList<>();
+    private final List<String[]> docTokens = new ArrayList<>();
+    private final Map<Track, Integer> docIds = new IdentityHashMap<>();
+    private final BitSet live = new BitSet();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private int deadDocs;
+
+    /** Keeps the index in sync with the tracks of {@code playlist}; call on the FX thread. */
+    public void attach(Playlist playlist) {
+        ObservableList<Track> tracks = playlist.getTracks();
+        add(tracks);
+        tracks.addListener((ListChangeListener<Track>) change -> {
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    // a track the playlist repeats stays while it has an entry left
+                    List<Track> removed = new ArrayList<>(change.getRemoved());
+                    removed.removeIf(playlist::contains);
+                    remove(removed);
+                }
+                if (change.wasAdded()) {
+                    add(change.getAddedSubList());
+                }
+            }
+        });
+    }
+
+    /** Indexes tracks. The fields are read on the calling thread, tokenized in the background. */
+    public void add(List<? extends Track> tracks) {
+        List<Track> added = new ArrayList<>(tracks);
+        String[] fields = new String[added.size() * 3];
+        for (int i = 0; i < added.size(); i++) {
+            Track track = added.get(i);
+            fields[i * 3] = track.getTitle();
+            fields[i * 3 + 1] = track.getArtist();
+            fields[i * 3 + 2] = track.getFilePath();
+        }
+        executor.execute(() -> {
+            for (int i = 0; i < added.size(); i++) {
+                index(added.get(i), tokenize(fields[i * 3], fields[i * 3 + 1], fields[i * 3 + 2]));
+            }
+        });
+    }
+
+    public void remove(List<? extends Track> tracks) {
+        List<Track> removed = new ArrayList<>(tracks);
+        executor.execute(() -> removed.forEach(this::unindex));
+    }
+
+    /**
+     * Finds the tracks matching every term of {@code query} as a prefix.
+     * Completes with null for a blank query, meaning "no filter".
+     */
+    public CompletableFuture<Set<Track>> search(String query) {
+        String[] terms = normalizeTerms(query);
+        if (terms.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> evaluate(terms), executor);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Set<Track> evaluate(String[] terms) {
+        BitSet result = null;
+        for (String term : terms) {
+            BitSet matches = new BitSet(docs.size());
+            for (Postings list : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                list.addTo(matches);
+            }
+            if (result == null) {
+                result = matches;
+            } else {
+                result.and(matches);
+            }
+            if (result.isEmpty()) {
+                return Collections.emptySet();
+            }
+        }
+        result.and(live);
+
+        Set<Track> tracks = Collections.newSetFromMap(new IdentityHashMap<>(result.cardinality()));
+        for (int doc = result.nextSetBit(0); doc >= 0; doc = result.nextSetBit(doc + 1)) {
+            tracks.add(docs.get(doc));
+        }
+        return tracks;
+    }
+
+    private void index(Track track, String[] tokens) {
+        unindex(track);
+        int doc = docs.size();
+        docs.add(track);
+        docTokens.add(tokens);
+        docIds.put(track, doc);
+        live.set(doc);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new Postings()).add(doc);
+        }
+    }
+
+    private void unindex(Track track) {
+        Integer doc = docIds.remove(track);
+        if (doc == null) {
+            return;
+        }
+        live.clear(doc);
+        docs.set(doc, null);
+        docTokens.set(doc, null);
+        if (++deadDocs > Math.max(1024, docs.size() - deadDocs)) {
+            compact();
+        }
+    }
+
+    /** Rebuilds the postings without tombstoned docs once they outnumber the live ones. */
+    private void compact() {
+        List<Track> liveDocs = new ArrayList<>(docs.size() - deadDocs);
+        List<String[]> liveTokens = new ArrayList<>(docs.size() - deadDocs);
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            liveDocs.add(docs.get(doc));
+            liveTokens.add(docTokens.get(doc));
+        }
+        docs.clear();
+        docTokens.clear();
+        docIds.clear();
+        live.clear();
+        postings.clear();
+        deadDocs = 0;
+        for (int i = 0; i < liveDocs.size(); i++) {
+            index(liveDocs.get(i), liveTokens.get(i));
+        }
+    }
+
+    static String[] tokenize(String title, String artist, String location) {
+        Set<String> tokens = new LinkedHashSet<>();
+        addTokens(tokens, title);
+        addTokens(tokens, artist);
+        addTokens(tokens, pathOf(location));
+        return tokens.toArray(new String[0]);
+    }
+
+    static String[] normalizeTerms(String query) {
+        if (query == null) {
+            return new String[0];
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        addTokens(terms, query);
+        return terms.toArray(new String[0]);
+    }
+
+    private static void addTokens(Set<String> tokens, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = text;
+        if (!isAscii(text)) {
+            normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        }
+        normalized = normalized.toLowerCase(Locale.ROOT);
+
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String pathOf(String location) {
+        try {
+            String path = URI.create(location).getRawPath();
+            if (path != null) {
+                return URLDecoder.decode(path.replace("+", "%2B"), StandardCharsets.UTF_8);
+            }
+        } catch (IllegalArgumentException e) {
+            // not a URI, index it verbatim
+        }
+        return location;
+    }
+
+    /** Ascending, append-only doc ids. */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(docs[i]);
+            }
+        }
+    }
+}
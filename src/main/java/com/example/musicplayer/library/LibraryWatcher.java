@@ -0,0 +1,204 @@
+package com.example.musicplayer.library;
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches imported folders and reports audio files that appear, change or
+ * disappear, so the library follows the disk without rescanning whole trees.
+ * Events are coalesced for a short settle period and delivered to the
+ * listener on the FX thread.
+ */
+public class LibraryWatcher {
+    private static final long SETTLE_MILLIS = 500;
+
+    public interface Listener {
+        void filesCreated(List<Path> files);
+
+        void filesModified(List<Path> files);
+
+        /** Deleted files or directories; a directory stands for everything below it. */
+        void pathsDeleted(List<Path> paths);
+    }
+
+    private final Listener listener;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Set<Path> registered = new HashSet<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    public LibraryWatcher(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts watching every directory below {@code root}, and reports the audio
+     * files already there as created, so files that appeared before watching
+     * began are not missed; the listener skips the ones it knows. May be called
+     * from any thread.
+     */
+    public void watch(Path root) throws IOException {
+        synchronized (this) {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                thread = new Thread(this::run, "library-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        List<Path> found = new ArrayList<>();
+        registerTree(root, found);
+        if (!found.isEmpty()) {
+            Platform.runLater(() -> listener.filesCreated(found));
+        }
+    }
+
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+        thread.interrupt();
+        watchService = null;
+        thread = null;
+        directories.clear();
+        registered.clear();
+    }
+
+    /**
+     * Registers every directory below {@code root} as the walk enters it, before
+     * its files are listed, so none created meanwhile is missed. The lock is
+     * taken per directory; the event thread is not held up by a long walk.
+     */
+    private void registerTree(Path root, List<Path> foundFiles) throws IOException {
+        FolderScanner.walk(root, foundFiles::add, this::register);
+    }
+
+    private synchronized void register(Path dir) {
+        if (watchService == null || !registered.add(dir)) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            directories.put(key, dir);
+        } catch (IOException e) {
+            // unreadable directory, not watched
+            registered.remove(dir);
+        }
+    }
+
+    private void run() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Set<Path> created = new LinkedHashSet<>();
+                Set<Path> modified = new LinkedHashSet<>();
+                Set<Path> deleted = new LinkedHashSet<>();
+
+                // let bursts (copies, tag edits) settle and handle them as one batch
+                long deadline = System.currentTimeMillis() + SETTLE_MILLIS;
+                while (key != null) {
+                    collect(key, created, modified, deleted);
+                    long remaining = deadline - System.currentTimeMillis();
+                    key = remaining > 0 ? service.poll(remaining, TimeUnit.MILLISECONDS) : service.poll();
+                }
+                deliver(created, modified, deleted);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> created, Set<Path> modified, Set<Path> deleted) {
+        Path dir;
+        synchronized (this) {
+            dir = directories.get(key);
+        }
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null) {
+                break;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost: rescan the directory and let the listener skip known files
+                created.add(dir);
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                created.remove(path);
+                modified.remove(path);
+                deleted.add(path);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                deleted.remove(path);
+                created.add(path);
+            } else if (!created.contains(path)) {
+                modified.add(path);
+            }
+        }
+        if (!key.reset()) {
+            synchronized (this) {
+                registered.remove(directories.remove(key));
+            }
+        }
+    }
+
+    private void deliver(Set<Path> created, Set<Path> modified, Set<Path> deleted) {
+        List<Path> createdFiles = new ArrayList<>();
+        for (Path path : created) {
+            if (Files.isDirectory(path)) {
+                try {
+                    registerTree(path, createdFiles);
+                } catch (IOException e) {
+                    // vanished again
+                }
+            } else if (FolderScanner.isAudioFile(path)) {
+                createdFiles.add(path);
+            }
+        }
+        List<Path> modifiedFiles = new ArrayList<>();
+        for (Path path : modified) {
+            if (FolderScanner.isAudioFile(path) && Files.isRegularFile(path)) {
+                modifiedFiles.add(path);
+            }
+        }
+        List<Path> deletedPaths = new ArrayList<>(deleted);
+
+        Platform.runLater(() -> {
+            if (!deletedPaths.isEmpty()) {
+                listener.pathsDeleted(deletedPaths);
+            }
+            if (!createdFiles.isEmpty()) {
+                listener.filesCreated(createdFiles);
+            }
+            if (!modifiedFiles.isEmpty()) {
+                listener.filesModified(modifiedFiles);
+            }
+        });
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.musicplayer.library;
+
+import com.example.musicplayer.util.AppDirectories;
+import com.example.musicplayer.util.Hash64;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent track metadata keyed by absolute file path. An entry is valid only
+ * while the file's modification time and size are unchanged.
+ */
+public class MetadataCache {
+    /** The artwork hash of a file that has no artwork; 0 means not known yet. */
+    public static final long NO_ARTWORK = -1;
+
+    private static final int MAGIC = 0x4D504D43; // "MPMC"
+    private static final int VERSION = 1;
+    // far above any path or tag, far below what a corrupt length could ask for
+    private static final int MAX_STRING_BYTES = 1 << 20;
+
+    private final Path location;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    public MetadataCache(Path location) {
+        this.location = location;
+    }
+
+    public static MetadataCache openDefault() {
+        try {
+            MetadataCache cache = new MetadataCache(AppDirectories.configFile("metadata.cache"));
+            cache.load();
+            return cache;
+        } catch (IOException e) {
+            return new MetadataCache(null);
+        }
+    }
+
+    /** Returns the cached entry if the file on disk still matches it. */
+    public Entry lookup(Path file, BasicFileAttributes attributes) {
+        Entry entry = entries.get(file.toString());
+        if (entry != null
+                && entry.modified == attributes.lastModifiedTime().toMillis()
+                && entry.size == attributes.size()) {
+            return entry;
+        }
+        return null;
+    }
+
+    public Entry store(Path file, BasicFileAttributes attributes,
+                       String title, String artist, int duration, long artworkHash) {
+        Entry entry = new Entry(attributes.lastModifiedTime().toMillis(), attributes.size(),
+                title, artist, duration, artworkHash);
+        entries.put(file.toString(), entry);
+        dirty = true;
+        return entry;
+    }
+
+    /** Records the artwork hash of {@code file} if its entry still matches the file on disk. */
+    public void recordArtwork(Path file, BasicFileAttributes attributes, long artworkHash) {
+        Entry entry = lookup(file, attributes);
+        if (entry != null && entry.artworkHash != artworkHash
+                && entries.replace(file.toString(), entry,
+                        new Entry(entry.modified, entry.size, entry.title, entry.artist, entry.duration, artworkHash))) {
+            dirty = true;
+        }
+    }
+
+    /** The hash recorded for artwork {@code data}: {@link #NO_ARTWORK} if empty, never 0. */
+    public static long artworkHash(byte[] data) {
+        if (data == null || data.length == 0) {
+            return NO_ARTWORK;
+        }
+        long hash = Hash64.hash(data);
+        return hash == 0 || hash == NO_ARTWORK ? 1 : hash;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void load() throws IOException {
+        if (location == null) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(location), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = readString(in);
+                long modified = in.readLong();
+                long size = in.readLong();
+                String title = readString(in);
+                String artist = readString(in);
+                int duration = in.readInt();
+                long artworkHash = in.readLong();
+                entries.put(path, new Entry(modified, size, title, artist, duration, artworkHash));
+            }
+        } catch (NoSuchFileException e) {
+            // first run
+        } catch (EOFException e) {
+            // truncated file, keep what was read
+        } catch (IOException | RuntimeException e) {
+            // a corrupt file; none of it can be trusted, the next save replaces it
+            entries.clear();
+        }
+    }
+
+    public synchronized void saveIfDirty() throws IOException {
+        if (location == null || !dirty) {
+            return;
+        }
+        dirty = false;
+
+        Path temp = location.resolveSibling(location.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            // a snapshot of the map, entries added meanwhile mark the cache dirty again
+            Map<String, Entry> snapshot = Map.copyOf(entries);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                Entry entry = e.getValue();
+                writeString(out, e.getKey());
+                out.writeLong(entry.modified);
+                out.writeLong(entry.size);
+                writeString(out, entry.title);
+                writeString(out, entry.artist);
+                out.writeInt(entry.duration);
+                out.writeLong(entry.artworkHash);
+            }
+        }
+        Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static final class Entry {
+        private final long modified;
+        private final long size;
+        private final String title;
+        private final String artist;
+        private final int duration;
+        private final long artworkHash;
+
+        Entry(long modified, long size, String title, String artist, int duration, long artworkHash) {
+            this.modified = modified;
+            this.size = size;
+            this.title = title;
+            this.artist = artist;
+            this.duration = duration;
+            this.artworkHash = artworkHash;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getArtist() {
+            return artist;
+        }
+
+        public int getDuration() {
+            return duration;
+        }
+
+        /** Hash of the embedded artwork, {@link MetadataCache#NO_ARTWORK} if there is none, 0 if not known. */
+        public long getArtworkHash() {
+            return artworkHash;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.musicplayer.library;
+
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.model.TrackPool;
+import com.example.musicplayer.playlist.PlaylistEntry;
+import com.example.musicplayer.playlist.PlaylistReader;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Streams a playlist file into tracks without touching the audio files.
+ * Entries that carry metadata become ready tracks; the others become
+ * placeholders named after the file, resolved later by {@link TrackResolver}.
+ */
+public class PlaylistImportTask extends BatchingTask {
+    private final Path file;
+
+    PlaylistImportTask(Path file, Consumer<List<Track>> sink, int batchSize) {
+        super(sink, batchSize);
+        this.file = file;
+    }
+
+    @Override
+    protected Integer call() throws Exception {
+        int[] count = {0};
+        updateProgress(-1, 1);
+        PlaylistReader.read(file, entry -> {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            emit(toTrack(entry));
+            count[0]++;
+            updateMessage("Loaded " + count[0] + " tracks");
+        });
+        flush();
+        return count[0];
+    }
+
+    /** The pooled track for the entry's location, or a new pooled one from what the entry says. */
+    public static Track toTrack(PlaylistEntry entry) {
+        return TrackPool.shared().get(entry.getLocation(), location -> {
+            String artist = entry.getArtist() != null ? entry.getArtist() : "Unknown Artist";
+            if (entry.hasMetadata()) {
+                return new Track(entry.getTitle(), artist, location, entry.getDuration());
+            }
+            String title = entry.getTitle() != null ? entry.getTitle() : nameOf(location);
+            Track track = new Track(title, artist, location, Math.max(0, entry.getDuration()));
+            track.setResolved(false);
+            return track;
+        });
+    }
+
+    private static String nameOf(String location) {
+        String path = URI.create(location).getRawPath();
+        if (path == null) {
+            return location;
+        }
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        name = URLDecoder.decode(name.replace("+", "%2B"), StandardCharsets.UTF_8);
+        return name.replaceFirst("[.][^.]+$", "");
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.musicplayer.library;
+
+import com.example.musicplayer.metrics.PlayerMetrics;
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.model.TrackPool;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.images.Artwork;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Consumer;
+
+/**
+ * Reads track metadata with JAudiotagger, consulting the {@link MetadataCache}
+ * first. Safe to call from any thread.
+ */
+public class TagReader {
+    private final MetadataCache cache;
+    private volatile Consumer<Track> onRefreshed = track -> { };
+
+    public TagReader(MetadataCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * The pooled track for {@code file}, read and pooled first if there is none,
+     * so importing a file that is already in some playlist costs no tag read.
+     * A pooled track whose file changed since its tags were cached is read
+     * again and updated in place.
+     */
+    public Track read(File file) {
+        String location = file.toURI().toString();
+        Track pooled = TrackPool.shared().get(location);
+        if (pooled != null) {
+            refresh(pooled, file);
+            return pooled;
+        }
+        MetadataCache.Entry tags = readTags(file);
+        return TrackPool.shared().get(location, at -> new Track(tags.getTitle(), tags.getArtist(), at, tags.getDuration()));
+    }
+
+    /** Called on the reading thread with every pooled track {@link #read} updated. */
+    public void setOnRefreshed(Consumer<Track> onRefreshed) {
+        this.onRefreshed = onRefreshed;
+    }
+
+    /** The tags of {@code file}, from the cache if it is unchanged; never null. */
+    public MetadataCache.Entry readTags(File file) {
+        MetadataCache.Entry tags = tryReadTags(file);
+        return tags != null ? tags : fallback(file);
+    }
+
+    /** Like {@link #readTags}, but null instead of a placeholder if the file cannot be read. */
+    public MetadataCache.Entry tryReadTags(File file) {
+        long started = System.nanoTime();
+        Path path = file.toPath();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            PlayerMetrics.get().recordTagRead(file, System.nanoTime() - started, false, true);
+            return null;
+        }
+
+        MetadataCache.Entry cached = cache.lookup(path, attributes);
+        if (cached != null) {
+            PlayerMetrics.get().recordTagRead(file, System.nanoTime() - started, true, false);
+            return cached;
+        }
+        return parse(file, path, attributes, started);
+    }
+
+    public MetadataCache getCache() {
+        return cache;
+    }
+
+    /** Puts the cached tags of {@code file} into {@code track}, reading the file again if it changed since. */
+    private void refresh(Track track, File file) {
+        long started = System.nanoTime();
+        Path path = file.toPath();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return;
+        }
+        MetadataCache.Entry tags = cache.lookup(path, attributes);
+        if (tags == null) {
+            // a file that no longer parses keeps the tags it had
+            tags = parse(file, path, attributes, started);
+            if (tags == null) {
+                return;
+            }
+        }
+        if (!tags.getTitle().equals(track.getTitle()) || !tags.getArtist().equals(track.getArtist())
+                || tags.getDuration() != track.getDuration()) {
+            track.setTitle(tags.getTitle());
+            track.setArtist(tags.getArtist());
+            track.setDuration(tags.getDuration());
+            track.setResolved(true);
+            onRefreshed.accept(track);
+        }
+    }
+
+    /** The tags read from {@code file} and cached, or null if it cannot be read. */
+    private MetadataCache.Entry parse(File file, Path path, BasicFileAttributes attributes, long started) {
+        try {
+            AudioFile audioFile = AudioFileIO.read(file);
+            Tag tag = audioFile.getTag();
+
+            String title = tag != null ? tag.getFirst(FieldKey.TITLE) : null;
+            String artist = tag != null ? tag.getFirst(FieldKey.ARTIST) : null;
+            int duration = audioFile.getAudioHeader().getTrackLength();
+            Artwork artwork = tag != null ? tag.getFirstArtwork() : null;
+            long artworkHash = MetadataCache.artworkHash(artwork != null ? artwork.getBinaryData() : null);
+
+            if (title == null || title.isEmpty()) {
+                title = baseName(file);
+            }
+
+            if (artist == null || artist.isEmpty()) {
+                artist = "Unknown Artist";
+            }
+
+            MetadataCache.Entry entry = cache.store(path, attributes, title, artist, duration, artworkHash);
+            PlayerMetrics.get().recordTagRead(file, System.nanoTime() - started, false, false);
+            return entry;
+        } catch (Exception e) {
+            PlayerMetrics.get().recordTagRead(file, System.nanoTime() - started, false, true);
+            return null;
+        }
+    }
+
+    private static MetadataCache.Entry fallback(File file) {
+        return new MetadataCache.Entry(0, 0, file.getName(), "Unknown Artist", 0, 0);
+    }
+
+    static String baseName(File file) {
+        return file.getName().replaceFirst("[.][^.]+$", "");
+    }
+}
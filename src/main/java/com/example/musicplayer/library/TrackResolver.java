@@ -0,0 +1,93 @@
+package com.example.musicplayer.library;
+
+import com.example.musicplayer.model.Track;
+import javafx.application.Platform;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Fills in placeholder tracks on demand. {@link #request} is cheap and may be
+ * called from cell rendering; tags are read in the background and resolved
+ * tracks are reported to the listener on the FX thread, coalesced per pulse.
+ * A track whose tags cannot be read stays a placeholder, so playlists do not
+ * save made-up metadata for it, and is not asked for again.
+ */
+public class TrackResolver {
+    private static final int THREADS = 2;
+
+    private final TagReader tagReader;
+    private final Consumer<List<Track>> onResolved;
+    private final ExecutorService executor;
+    private final Set<Track> pending = ConcurrentHashMap.newKeySet();
+    // FX thread only; weak, so removed tracks are not kept
+    private final Set<Track> unreadable = Collections.newSetFromMap(new WeakHashMap<>());
+    private final List<Track> resolved = new ArrayList<>();
+    private boolean deliveryScheduled;
+
+    public TrackResolver(TagReader tagReader, Consumer<List<Track>> onResolved) {
+        this.tagReader = tagReader;
+        this.onResolved = onResolved;
+        this.executor = Executors.newFixedThreadPool(THREADS, ImportService.daemonThreads("track-resolver"));
+    }
+
+    public void request(Track track) {
+        if (track == null || track.isResolved() || unreadable.contains(track) || !pending.add(track)) {
+            return;
+        }
+        executor.execute(() -> resolve(track));
+    }
+
+    private void resolve(Track track) {
+        MetadataCache.Entry read = null;
+        String location = track.getFilePath();
+        if (location.startsWith("file:")) {
+            try {
+                File file = new File(URI.create(location));
+                if (file.isFile()) {
+                    read = tagReader.tryReadTags(file);
+                }
+            } catch (IllegalArgumentException e) {
+                // not a local file, keep the placeholder
+            }
+        }
+        MetadataCache.Entry result = read;
+        Platform.runLater(() -> apply(track, result));
+    }
+
+    private void apply(Track track, MetadataCache.Entry read) {
+        pending.remove(track);
+        if (read == null) {
+            unreadable.add(track);
+            return;
+        }
+        track.setTitle(read.getTitle());
+        track.setArtist(read.getArtist());
+        track.setDuration(read.getDuration());
+        track.setResolved(true);
+
+        resolved.add(track);
+        if (!deliveryScheduled) {
+            deliveryScheduled = true;
+            Platform.runLater(() -> {
+                deliveryScheduled = false;
+                List<Track> batch = new ArrayList<>(resolved);
+                resolved.clear();
+                onResolved.accept(batch);
+            });
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
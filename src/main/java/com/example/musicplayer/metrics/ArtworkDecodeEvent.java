@@ -0,0 +1,25 @@
+package com.example.musicplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.example.musicplayer.ArtworkDecode")
+@Label("Artwork Decode")
+@Category("Music Player")
+@Description("Decoding of embedded album art")
+class ArtworkDecodeEvent extends jdk.jfr.Event {
+    @Label("Path")
+    String path;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Encoded Size")
+    @DataAmount
+    int bytes;
+}
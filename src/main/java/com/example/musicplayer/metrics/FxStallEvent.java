@@ -0,0 +1,17 @@
+package com.example.musicplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.example.musicplayer.FxStall")
+@Label("FX Thread Stall")
+@Category("Music Player")
+@Description("The FX thread did not respond for longer than the stall threshold")
+class FxStallEvent extends jdk.jfr.Event {
+    @Label("Stall")
+    @Timespan(Timespan.NANOSECONDS)
+    long stall;
+}
@@ -0,0 +1,59 @@
+package com.example.musicplayer.metrics;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects stalls of the FX thread: a watchdog thread posts a probe every
+ * 100 ms, and a probe that runs later than the threshold is recorded
+ * in {@link PlayerMetrics} with the time it waited.
+ */
+public class FxStallMonitor {
+    private static final long PERIOD_MILLIS = 100;
+
+    private final long thresholdNanos;
+    private ScheduledExecutorService watchdog;
+    private volatile boolean probePending;
+
+    public FxStallMonitor(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    public synchronized void start() {
+        if (watchdog != null) {
+            return;
+        }
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fx-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(this::probe, PERIOD_MILLIS, PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
+    }
+
+    private void probe() {
+        // a stalled thread still has the previous probe queued
+        if (probePending) {
+            return;
+        }
+        probePending = true;
+        long posted = System.nanoTime();
+        Platform.runLater(() -> {
+            probePending = false;
+            long waited = System.nanoTime() - posted;
+            if (waited >= thresholdNanos) {
+                PlayerMetrics.get().recordFxStall(waited);
+            }
+        });
+    }
+}
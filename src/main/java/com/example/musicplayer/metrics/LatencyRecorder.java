@@ -0,0 +1,27 @@
+package com.example.musicplayer.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Count, total and maximum of recorded durations; cheap to update from any thread. */
+public class LatencyRecorder {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public LatencySnapshot snapshot() {
+        return new LatencySnapshot(count.sum(), totalNanos.sum(), maxNanos.get());
+    }
+
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.musicplayer.metrics;
+
+/** Point-in-time view of a {@link LatencyRecorder}; shown as a composite attribute over JMX. */
+public class LatencySnapshot {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    LatencySnapshot(long count, long totalNanos, long maxNanos) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotalMillis() {
+        return totalNanos / NANOS_PER_MILLI;
+    }
+
+    public double getMeanMillis() {
+        return count == 0 ? 0 : totalNanos / NANOS_PER_MILLI / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.2fms max=%.2fms", count, getMeanMillis(), getMaxMillis());
+    }
+}
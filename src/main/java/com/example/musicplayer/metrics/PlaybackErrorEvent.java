@@ -0,0 +1,18 @@
+package com.example.musicplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.musicplayer.PlaybackError")
+@Label("Playback Error")
+@Category("Music Player")
+@Description("A track could not be played")
+class PlaybackErrorEvent extends jdk.jfr.Event {
+    @Label("Location")
+    String location;
+
+    @Label("Message")
+    String message;
+}
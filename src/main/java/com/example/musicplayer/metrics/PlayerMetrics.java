@@ -0,0 +1,191 @@
+package com.example.musicplayer.metrics;
+
+import com.example.musicplayer.model.Track;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latencies of the player's hot paths. Recording is
+ * lock-free and safe from any thread. Values are published over JMX once
+ * {@link #register()} was called, and every measurement is also emitted as a
+ * JFR event, so a flight recording shows which files and mounts were slow.
+ */
+public final class PlayerMetrics implements PlayerMetricsMXBean {
+    public static final String OBJECT_NAME = "com.example.musicplayer:type=PlayerMetrics";
+
+    private static final PlayerMetrics INSTANCE = new PlayerMetrics();
+
+    private final LatencyRecorder trackOpen = new LatencyRecorder();
+    private final LatencyRecorder trackSwitchGap = new LatencyRecorder();
+    private final LatencyRecorder tagRead = new LatencyRecorder();
+    private final LongAdder tagCacheHits = new LongAdder();
+    private final LongAdder tagReadFailures = new LongAdder();
+    private final LatencyRecorder artworkDecode = new LatencyRecorder();
+    private final LongAdder artworkBytes = new LongAdder();
+    private final LatencyRecorder fxStalls = new LatencyRecorder();
+    private final LongAdder playbackErrors = new LongAdder();
+    private volatile String lastPlaybackError;
+
+    private PlayerMetrics() {
+    }
+
+    public static PlayerMetrics get() {
+        return INSTANCE;
+    }
+
+    /** Publishes the metrics in the platform MBean server; repeated calls do nothing. */
+    public static synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            // metrics are optional, the player works without them
+        }
+    }
+
+    public void recordTrackOpen(Track track, long nanos) {
+        trackOpen.record(nanos);
+        TrackOpenEvent event = new TrackOpenEvent();
+        if (event.shouldCommit()) {
+            event.location = track != null ? track.getFilePath() : null;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    public void recordTrackSwitch(Track track, long nanos) {
+        trackSwitchGap.record(nanos);
+        TrackSwitchEvent event = new TrackSwitchEvent();
+        if (event.shouldCommit()) {
+            event.location = track != null ? track.getFilePath() : null;
+            event.gap = nanos;
+            event.commit();
+        }
+    }
+
+    /** A tag read of {@code file}; {@code cached} reads did not touch the file's contents. */
+    public void recordTagRead(File file, long nanos, boolean cached, boolean failed) {
+        if (cached) {
+            tagCacheHits.increment();
+        } else {
+            tagRead.record(nanos);
+        }
+        if (failed) {
+            tagReadFailures.increment();
+        }
+        TagReadEvent event = new TagReadEvent();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.latency = nanos;
+            event.cached = cached;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    public void recordArtworkDecode(Path file, long nanos, int bytes) {
+        artworkDecode.record(nanos);
+        artworkBytes.add(bytes);
+        ArtworkDecodeEvent event = new ArtworkDecodeEvent();
+        if (event.shouldCommit()) {
+            event.path = file.toString();
+            event.latency = nanos;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    public void recordFxStall(long nanos) {
+        fxStalls.record(nanos);
+        FxStallEvent event = new FxStallEvent();
+        if (event.shouldCommit()) {
+            event.stall = nanos;
+            event.commit();
+        }
+    }
+
+    public void recordPlaybackError(Track track, String message) {
+        playbackErrors.increment();
+        String location = track != null ? track.getFilePath() : null;
+        lastPlaybackError = location + ": " + message;
+        PlaybackErrorEvent event = new PlaybackErrorEvent();
+        if (event.shouldCommit()) {
+            event.location = location;
+            event.message = message;
+            event.commit();
+        }
+    }
+
+    @Override
+    public LatencySnapshot getTrackOpen() {
+        return trackOpen.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getTrackSwitchGap() {
+        return trackSwitchGap.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getTagRead() {
+        return tagRead.snapshot();
+    }
+
+    @Override
+    public long getTagCacheHits() {
+        return tagCacheHits.sum();
+    }
+
+    @Override
+    public long getTagReadFailures() {
+        return tagReadFailures.sum();
+    }
+
+    @Override
+    public LatencySnapshot getArtworkDecode() {
+        return artworkDecode.snapshot();
+    }
+
+    @Override
+    public long getArtworkBytes() {
+        return artworkBytes.sum();
+    }
+
+    @Override
+    public LatencySnapshot getFxStalls() {
+        return fxStalls.snapshot();
+    }
+
+    @Override
+    public long getPlaybackErrors() {
+        return playbackErrors.sum();
+    }
+
+    @Override
+    public String getLastPlaybackError() {
+        return lastPlaybackError;
+    }
+
+    @Override
+    public void reset() {
+        trackOpen.reset();
+        trackSwitchGap.reset();
+        tagRead.reset();
+        tagCacheHits.reset();
+        tagReadFailures.reset();
+        artworkDecode.reset();
+        artworkBytes.reset();
+        fxStalls.reset();
+        playbackErrors.reset();
+        lastPlaybackError = null;
+    }
+}
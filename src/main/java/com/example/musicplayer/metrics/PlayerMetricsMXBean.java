@@ -0,0 +1,32 @@
+package com.example.musicplayer.metrics;
+
+/** Management interface of {@link PlayerMetrics}, registered as {@value PlayerMetrics#OBJECT_NAME}. */
+public interface PlayerMetricsMXBean {
+    /** From opening a track's media until it is ready to play. */
+    LatencySnapshot getTrackOpen();
+
+    /** From the end of a track until the following one is ready. */
+    LatencySnapshot getTrackSwitchGap();
+
+    /** Tag reads that had to parse the file. */
+    LatencySnapshot getTagRead();
+
+    long getTagCacheHits();
+
+    long getTagReadFailures();
+
+    LatencySnapshot getArtworkDecode();
+
+    /** Encoded artwork bytes decoded so far. */
+    long getArtworkBytes();
+
+    /** Periods in which the FX thread did not respond for longer than the stall threshold. */
+    LatencySnapshot getFxStalls();
+
+    long getPlaybackErrors();
+
+    /** Location and message of the most recent playback error, or null. */
+    String getLastPlaybackError();
+
+    void reset();
+}
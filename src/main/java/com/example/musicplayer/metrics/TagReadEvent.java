@@ -0,0 +1,26 @@
+package com.example.musicplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.example.musicplayer.TagRead")
+@Label("Tag Read")
+@Category("Music Player")
+@Description("Metadata read of one audio file")
+class TagReadEvent extends jdk.jfr.Event {
+    @Label("Path")
+    String path;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Cached")
+    boolean cached;
+
+    @Label("Failed")
+    boolean failed;
+}
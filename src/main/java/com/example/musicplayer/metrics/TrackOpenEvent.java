@@ -0,0 +1,20 @@
+package com.example.musicplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.example.musicplayer.TrackOpen")
+@Label("Track Open")
+@Category("Music Player")
+@Description("Time from opening a track until it is ready to play")
+class TrackOpenEvent extends jdk.jfr.Event {
+    @Label("Location")
+    String location;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
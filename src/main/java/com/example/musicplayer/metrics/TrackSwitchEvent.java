@@ -0,0 +1,20 @@
+package com.example.musicplayer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("com.example.musicplayer.TrackSwitch")
+@Label("Track Switch")
+@Category("Music Player")
+@Description("Gap between the end of a track and the next one being ready")
+class TrackSwitchEvent extends jdk.jfr.Event {
+    @Label("Next Location")
+    String location;
+
+    @Label("Gap")
+    @Timespan(Timespan.NANOSECONDS)
+    long gap;
+}
@@ -0,0 +1,139 @@
+package com.example.musicplayer.model;
+
+import java.text.CollationElementIterator;
+import java.text.Collator;
+import java.text.RuleBasedCollator;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sort keys for secondary-strength collation. Building a {@link java.text.CollationKey}
+ * walks the collator's rule tables for every character, which dominates sorting of
+ * large playlists, so the collation elements of characters that take part in no
+ * contraction are looked up in a per-locale table instead. Everything else goes
+ * through a {@link CollationElementIterator}; both paths produce the same keys.
+ */
+final class CollationTable {
+    /** ASCII, Latin-1 and basic Cyrillic, enough for most tags. */
+    private static final char[][] RANGES = {{0x20, 0x7E}, {0xA0, 0xFF}, {0x400, 0x45F}};
+    private static final int SIZE = 0x460;
+    private static final Map<Locale, CollationTable> TABLES = new ConcurrentHashMap<>();
+
+    private final RuleBasedCollator collator;
+    /** French rules compare accents from the end of the string. */
+    private final boolean backwardSecondary;
+    /** Collation elements per character, null if it needs the iterator. */
+    private final int[][] elements = new int[SIZE][];
+
+    private CollationTable(RuleBasedCollator collator) {
+        this.collator = collator;
+        this.backwardSecondary = collator.compare("c\u00f4te", "cot\u00e9") < 0;
+        CollationElementIterator iterator = collator.getCollationElementIterator("");
+        for (char[] range : RANGES) {
+            for (char c = range[0]; c <= range[1]; c++) {
+                int[] collated = collate(iterator, String.valueOf(c));
+                if (collated.length > 0) {
+                    elements[c] = collated;
+                }
+            }
+        }
+        // a pair that does not collate as its two characters is a contraction, leave its tail to the iterator
+        char[] pair = new char[2];
+        for (char[] first : RANGES) {
+            for (pair[0] = first[0]; pair[0] <= first[1]; pair[0]++) {
+                if (elements[pair[0]] == null) {
+                    continue;
+                }
+                for (char[] second : RANGES) {
+                    for (pair[1] = second[0]; pair[1] <= second[1]; pair[1]++) {
+                        if (elements[pair[1]] != null && !collatesAsPair(iterator, pair)) {
+                            elements[pair[1]] = null;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** The table for {@code locale}, built once per locale. */
+    static CollationTable forLocale(Locale locale) {
+        return TABLES.computeIfAbsent(locale, l -> {
+            // the JDK collators are all rule based
+            RuleBasedCollator collator = (RuleBasedCollator) Collator.getInstance(l);
+            return new CollationTable(collator);
+        });
+    }
+
+    /**
+     * A key comparing with {@link String#compareTo} like the collator does at
+     * secondary strength: primary weights, a zero separator, then secondary weights.
+     */
+    String key(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        int length = value.length();
+        int[] collated = new int[length * 2];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            int[] known = c < SIZE ? elements[c] : null;
+            if (known == null) {
+                int[] slow = collate(collator.getCollationElementIterator(value), value);
+                return key(slow, slow.length);
+            }
+            if (count + known.length > collated.length) {
+                collated = Arrays.copyOf(collated, collated.length * 2);
+            }
+            for (int element : known) {
+                collated[count++] = element;
+            }
+        }
+        return key(collated, count);
+    }
+
+    private String key(int[] collated, int count) {
+        StringBuilder key = new StringBuilder(count * 2 + 1);
+        for (int i = 0; i < count; i++) {
+            int weight = CollationElementIterator.primaryOrder(collated[i]);
+            if (weight != 0) {
+                key.append((char) weight);
+            }
+        }
+        key.append('\0');
+        for (int i = 0; i < count; i++) {
+            int element = collated[backwardSecondary ? count - 1 - i : i];
+            key.append((char) (CollationElementIterator.secondaryOrder(element) + 1));
+        }
+        return key.toString();
+    }
+
+    /** The non-ignorable collation elements of {@code text}. */
+    private static int[] collate(CollationElementIterator iterator, String text) {
+        iterator.setText(text);
+        int[] collated = new int[text.length() * 2];
+        int count = 0;
+        int element;
+        while ((element = iterator.next()) != CollationElementIterator.NULLORDER) {
+            if (element == 0) {
+                continue;
+            }
+            if (count == collated.length) {
+                collated = Arrays.copyOf(collated, count * 2 + 2);
+            }
+            collated[count++] = element;
+        }
+        return Arrays.copyOf(collated, count);
+    }
+
+    private boolean collatesAsPair(CollationElementIterator iterator, char[] pair) {
+        int[] first = elements[pair[0]];
+        int[] second = elements[pair[1]];
+        int[] collated = collate(iterator, new String(pair));
+        return collated.length == first.length + second.length
+                && Arrays.equals(collated, 0, first.length, first, 0, first.length)
+                && Arrays.equals(collated, first.length, collated.length, second, 0, second.length);
+    }
+}
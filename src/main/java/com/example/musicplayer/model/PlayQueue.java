@@ -0,0 +1,215 @@
+package com.example.musicplayer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Tracks to play before the playlist continues ("up next"). A doubly linked
+ * list of {@link Entry} handles, so enqueueing at either end, taking the head,
+ * removing or moving an entry and clearing are all O(1), independent of the
+ * queue and playlist sizes. The same track may be queued more than once.
+ * An entry may name the playlist it was queued from, so a track queued from a
+ * tab that is not playing stays valid while that tab holds it.
+ */
+public class PlayQueue {
+    private final Entry head = new Entry(null, null, -1);
+    private final List<Runnable> listeners = new ArrayList<>();
+    private int size;
+    // entries of earlier generations were dropped by clear()
+    private int generation;
+
+    public PlayQueue() {
+        head.previous = head;
+        head.next = head;
+    }
+
+    /** Called after every change, e.g. to refresh the player's prefetch. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /** Queues {@code track} to play after the queued tracks. */
+    public Entry add(Track track) {
+        return add(track, null);
+    }
+
+    /** Queues {@code track} from {@code source} to play after the queued tracks. */
+    public Entry add(Track track, Playlist source) {
+        return insertAfter(head.previous, track, source);
+    }
+
+    /** Queues {@code track} to play before everything else in the queue. */
+    public Entry addFirst(Track track) {
+        return addFirst(track, null);
+    }
+
+    /** Queues {@code track} from {@code source} to play before everything else in the queue. */
+    public Entry addFirst(Track track, Playlist source) {
+        return insertAfter(head, track, source);
+    }
+
+    /** The first queued track, or null. */
+    public Track peek() {
+        return head.next.track;
+    }
+
+    /** The first entry, or null if the queue is empty. */
+    public Entry first() {
+        return head.next != head ? head.next : null;
+    }
+
+    /** Removes and returns the first queued track, or null if the queue is empty. */
+    public Track poll() {
+        Entry first = head.next;
+        if (first == head) {
+            return null;
+        }
+        unlink(first);
+        changed();
+        return first.track;
+    }
+
+    /** Removes {@code entry}; false if it was not queued (anymore). */
+    public boolean remove(Entry entry) {
+        if (!contains(entry)) {
+            return false;
+        }
+        unlink(entry);
+        changed();
+        return true;
+    }
+
+    /** Moves {@code entry} to the head of the queue. */
+    public void moveToFront(Entry entry) {
+        moveAfter(entry, null);
+    }
+
+    /** Moves {@code entry} right behind {@code anchor}, or to the head if {@code anchor} is null. */
+    public void moveAfter(Entry entry, Entry anchor) {
+        if (!contains(entry) || (anchor != null && !contains(anchor))) {
+            throw new IllegalArgumentException("Entry is not in the queue");
+        }
+        if (entry == anchor) {
+            return;
+        }
+        Entry after = anchor != null ? anchor : head;
+        unlink(entry);
+        link(after, entry);
+        changed();
+    }
+
+    /** Drops every matching entry, in one pass over the queue. */
+    public boolean removeIf(Predicate<Entry> filter) {
+        boolean removed = false;
+        for (Entry entry = head.next; entry != head; ) {
+            Entry next = entry.next;
+            if (filter.test(entry)) {
+                unlink(entry);
+                removed = true;
+            }
+            entry = next;
+        }
+        if (removed) {
+            changed();
+        }
+        return removed;
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        head.previous = head;
+        head.next = head;
+        size = 0;
+        generation++;
+        changed();
+    }
+
+    public boolean contains(Entry entry) {
+        return entry != null && entry.generation == generation && entry.next != null;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Up to {@code limit} entries from the head, for display. */
+    public List<Entry> entries(int limit) {
+        List<Entry> entries = new ArrayList<>(Math.min(limit, size));
+        for (Entry entry = head.next; entry != head && entries.size() < limit; entry = entry.next) {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private Entry insertAfter(Entry after, Track track, Playlist source) {
+        if (track == null) {
+            throw new IllegalArgumentException("track");
+        }
+        Entry entry = new Entry(track, source, generation);
+        link(after, entry);
+        changed();
+        return entry;
+    }
+
+    private void link(Entry after, Entry entry) {
+        entry.previous = after;
+        entry.next = after.next;
+        after.next.previous = entry;
+        after.next = entry;
+        size++;
+    }
+
+    private void unlink(Entry entry) {
+        entry.previous.next = entry.next;
+        entry.next.previous = entry.previous;
+        entry.previous = null;
+        entry.next = null;
+        size--;
+    }
+
+    private void changed() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /** A queued track; keep it to remove or move that queue position later. */
+    public static final class Entry {
+        private final Track track;
+        private final Playlist source;
+        private final int generation;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(Track track, Playlist source, int generation) {
+            this.track = track;
+            this.source = source;
+            this.generation = generation;
+        }
+
+        public Track getTrack() {
+            return track;
+        }
+
+        /** The playlist the track was queued from; null for whichever one is playing. */
+        public Playlist getSource() {
+            return source;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(track);
+        }
+    }
+}
@@ -1,40 +1,290 @@
 package com.example.musicplayer.model;
 
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
 
+/**
+ * Ordered tracks plus the current position. The track list is observable and
+ * reports fine-grained changes (added/removed ranges, single-row updates), so
+ * views bound to {@link #getTracks()} only re-render affected rows. A track
+ * may be in the list more than once.
+ */
 public class Playlist {
-    private List<Track> tracks;
-    private int currentTrackIndex;
+    private final ObservableList<Track> tracks;
+    private final ObservableList<Track> readOnlyTracks;
+    private final PositionIndex positions;
+    // built on the first lookup by location, then kept up to date
+    private Map<String, Track> locations;
+    // tracks by the location of their directory, sorted so a subtree is a range; built like locations
+    private NavigableMap<String, Set<Track>> directories;
+    private final ReadOnlyIntegerWrapper currentTrackIndex = new ReadOnlyIntegerWrapper(-1);
+    private final ShuffleOrder shuffleOrder;
+    private boolean shuffle;
+    private int modificationCount;
+    // tracks next and previous walk instead of the whole playlist, e.g. a smart playlist
+    private List<Track> scope;
+    private final Random scopeRandom = new Random();
+    private Track scopedShuffleNext;
 
     public Playlist() {
-        this.tracks = new ArrayList<>();
-        this.currentTrackIndex = -1;
+        this(new ShuffleOrder());
+    }
+
+    public Playlist(ShuffleOrder shuffleOrder) {
+        this.shuffleOrder = shuffleOrder;
+        this.tracks = FXCollections.observableArrayList();
+        this.readOnlyTracks = FXCollections.unmodifiableObservableList(tracks);
+        this.positions = new PositionIndex();
     }
 
+    /** Appends {@code track}, also if the playlist holds it already. */
     public void addTrack(Track track) {
+        modificationCount++;
+        boolean first = !contains(track);
+        positions.appending(List.of(track));
         tracks.add(track);
-        if (currentTrackIndex == -1) {
-            currentTrackIndex = 0;
+        if (first) {
+            indexAdded(track);
+        }
+        if (currentTrackIndex.get() == -1) {
+            currentTrackIndex.set(0);
+        }
+    }
+
+    /** Appends all tracks as a single list change. */
+    public void addTracks(Collection<Track> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        // pooled tracks are shared, a playlist may hold one several times
+        List<Track> firsts = new ArrayList<>();
+        Set<Track> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Track track : added) {
+            if (!positions.contains(track) && seen.add(track)) {
+                firsts.add(track);
+            }
+        }
+        modificationCount++;
+        positions.appending(added);
+        tracks.addAll(added);
+        firsts.forEach(this::indexAdded);
+        if (currentTrackIndex.get() == -1) {
+            currentTrackIndex.set(0);
+        }
+    }
+
+    /** Indexes a track that was not in the playlist before. */
+    private void indexAdded(Track track) {
+        if (locations != null) {
+            locations.put(track.getFilePath(), track);
+        }
+        if (directories != null) {
+            directories.computeIfAbsent(directoryOf(track), directory -> new HashSet<>()).add(track);
+        }
+        if (shuffle) {
+            shuffleOrder.add(track);
+        }
+    }
+
+    /** Forgets a track whose last entry was removed. */
+    private void indexRemoved(Track track) {
+        if (locations != null) {
+            locations.remove(track.getFilePath(), track);
+        }
+        if (directories != null) {
+            String directory = directoryOf(track);
+            Set<Track> inDirectory = directories.get(directory);
+            if (inDirectory != null && inDirectory.remove(track) && inDirectory.isEmpty()) {
+                directories.remove(directory);
+            }
+        }
+        if (shuffle) {
+            shuffleOrder.remove(track);
         }
     }
 
+    /** Tells views that the fields of {@code track} changed; only its rows are re-rendered. */
+    public void trackUpdated(Track track) {
+        for (int index : positions.positionsOf(track)) {
+            tracks.set(index, track);
+        }
+    }
+
+    /** Removes the first entry of {@code track}. */
     public void removeTrack(Track track) {
-        int index = tracks.indexOf(track);
+        int index = indexOf(track);
         if (index != -1) {
-            tracks.remove(index);
-            if (currentTrackIndex >= index) {
-                currentTrackIndex--;
-                if (currentTrackIndex < 0 && !tracks.isEmpty()) {
-                    currentTrackIndex = 0;
+            removeTrack(index);
+        }
+    }
+
+    public void removeTrack(int index) {
+        modificationCount++;
+        Track removed = tracks.get(index);
+        boolean last = positions.removing(index, removed);
+        tracks.remove(index);
+        if (last) {
+            indexRemoved(removed);
+        }
+        int current = currentTrackIndex.get();
+        if (current >= index) {
+            current--;
+            if (current < 0 && !tracks.isEmpty()) {
+                current = 0;
+            }
+            currentTrackIndex.set(current);
+        }
+    }
+
+    /** Removes every entry of the given tracks as a single list change. */
+    public void removeTracks(Collection<Track> removed) {
+        Set<Track> doomed = Collections.newSetFromMap(new IdentityHashMap<>());
+        int current = currentTrackIndex.get();
+        int removedBeforeCurrent = 0;
+        for (Track track : removed) {
+            if (contains(track) && doomed.add(track)) {
+                for (int index : positions.positionsOf(track)) {
+                    if (index < current) {
+                        removedBeforeCurrent++;
+                    }
                 }
             }
         }
+        if (doomed.isEmpty()) {
+            return;
+        }
+
+        modificationCount++;
+        doomed.forEach(positions::removingAll);
+        tracks.removeAll(doomed);
+        doomed.forEach(this::indexRemoved);
+
+        // the current entry keeps its place among the rest, or the next one takes it
+        if (tracks.isEmpty()) {
+            currentTrackIndex.set(-1);
+        } else {
+            currentTrackIndex.set(Math.max(0, Math.min(current - removedBeforeCurrent, tracks.size() - 1)));
+        }
+    }
+
+    /**
+     * Puts the tracks in the order of {@code ordered}, which must hold exactly the
+     * current entries, as a single permutation change; a playlist that repeats a
+     * track is replaced instead. The current track stays current at its new position.
+     */
+    public void applyOrder(List<Track> ordered) {
+        if (ordered.size() != tracks.size()) {
+            throw new IllegalArgumentException("Not a permutation of the playlist");
+        }
+        // entries of every track, by store slot
+        int maxSlot = -1;
+        for (Track track : ordered) {
+            maxSlot = Math.max(maxSlot, track.getSlot());
+        }
+        int[] counts = new int[maxSlot + 1];
+        for (Track track : ordered) {
+            counts[track.getSlot()]++;
+        }
+        for (Track track : tracks) {
+            if (track.getSlot() > maxSlot || counts[track.getSlot()]-- == 0) {
+                throw new IllegalArgumentException("Not a permutation of the playlist");
+            }
+        }
+
+        modificationCount++;
+        Track current = getCurrentTrack();
+        boolean repeats = positions.distinct() != tracks.size();
+        positions.reordering(ordered);
+        if (!repeats) {
+            int[] newPositions = counts;
+            for (int i = 0; i < ordered.size(); i++) {
+                newPositions[ordered.get(i).getSlot()] = i;
+            }
+            tracks.sort(Comparator.comparingInt(track -> newPositions[track.getSlot()]));
+        } else {
+            // a comparator cannot tell the entries of one track apart
+            tracks.setAll(ordered);
+        }
+        currentTrackIndex.set(current != null ? indexOf(current) : -1);
+    }
+
+    /** Changes whenever tracks are added, removed or reordered. */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /** A track playing the given location, or null. */
+    public Track findByLocation(String location) {
+        if (locations == null) {
+            locations = new HashMap<>();
+            for (Track track : tracks) {
+                locations.put(track.getFilePath(), track);
+            }
+        }
+        return locations.get(location);
+    }
+
+    /** Tracks below the directory at {@code location}, at any depth. O(log n) plus the tracks found. */
+    public List<Track> findBelow(String location) {
+        if (directories == null) {
+            directories = new TreeMap<>();
+            for (Track track : tracks) {
+                directories.computeIfAbsent(directoryOf(track), directory -> new HashSet<>()).add(track);
+            }
+        }
+        String prefix = location.endsWith("/") ? location : location + "/";
+        List<Track> found = new ArrayList<>();
+        for (Set<Track> inDirectory : directories.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            found.addAll(inDirectory);
+        }
+        return found;
+    }
+
+    private static String directoryOf(Track track) {
+        String location = track.getFilePath();
+        return location.substring(0, location.lastIndexOf('/') + 1);
+    }
+
+    public void clear() {
+        modificationCount++;
+        positions.clear();
+        tracks.clear();
+        locations = null;
+        directories = null;
+        shuffleOrder.clear();
+        currentTrackIndex.set(-1);
+    }
+
+    /** Whether {@code track} is in the playlist. O(1). */
+    public boolean contains(Track track) {
+        return positions.contains(track);
+    }
+
+    /** Position of the first entry of {@code track}, or -1. O(log n), also right after removals, see {@link PositionIndex}. */
+    public int indexOf(Track track) {
+        return positions.indexOf(track);
     }
 
     public Track getCurrentTrack() {
-        if (currentTrackIndex >= 0 && currentTrackIndex < tracks.size()) {
-            return tracks.get(currentTrackIndex);
+        int current = currentTrackIndex.get();
+        if (current >= 0 && current < tracks.size()) {
+            return tracks.get(current);
         }
         return null;
     }
@@ -42,34 +292,159 @@ public class Playlist {
     public Track nextTrack() {
         if (tracks.isEmpty()) return null;
 
-        currentTrackIndex++;
-        if (currentTrackIndex >= tracks.size()) {
-            currentTrackIndex = 0;
+        if (isScoped()) {
+            Track next = scopedNext();
+            scopedShuffleNext = null;
+            moveTo(next);
+            return next;
+        }
+
+        if (shuffle) {
+            Track next = shuffleOrder.next();
+            currentTrackIndex.set(indexOf(next));
+            return next;
+        }
+
+        int next = currentTrackIndex.get() + 1;
+        if (next >= tracks.size()) {
+            next = 0;
         }
-        return tracks.get(currentTrackIndex);
+        currentTrackIndex.set(next);
+        return tracks.get(next);
     }
 
     public Track prevTrack() {
         if (tracks.isEmpty()) return null;
 
-        currentTrackIndex--;
-        if (currentTrackIndex < 0) {
-            currentTrackIndex = tracks.size() - 1;
+        if (isScoped()) {
+            int index = scope.indexOf(getCurrentTrack());
+            Track prev = scope.get(index <= 0 ? scope.size() - 1 : index - 1);
+            scopedShuffleNext = null;
+            moveTo(prev);
+            return prev;
+        }
+
+        if (shuffle) {
+            Track prev = shuffleOrder.prev();
+            if (prev == null) {
+                return getCurrentTrack();
+            }
+            currentTrackIndex.set(indexOf(prev));
+            return prev;
+        }
+
+        int prev = currentTrackIndex.get() - 1;
+        if (prev < 0) {
+            prev = tracks.size() - 1;
+        }
+        currentTrackIndex.set(prev);
+        return tracks.get(prev);
+    }
+
+    /** The track {@link #nextTrack()} will return, without moving there. */
+    public Track peekNextTrack() {
+        if (tracks.isEmpty()) return null;
+
+        if (isScoped()) {
+            return scopedNext();
+        }
+
+        if (shuffle) {
+            return shuffleOrder.peekNext();
+        }
+        int next = currentTrackIndex.get() + 1;
+        return tracks.get(next >= tracks.size() ? 0 : next);
+    }
+
+    /**
+     * Restricts next and previous to {@code scope}, a live view of some of the
+     * tracks of this playlist, or lifts the restriction with null. The view's
+     * indexOf should be fast. An empty scope does not restrict anything.
+     * Previous walks back in the scope's order even with shuffle on.
+     */
+    public void setScope(List<Track> scope) {
+        this.scope = scope;
+        scopedShuffleNext = null;
+    }
+
+    public List<Track> getScope() {
+        return scope;
+    }
+
+    private boolean isScoped() {
+        return scope != null && !scope.isEmpty();
+    }
+
+    private Track scopedNext() {
+        if (!shuffle) {
+            // from outside the scope, start at its first track
+            int index = scope.indexOf(getCurrentTrack());
+            return scope.get(index + 1 >= scope.size() ? 0 : index + 1);
+        }
+        // drawn once, so the peeked track is the one played next
+        if (scopedShuffleNext == null || !scope.contains(scopedShuffleNext)) {
+            Track current = getCurrentTrack();
+            do {
+                scopedShuffleNext = scope.get(scopeRandom.nextInt(scope.size()));
+            } while (scopedShuffleNext == current && scope.size() > 1);
         }
-        return tracks.get(currentTrackIndex);
+        return scopedShuffleNext;
     }
 
-    public List<Track> getTracks() {
-        return new ArrayList<>(tracks);
+    private void moveTo(Track track) {
+        currentTrackIndex.set(indexOf(track));
+        if (shuffle) {
+            shuffleOrder.setCurrent(track);
+        }
+    }
+
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    public void setShuffle(boolean shuffle) {
+        if (this.shuffle == shuffle) {
+            return;
+        }
+        this.shuffle = shuffle;
+        if (shuffle) {
+            shuffleOrder.reset(tracks, getCurrentTrack());
+        } else {
+            shuffleOrder.clear();
+        }
+    }
+
+    public Track getTrack(int index) {
+        return tracks.get(index);
+    }
+
+    public int size() {
+        return tracks.size();
+    }
+
+    public boolean isEmpty() {
+        return tracks.isEmpty();
+    }
+
+    /** Read-only live view of the tracks; no copy is made. */
+    public ObservableList<Track> getTracks() {
+        return readOnlyTracks;
     }
 
     public void setCurrentTrackIndex(int index) {
         if (index >= 0 && index < tracks.size()) {
-            currentTrackIndex = index;
+            currentTrackIndex.set(index);
+            if (shuffle) {
+                shuffleOrder.setCurrent(tracks.get(index));
+            }
         }
     }
 
     public int getCurrentTrackIndex() {
-        return currentTrackIndex;
+        return currentTrackIndex.get();
+    }
+
+    public ReadOnlyIntegerProperty currentTrackIndexProperty() {
+        return currentTrackIndex.getReadOnlyProperty();
     }
-}
\ No newline at end of file
+}
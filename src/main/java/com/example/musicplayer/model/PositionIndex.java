@@ -0,0 +1,203 @@
+package com.example.musicplayer.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Positions of the entries of a playlist. Each entry gets a sequence number
+ * when appended, in list order, and a track holds the numbers of all its
+ * entries, since a playlist may repeat a track. A Fenwick tree over the
+ * numbers counts the entries still there, so the position of an entry is the
+ * count of live numbers before its own. Append, remove and lookup are
+ * O(log n) however they interleave. Numbers of removed entries are reclaimed
+ * by renumbering once they outnumber the live ones, and on reordering.
+ * <p>
+ * The playlist tells the index of a change before making it to the list, so
+ * listeners of the list already see the new positions.
+ */
+final class PositionIndex {
+    private static final int[] NONE = new int[0];
+
+    // ascending, one number per entry of the track
+    private final Map<Track, int[]> sequence = new IdentityHashMap<>();
+    // 1-based: tree[i] counts the live numbers among (i - lowbit(i), i]
+    private int[] tree = new int[17];
+    private int next;
+    private int live;
+
+    boolean contains(Track track) {
+        return sequence.containsKey(track);
+    }
+
+    /** Position of the first entry of {@code track}, or -1. */
+    int indexOf(Track track) {
+        int[] numbers = sequence.get(track);
+        return numbers != null ? prefix(numbers[0]) : -1;
+    }
+
+    /** Positions of all entries of {@code track}, ascending. */
+    int[] positionsOf(Track track) {
+        int[] numbers = sequence.getOrDefault(track, NONE);
+        int[] positions = new int[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            positions[i] = prefix(numbers[i]);
+        }
+        return positions;
+    }
+
+    /** Tracks in the list, each counted once. */
+    int distinct() {
+        return sequence.size();
+    }
+
+    /** {@code added} are about to be appended. */
+    void appending(Collection<? extends Track> added) {
+        if (next + added.size() >= tree.length) {
+            rebuild(entries(), added.size());
+        }
+        for (Track track : added) {
+            number(track, next);
+            add(next++, 1);
+        }
+        live += added.size();
+    }
+
+    /**
+     * The entry of {@code track} at {@code index} is about to be removed.
+     * Whether it is the last entry of the track.
+     */
+    boolean removing(int index, Track track) {
+        int number = select(index);
+        int[] numbers = sequence.get(track);
+        boolean last = numbers.length == 1;
+        if (last) {
+            sequence.remove(track);
+        } else {
+            int at = Arrays.binarySearch(numbers, number);
+            int[] rest = new int[numbers.length - 1];
+            System.arraycopy(numbers, 0, rest, 0, at);
+            System.arraycopy(numbers, at + 1, rest, at, rest.length - at);
+            sequence.put(track, rest);
+        }
+        add(number, -1);
+        live--;
+        reclaim();
+        return last;
+    }
+
+    /** Every entry of {@code track} is about to be removed. */
+    void removingAll(Track track) {
+        int[] numbers = sequence.remove(track);
+        if (numbers == null) {
+            return;
+        }
+        for (int number : numbers) {
+            add(number, -1);
+        }
+        live -= numbers.length;
+        reclaim();
+    }
+
+    /** The list is about to be reordered or replaced by {@code entries}. */
+    void reordering(List<Track> entries) {
+        rebuild(entries, 0);
+    }
+
+    void clear() {
+        sequence.clear();
+        tree = new int[17];
+        next = 0;
+        live = 0;
+    }
+
+    /** The live entries in list order. */
+    private List<Track> entries() {
+        Track[] byNumber = new Track[next];
+        for (Map.Entry<Track, int[]> entry : sequence.entrySet()) {
+            for (int number : entry.getValue()) {
+                byNumber[number] = entry.getKey();
+            }
+        }
+        List<Track> entries = new ArrayList<>(live);
+        for (Track track : byNumber) {
+            if (track != null) {
+                entries.add(track);
+            }
+        }
+        return entries;
+    }
+
+    /** Numbers {@code entries} from 0, with a tree big enough for {@code room} more. */
+    private void rebuild(List<Track> entries, int room) {
+        int size = entries.size();
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, (size + room) * 2 - 1)) * 2);
+        if (tree.length != capacity + 1) {
+            tree = new int[capacity + 1];
+        } else {
+            Arrays.fill(tree, 0);
+        }
+        sequence.clear();
+        for (int i = 0; i < size; i++) {
+            number(entries.get(i), i);
+            tree[i + 1] = 1;
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+        next = size;
+        live = size;
+    }
+
+    private void number(Track track, int number) {
+        int[] numbers = sequence.get(track);
+        if (numbers == null) {
+            sequence.put(track, new int[] {number});
+        } else {
+            numbers = Arrays.copyOf(numbers, numbers.length + 1);
+            numbers[numbers.length - 1] = number;
+            sequence.put(track, numbers);
+        }
+    }
+
+    private void reclaim() {
+        if (next > 64 && live < next / 2) {
+            rebuild(entries(), 0);
+        }
+    }
+
+    private void add(int number, int delta) {
+        for (int i = number + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Live numbers below {@code number}. */
+    private int prefix(int number) {
+        int sum = 0;
+        for (int i = number; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** The live number at position {@code index}. */
+    private int select(int index) {
+        int position = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int probe = position + step;
+            if (probe < tree.length && tree[probe] <= remaining) {
+                position = probe;
+                remaining -= tree[probe];
+            }
+        }
+        return position;
+    }
+}
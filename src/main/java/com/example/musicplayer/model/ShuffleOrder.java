@@ -0,0 +1,190 @@
+package com.example.musicplayer.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shuffled play order over a playlist's tracks, generated lazily.
+ * <p>
+ * {@code order[0, generated)} is fixed: the play history up to the cursor,
+ * plus at most one track picked ahead by {@link #peekNext()}. The rest of the
+ * array is the pool still to be drawn from, one Fisher-Yates step per track.
+ * Next and previous are O(1) and allocation free. Adding a track puts it in
+ * the pool; removing one takes it out without reshuffling. A {@link SlotMap}
+ * from each track to its position makes selecting and removing a pool track
+ * O(1) without boxing; removing a played one shifts the history after it.
+ * Each track is held once.
+ */
+public class ShuffleOrder {
+    private final Random random;
+    private Track[] order = new Track[16];
+    // by track slot, a live track owns its slot
+    private final SlotMap positions = new SlotMap();
+    private int size;
+    private int generated;
+    private int cursor = -1;
+
+    public ShuffleOrder() {
+        this(new Random());
+    }
+
+    /** Deterministic order for a given seed and sequence of operations, e.g. for repeatable benchmarks. */
+    public ShuffleOrder(long seed) {
+        this(new Random(seed));
+    }
+
+    private ShuffleOrder(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Starts a new order over {@code tracks}, each taken once, beginning with
+     * {@code current} if it is not null.
+     */
+    public void reset(List<Track> tracks, Track current) {
+        if (order.length < tracks.size()) {
+            order = new Track[Math.max(16, tracks.size())];
+        } else {
+            Arrays.fill(order, null);
+        }
+        positions.clear();
+        size = 0;
+        for (Track track : tracks) {
+            if (positions.putIfAbsent(track.getSlot(), size)) {
+                order[size++] = track;
+            }
+        }
+        generated = 0;
+        cursor = -1;
+        if (current != null) {
+            setCurrent(current);
+        }
+    }
+
+    /** Puts {@code track} in the pool, unless it is already in the order. */
+    public void add(Track track) {
+        if (!positions.putIfAbsent(track.getSlot(), size)) {
+            return;
+        }
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        order[size++] = track;
+    }
+
+    public void remove(Track track) {
+        int position = positions.remove(track.getSlot());
+        if (position < 0) {
+            return;
+        }
+        int last = size - 1;
+        if (position >= generated) {
+            if (position != last) {
+                order[position] = order[last];
+                positions.set(order[position].getSlot(), position);
+            }
+        } else {
+            System.arraycopy(order, position + 1, order, position, last - position);
+            for (int i = position; i < last; i++) {
+                positions.set(order[i].getSlot(), i);
+            }
+            generated--;
+            if (cursor >= position) {
+                cursor--;
+            }
+        }
+        order[last] = null;
+        size = last;
+    }
+
+    public void clear() {
+        Arrays.fill(order, 0, size, null);
+        positions.clear();
+        size = 0;
+        generated = 0;
+        cursor = -1;
+    }
+
+    public Track current() {
+        return cursor >= 0 ? order[cursor] : null;
+    }
+
+    public Track next() {
+        if (size == 0) {
+            return null;
+        }
+        fixNext();
+        return order[++cursor];
+    }
+
+    /** The track {@link #next()} will return, fixing the pick without advancing. */
+    public Track peekNext() {
+        if (size == 0) {
+            return null;
+        }
+        fixNext();
+        return order[cursor + 1];
+    }
+
+    /** Steps back through the history; null when there is no earlier track. */
+    public Track prev() {
+        if (cursor <= 0) {
+            return null;
+        }
+        return order[--cursor];
+    }
+
+    /** Makes {@code track} current after an explicit selection. */
+    public void setCurrent(Track track) {
+        if (cursor >= 0 && order[cursor] == track) {
+            return;
+        }
+        int position = positions.get(track.getSlot());
+        if (position < 0) {
+            return;
+        }
+        if (position < generated) {
+            cursor = position;
+            return;
+        }
+        // drop a peeked pick back into the pool and draw the selected track instead
+        generated = cursor + 1;
+        swap(generated, position);
+        generated++;
+        cursor++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void fixNext() {
+        if (cursor + 1 >= size) {
+            startNewCycle();
+        }
+        if (cursor + 1 == generated) {
+            swap(generated, generated + random.nextInt(size - generated));
+            generated++;
+        }
+    }
+
+    /** Every track has been played: keep the current one and draw the rest again. */
+    private void startNewCycle() {
+        if (cursor >= 0 && size > 1) {
+            swap(0, cursor);
+            cursor = 0;
+        } else {
+            cursor = -1;
+        }
+        generated = cursor + 1;
+    }
+
+    private void swap(int i, int j) {
+        Track tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+        positions.set(order[i].getSlot(), i);
+        positions.set(order[j].getSlot(), j);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.musicplayer.model;
+
+import java.util.Arrays;
+
+/**
+ * Map from track slots to non-negative ints without boxing: open addressing
+ * over parallel arrays, slots stored plus one so zero marks a free cell.
+ * Lookups, updates of a present slot and removals never allocate.
+ */
+final class SlotMap {
+    private int[] keys = new int[32];
+    private int[] values = new int[32];
+    private int size;
+
+    /** The value of {@code slot}, or -1. */
+    int get(int slot) {
+        int mask = keys.length - 1;
+        for (int i = mix(slot) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == slot + 1) {
+                return values[i];
+            }
+        }
+        return -1;
+    }
+
+    /** Sets the value of {@code slot}; false if it was already present, and left as it was. */
+    boolean putIfAbsent(int slot, int value) {
+        int mask = keys.length - 1;
+        int i = mix(slot) & mask;
+        for (; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == slot + 1) {
+                return false;
+            }
+        }
+        keys[i] = slot + 1;
+        values[i] = value;
+        if (++size > keys.length / 2) {
+            grow();
+        }
+        return true;
+    }
+
+    /** Sets the value of {@code slot}, which must be present. */
+    void set(int slot, int value) {
+        int mask = keys.length - 1;
+        int i = mix(slot) & mask;
+        while (keys[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        values[i] = value;
+    }
+
+    /** Removes {@code slot} and returns its value, or -1 if it was not present. */
+    int remove(int slot) {
+        int mask = keys.length - 1;
+        for (int i = mix(slot) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == slot + 1) {
+                int value = values[i];
+                delete(i);
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Linear probing removal: later keys of the run move up so no lookup stops early. */
+    private void delete(int hole) {
+        int mask = keys.length - 1;
+        int i = hole;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = mix(keys[j] - 1) & mask;
+            boolean between = i <= j ? i < home && home <= j : i < home || home <= j;
+            if (!between) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        size--;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = mix(oldKeys[j] - 1) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int mix(int slot) {
+        int mixed = slot * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.musicplayer.model;
+
+/** One level of a playlist sort: a track field and a direction. */
+public final class SortKey {
+
+    public enum Field { ARTIST, TITLE, DURATION, PATH }
+
+    private final Field field;
+    private final boolean ascending;
+
+    private SortKey(Field field, boolean ascending) {
+        this.field = field;
+        this.ascending = ascending;
+    }
+
+    public static SortKey ascending(Field field) {
+        return new SortKey(field, true);
+    }
+
+    public static SortKey descending(Field field) {
+        return new SortKey(field, false);
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+}
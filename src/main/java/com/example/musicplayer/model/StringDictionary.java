@@ -0,0 +1,43 @@
+package com.example.musicplayer.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each distinct string a small integer code. Adding is synchronized;
+ * decoding is lock-free for codes that were handed to the reading thread
+ * through any happens-before edge (such as publishing the track that holds it).
+ */
+final class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] values = new String[64];
+    private int size;
+
+    /** Code of {@code value}, adding it if new; null maps to -1. */
+    synchronized int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current;
+        codes.put(value, size);
+        return size++;
+    }
+
+    String decode(int code) {
+        return code < 0 ? null : values[code];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
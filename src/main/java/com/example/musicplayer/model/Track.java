@@ -1,53 +1,81 @@
 // Track.java
 package com.example.musicplayer.model;
 
+/**
+ * A track in the library. The fields live in {@link TrackStore#shared()}; a
+ * Track is only a handle to its slot there, so identity and getters behave as
+ * before while the per-track heap stays small.
+ */
 public class Track {
-    private String title;
-    private String artist;
-    private String filePath;
-    private int duration; // в секундах
+    private static final TrackStore STORE = TrackStore.shared();
+
+    private final int slot;
 
     public Track(String title, String artist, String filePath, int duration) {
-        this.title = title;
-        this.artist = artist;
-        this.filePath = filePath;
-        this.duration = duration;
+        this.slot = STORE.add(title, artist, filePath, duration);
+    }
+
+    /** Stable identifier, never shared with another track of the running application, even one freed earlier. */
+    public long getId() {
+        return (long) STORE.generation(slot) << 32 | slot + 1L;
     }
 
     public String getTitle() {
-        return title;
+        return STORE.title(slot);
     }
 
     public void setTitle(String title) {
-        this.title = title;
+        STORE.setTitle(slot, title);
     }
 
     public String getArtist() {
-        return artist;
+        return STORE.artist(slot);
     }
 
     public void setArtist(String artist) {
-        this.artist = artist;
+        STORE.setArtist(slot, artist);
     }
 
     public String getFilePath() {
-        return filePath;
+        return STORE.location(slot);
     }
 
     public void setFilePath(String filePath) {
-        this.filePath = filePath;
+        STORE.setLocation(slot, filePath);
     }
 
     public int getDuration() {
-        return duration;
+        return STORE.duration(slot); // в секундах
     }
 
     public void setDuration(int duration) {
-        this.duration = duration;
+        STORE.setDuration(slot, duration);
+    }
+
+    /** When the track was first added to the library, in epoch milliseconds (minute precision). */
+    public long getAddedAt() {
+        return STORE.addedAt(slot);
+    }
+
+    public void setAddedAt(long addedAt) {
+        STORE.setAddedAt(slot, addedAt);
+    }
+
+    public boolean isResolved() {
+        return STORE.isResolved(slot); // false, пока теги не прочитаны
+    }
+
+    public void setResolved(boolean resolved) {
+        STORE.setResolved(slot, resolved);
+    }
+
+    /** Row of this track in {@link TrackStore#shared()}, for scans over the store's columns. */
+    public int getSlot() {
+        return slot;
     }
 
     @Override
     public String toString() {
-        return title + " - " + artist;
+        return getTitle() + " - " + getArtist();
     }
-}
\ No newline at end of file
+}
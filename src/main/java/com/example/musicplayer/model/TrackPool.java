@@ -0,0 +1,162 @@
+package com.example.musicplayer.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.function.Function;
+
+/**
+ * One {@link Track} per location, shared by every playlist that holds it, so a
+ * file in the library and in five playlists is stored once and edits to it show
+ * everywhere. Open addressing over a table of tracks with their location hashes
+ * beside them; a lookup compares locations in the {@link TrackStore} only on a
+ * hash match. Tracks are held weakly: once no playlist holds a track, its entry
+ * goes and its slot in the store is freed for the next one. Safe to use from
+ * any thread.
+ */
+public final class TrackPool {
+    private static final TrackPool SHARED = new TrackPool();
+
+    private final TrackStore store = TrackStore.shared();
+    private final ReferenceQueue<Track> collected = new ReferenceQueue<>();
+    private Entry[] entries = new Entry[1024];
+    private int[] hashes = new int[1024];
+    private int size;
+
+    private static final class Entry extends WeakReference<Track> {
+        final int slot;
+        final int hash;
+
+        Entry(Track track, int hash, ReferenceQueue<Track> queue) {
+            super(track, queue);
+            this.slot = track.getSlot();
+            this.hash = hash;
+        }
+    }
+
+    private TrackPool() {
+    }
+
+    /** The pool all loaders intern into. */
+    public static TrackPool shared() {
+        return SHARED;
+    }
+
+    /** The pooled track playing {@code location}, or null. */
+    public synchronized Track get(String location) {
+        expunge();
+        int hash = location.hashCode();
+        int mask = entries.length - 1;
+        for (int i = mix(hash) & mask; entries[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && store.locationEquals(entries[i].slot, location)) {
+                Track track = entries[i].get();
+                if (track != null) {
+                    return track;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The pooled track playing {@code location}, or one made by {@code create}
+     * and pooled if there is none. Nothing is made for a location already
+     * pooled, so racing loaders never leave a track behind in the store.
+     */
+    public synchronized Track get(String location, Function<String, Track> create) {
+        Track pooled = get(location);
+        if (pooled != null) {
+            return pooled;
+        }
+        Track track = create.apply(location);
+        insert(track, location.hashCode());
+        return track;
+    }
+
+    /**
+     * The pooled track with the location of {@code track}; {@code track} itself
+     * if there was none, which is then pooled.
+     */
+    public synchronized Track intern(Track track) {
+        String location = track.getFilePath();
+        Track pooled = get(location);
+        if (pooled != null) {
+            return pooled;
+        }
+        insert(track, location.hashCode());
+        return track;
+    }
+
+    /** Pooled tracks, including ones just collected and not yet noticed. */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void insert(Track track, int hash) {
+        int mask = entries.length - 1;
+        int i = mix(hash) & mask;
+        while (entries[i] != null) {
+            i = (i + 1) & mask;
+        }
+        entries[i] = new Entry(track, hash, collected);
+        hashes[i] = hash;
+        if (++size > entries.length / 2) {
+            grow();
+        }
+    }
+
+    /** Drops the entries of collected tracks and frees their slots. */
+    private void expunge() {
+        Entry gone;
+        while ((gone = (Entry) collected.poll()) != null) {
+            int mask = entries.length - 1;
+            for (int i = mix(gone.hash) & mask; entries[i] != null; i = (i + 1) & mask) {
+                if (entries[i] == gone) {
+                    remove(i);
+                    break;
+                }
+            }
+            store.free(gone.slot);
+        }
+    }
+
+    /** Linear probing removal: later entries of the run move up so no lookup stops early. */
+    private void remove(int hole) {
+        int mask = entries.length - 1;
+        int i = hole;
+        for (int j = (i + 1) & mask; entries[j] != null; j = (j + 1) & mask) {
+            int home = mix(hashes[j]) & mask;
+            boolean between = i <= j ? i < home && home <= j : i < home || home <= j;
+            if (!between) {
+                entries[i] = entries[j];
+                hashes[i] = hashes[j];
+                i = j;
+            }
+        }
+        entries[i] = null;
+        size--;
+    }
+
+    private void grow() {
+        Entry[] oldEntries = entries;
+        int[] oldHashes = hashes;
+        entries = new Entry[oldEntries.length * 2];
+        hashes = new int[oldEntries.length * 2];
+        int mask = entries.length - 1;
+        for (int j = 0; j < oldEntries.length; j++) {
+            if (oldEntries[j] != null) {
+                int i = mix(oldHashes[j]) & mask;
+                while (entries[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                entries[i] = oldEntries[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        // locations share long prefixes, spread the low bits
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.musicplayer.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Stable multi-key sort of large track lists, meant to run off the FX thread.
+ * Every string is collated once into a precomputed key (artists and
+ * directories once per distinct value), keys are turned into dense integer
+ * ranks, and the levels are merged by sorting primitive longs, in parallel.
+ * Apply the result with {@link Playlist#applyOrder(List)}.
+ */
+public final class TrackSorter {
+    private static final int PARALLEL_THRESHOLD = 8192;
+    private static final int INDEX_BITS = 21;
+    /** Ranks and indexes share a long, a pair of ranks takes twice the index bits. */
+    private static final int MAX_TRACKS = (1 << INDEX_BITS) - 1;
+
+    private TrackSorter() {
+    }
+
+    /** Returns {@code tracks} sorted by {@code keys}; ties keep their original order. */
+    public static Track[] sort(Track[] tracks, List<SortKey> keys, Locale locale) {
+        if (tracks.length > MAX_TRACKS) {
+            throw new IllegalArgumentException("Too many tracks to sort: " + tracks.length);
+        }
+        CollationTable collator = CollationTable.forLocale(locale);
+
+        // fold the levels into one dense rank, path counts as directory then file name
+        int[] combined = new int[tracks.length];
+        boolean first = true;
+        for (SortKey key : keys) {
+            for (int[] column : columns(tracks, key, collator)) {
+                int[] ranks = denseRanks(column, key.isAscending());
+                if (first) {
+                    combined = ranks;
+                    first = false;
+                    continue;
+                }
+                long[] pairs = new long[tracks.length];
+                for (int i = 0; i < pairs.length; i++) {
+                    pairs[i] = (long) combined[i] * tracks.length + ranks[i];
+                }
+                combined = denseRanks(pairs);
+            }
+        }
+
+        // counting sort by the combined rank keeps ties in their original order
+        int[] starts = new int[tracks.length + 1];
+        for (int rank : combined) {
+            starts[rank + 1]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        Track[] sorted = new Track[tracks.length];
+        for (int i = 0; i < tracks.length; i++) {
+            sorted[starts[combined[i]]++] = tracks[i];
+        }
+        return sorted;
+    }
+
+    private static int[][] columns(Track[] tracks, SortKey key, CollationTable collator) {
+        switch (key.getField()) {
+            case ARTIST:
+                return new int[][]{dictionaryRanks(tracks, true, collator)};
+            case TITLE:
+                return new int[][]{stringRanks(range(tracks.length).mapToObj(i -> tracks[i].getTitle())
+                        .toArray(String[]::new), collator)};
+            case DURATION:
+                return new int[][]{Arrays.stream(tracks).mapToInt(Track::getDuration).toArray()};
+            case PATH:
+                return new int[][]{dictionaryRanks(tracks, false, collator),
+                        stringRanks(range(tracks.length).mapToObj(i -> fileName(tracks[i]))
+                                .toArray(String[]::new), collator)};
+            default:
+                throw new IllegalArgumentException(key.getField().toString());
+        }
+    }
+
+    /** Dense ranks of {@code column}, from the largest value down when descending. */
+    private static int[] denseRanks(int[] column, boolean ascending) {
+        long[] values = new long[column.length];
+        for (int i = 0; i < column.length; i++) {
+            values[i] = ascending ? (long) column[i] - Integer.MIN_VALUE : (long) Integer.MAX_VALUE - column[i];
+        }
+        return denseRanks(values);
+    }
+
+    /**
+     * Dense ranks of non-negative values below 2^42. Value and index are packed
+     * into one long so a primitive sort does the work without any boxing.
+     */
+    private static int[] denseRanks(long[] values) {
+        long[] packed = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            packed[i] = values[i] << INDEX_BITS | i;
+        }
+        Arrays.parallelSort(packed);
+
+        int[] ranks = new int[values.length];
+        int rank = -1;
+        long previous = -1;
+        for (long entry : packed) {
+            long value = entry >>> INDEX_BITS;
+            if (value != previous) {
+                rank++;
+                previous = value;
+            }
+            ranks[(int) (entry & MAX_TRACKS)] = rank;
+        }
+        return ranks;
+    }
+
+    /** Ranks of the artist or directory, collating each distinct value once. */
+    private static int[] dictionaryRanks(Track[] tracks, boolean artist, CollationTable collator) {
+        TrackStore store = TrackStore.shared();
+        int[] codes = new int[tracks.length];
+        int maxCode = -1;
+        for (int i = 0; i < tracks.length; i++) {
+            int slot = tracks[i].getSlot();
+            codes[i] = artist ? store.artistCode(slot) : store.directoryCode(slot);
+            maxCode = Math.max(maxCode, codes[i]);
+        }
+
+        // distinct index per code, slot 0 is the null value
+        int[] distinct = new int[maxCode + 2];
+        Arrays.fill(distinct, -1);
+        String[] values = new String[Math.min(tracks.length, maxCode + 2)];
+        int count = 0;
+        for (int i = 0; i < tracks.length; i++) {
+            int code = codes[i] + 1;
+            if (distinct[code] == -1) {
+                int slot = tracks[i].getSlot();
+                distinct[code] = count;
+                values[count++] = artist ? store.artist(slot) : directory(store.location(slot));
+            }
+        }
+        int[] valueRanks = stringRanks(Arrays.copyOf(values, count), collator);
+
+        int[] ranks = new int[tracks.length];
+        for (int i = 0; i < tracks.length; i++) {
+            ranks[i] = valueRanks[distinct[codes[i] + 1]];
+        }
+        return ranks;
+    }
+
+    /** Dense ranks of {@code values} in collation order; equal values share a rank. */
+    private static int[] stringRanks(String[] values, CollationTable collator) {
+        String[] keys = range(values.length)
+                .mapToObj(i -> collator.key(values[i]))
+                .toArray(String[]::new);
+
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.parallelSort(order, (a, b) -> keys[a].compareTo(keys[b]));
+
+        int[] ranks = new int[keys.length];
+        int rank = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i > 0 && !keys[order[i]].equals(keys[order[i - 1]])) {
+                rank++;
+            }
+            ranks[order[i]] = rank;
+        }
+        return ranks;
+    }
+
+    private static IntStream range(int length) {
+        IntStream range = IntStream.range(0, length);
+        return length >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+
+    private static String directory(String location) {
+        return location == null ? null : location.substring(0, location.lastIndexOf('/') + 1);
+    }
+
+    private static String fileName(Track track) {
+        String location = track.getFilePath();
+        return location == null ? null : location.substring(location.lastIndexOf('/') + 1);
+    }
+}
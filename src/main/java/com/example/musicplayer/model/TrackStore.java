@@ -0,0 +1,457 @@
+package com.example.musicplayer.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Column storage behind {@link Track}. Each track is a slot: artist and the
+ * directory part of the location are dictionary codes, title and file name are
+ * UTF-8 bytes in a shared arena, duration, time added and flags are
+ * primitives. A track costs 33 bytes of columns plus its text, and {@link Track} itself is only
+ * a slot number.
+ * <p>
+ * Columns are allocated in fixed pages that never move, so reads need no lock:
+ * a thread that received a {@link Track} through any happens-before edge sees
+ * its data. Writes are synchronized. Text replaced by a setter stays in the
+ * arena as garbage, so setters keep the old text when the value is unchanged.
+ * The {@link TrackPool} frees the slot of a track nobody holds any more; the
+ * next track added takes it over, with its text written in place when it fits.
+ */
+public final class TrackStore {
+    private static final TrackStore SHARED = new TrackStore();
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int NONE = -1;
+
+    private static final byte RESOLVED = 1;
+    private static final long MINUTE = 60_000;
+
+    private final StringDictionary artists = new StringDictionary();
+    private final StringDictionary directories = new StringDictionary();
+
+    private volatile Page[] pages = new Page[16];
+    private int size;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // text arena: addresses are chunk << CHUNK_BITS | offset, each entry is a varint length plus bytes
+    private volatile byte[][] chunks = new byte[16][];
+    private int chunkCount;
+    private int openChunk = NONE;
+    private int chunkFill;
+    private long arenaBytes;
+
+    private static final class Page {
+        final int[] title = new int[PAGE_SIZE];
+        final int[] fileName = new int[PAGE_SIZE];
+        final int[] artist = new int[PAGE_SIZE];
+        final int[] directory = new int[PAGE_SIZE];
+        final int[] duration = new int[PAGE_SIZE];
+        // minutes since the epoch
+        final int[] added = new int[PAGE_SIZE];
+        final byte[] flags = new byte[PAGE_SIZE];
+        // times the slot was handed out again after being freed
+        final int[] generation = new int[PAGE_SIZE];
+    }
+
+    private TrackStore() {
+    }
+
+    /** The store all {@link Track}s live in. */
+    public static TrackStore shared() {
+        return SHARED;
+    }
+
+    synchronized int add(String title, String artist, String location, int duration) {
+        if (freeCount > 0) {
+            // no handle to a freed slot is left, its text can be overwritten
+            int slot = freeSlots[--freeCount];
+            Page page = page(slot);
+            int row = row(slot);
+            page.title[row] = putText(title, page.title[row]);
+            page.artist[row] = artists.encode(artist);
+            writeLocation(page, row, location, page.fileName[row]);
+            fill(page, row, duration);
+            page.generation[row]++;
+            return slot;
+        }
+        int slot = size;
+        int pageIndex = slot >>> PAGE_BITS;
+        Page[] current = pages;
+        if (pageIndex == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        if (current[pageIndex] == null) {
+            current[pageIndex] = new Page();
+        }
+        pages = current;
+        size++;
+
+        Page page = current[pageIndex];
+        int row = slot & (PAGE_SIZE - 1);
+        page.title[row] = putText(title, NONE);
+        page.artist[row] = artists.encode(artist);
+        writeLocation(page, row, location, NONE);
+        fill(page, row, duration);
+        return slot;
+    }
+
+    private static void fill(Page page, int row, int duration) {
+        page.duration[row] = duration;
+        page.added[row] = (int) (System.currentTimeMillis() / MINUTE);
+        page.flags[row] = RESOLVED;
+    }
+
+    /** Gives {@code slot} back once no {@link Track} refers to it. */
+    synchronized void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    public String title(int slot) {
+        return text(page(slot).title[row(slot)]);
+    }
+
+    public String artist(int slot) {
+        return artists.decode(page(slot).artist[row(slot)]);
+    }
+
+    /** Dictionary code of the artist; equal artists have equal codes. */
+    public int artistCode(int slot) {
+        return page(slot).artist[row(slot)];
+    }
+
+    /** Whether the title contains {@code needle}, ignoring case as {@link String#toLowerCase} with the root locale does. */
+    public boolean titleContains(int slot, String needle) {
+        int address = page(slot).title[row(slot)];
+        if (address == NONE) {
+            return false;
+        }
+        int matched = asciiContains("", address, needle);
+        if (matched >= 0) {
+            return matched == 1;
+        }
+        return text(address).toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    /** Whether the location contains {@code needle}, ignoring case like {@link #titleContains}. */
+    public boolean locationContains(int slot, String needle) {
+        Page page = page(slot);
+        int row = row(slot);
+        if (page.fileName[row] == NONE) {
+            return false;
+        }
+        int matched = asciiContains(directories.decode(page.directory[row]), page.fileName[row], needle);
+        if (matched >= 0) {
+            return matched == 1;
+        }
+        return location(slot).toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    /** Whether the location is {@code location}, compared without decoding it. */
+    public boolean locationEquals(int slot, String location) {
+        Page page = page(slot);
+        int row = row(slot);
+        int address = page.fileName[row];
+        if (address == NONE) {
+            return location == null;
+        }
+        String directory = directories.decode(page.directory[row]);
+        if (location == null || !location.startsWith(directory)) {
+            return false;
+        }
+        byte[] chunk = chunks[address >>> CHUNK_BITS];
+        int pos = address & (CHUNK_SIZE - 1);
+        int length = readLength(chunk, pos);
+        pos += varIntSize(length);
+        // ASCII compares byte for char; anything else is encoded first
+        int offset = directory.length();
+        if (location.length() - offset == length) {
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                char c = location.charAt(offset + i);
+                if (c >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+                if (chunk[pos + i] != c) {
+                    return false;
+                }
+            }
+            if (ascii) {
+                return true;
+            }
+        }
+        byte[] bytes = location.substring(offset).getBytes(StandardCharsets.UTF_8);
+        return bytes.length == length && Arrays.equals(chunk, pos, pos + length, bytes, 0, length);
+    }
+
+    public String location(int slot) {
+        Page page = page(slot);
+        int row = row(slot);
+        String fileName = text(page.fileName[row]);
+        if (fileName == null) {
+            return null;
+        }
+        String directory = directories.decode(page.directory[row]);
+        return directory.isEmpty() ? fileName : directory.concat(fileName);
+    }
+
+    /** Dictionary code of the location up to and including its last '/'. */
+    public int directoryCode(int slot) {
+        return page(slot).directory[row(slot)];
+    }
+
+    public int duration(int slot) {
+        return page(slot).duration[row(slot)];
+    }
+
+    /** When the track was added to the library, in epoch milliseconds rounded down to the minute. */
+    public long addedAt(int slot) {
+        return page(slot).added[row(slot)] * MINUTE;
+    }
+
+    /** How often {@code slot} was reused; with the slot it tells tracks of one run apart. */
+    public int generation(int slot) {
+        return page(slot).generation[row(slot)];
+    }
+
+    public boolean isResolved(int slot) {
+        return (page(slot).flags[row(slot)] & RESOLVED) != 0;
+    }
+
+    synchronized void setTitle(int slot, String title) {
+        Page page = page(slot);
+        int row = row(slot);
+        if (!textEquals(page.title[row], title)) {
+            page.title[row] = putText(title, NONE);
+        }
+    }
+
+    synchronized void setArtist(int slot, String artist) {
+        page(slot).artist[row(slot)] = artists.encode(artist);
+    }
+
+    synchronized void setLocation(int slot, String location) {
+        if (!locationEquals(slot, location)) {
+            writeLocation(page(slot), row(slot), location, NONE);
+        }
+    }
+
+    synchronized void setDuration(int slot, int duration) {
+        page(slot).duration[row(slot)] = duration;
+    }
+
+    synchronized void setAddedAt(int slot, long epochMillis) {
+        page(slot).added[row(slot)] = (int) (epochMillis / MINUTE);
+    }
+
+    synchronized void setResolved(int slot, boolean resolved) {
+        Page page = page(slot);
+        int row = row(slot);
+        page.flags[row] = (byte) (resolved ? page.flags[row] | RESOLVED : page.flags[row] & ~RESOLVED);
+    }
+
+    /** Slots handed out so far, including freed ones waiting for reuse. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Slots held by tracks. */
+    public synchronized int liveCount() {
+        return size - freeCount;
+    }
+
+    public int artistCount() {
+        return artists.size();
+    }
+
+    public int directoryCount() {
+        return directories.size();
+    }
+
+    /** Approximate heap used by columns and text, excluding dictionaries. */
+    public synchronized long memoryUsage() {
+        long pageBytes = (long) PAGE_SIZE * (7 * Integer.BYTES + 1);
+        long chunkBytes = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            chunkBytes += chunks[i].length;
+        }
+        return ((size + PAGE_SIZE - 1) >>> PAGE_BITS) * pageBytes + chunkBytes;
+    }
+
+    /** Bytes of text written so far, including text that was replaced since. */
+    public synchronized long textBytes() {
+        return arenaBytes;
+    }
+
+    private void writeLocation(Page page, int row, String location, int reusable) {
+        if (location == null) {
+            page.directory[row] = NONE;
+            page.fileName[row] = NONE;
+            return;
+        }
+        int split = location.lastIndexOf('/') + 1;
+        page.directory[row] = directories.encode(location.substring(0, split));
+        page.fileName[row] = putText(location.substring(split), reusable);
+    }
+
+    private Page page(int slot) {
+        return pages[slot >>> PAGE_BITS];
+    }
+
+    private static int row(int slot) {
+        return slot & (PAGE_SIZE - 1);
+    }
+
+    /**
+     * Writes {@code value} and returns its address. {@code reusable} is the
+     * address of text no reader can reach any more, or NONE; the value goes
+     * there if it fits.
+     */
+    private int putText(String value, int reusable) {
+        if (value == null) {
+            return NONE;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        int needed = varIntSize(length) + length;
+        if (reusable != NONE) {
+            byte[] chunk = chunks[reusable >>> CHUNK_BITS];
+            int pos = reusable & (CHUNK_SIZE - 1);
+            int old = readLength(chunk, pos);
+            if (needed <= varIntSize(old) + old) {
+                writeText(chunk, pos, bytes);
+                return reusable;
+            }
+        }
+
+        byte[][] current = chunks;
+        if (chunkCount + 1 >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        int chunk;
+        int offset;
+        if (needed > CHUNK_SIZE) {
+            // oversized text gets a chunk of its own, the open chunk stays open
+            chunk = chunkCount++;
+            current[chunk] = new byte[needed];
+            offset = 0;
+        } else {
+            if (openChunk == NONE || chunkFill + needed > CHUNK_SIZE) {
+                openChunk = chunkCount++;
+                current[openChunk] = new byte[CHUNK_SIZE];
+                chunkFill = 0;
+            }
+            chunk = openChunk;
+            offset = chunkFill;
+            chunkFill += needed;
+        }
+        writeText(current[chunk], offset, bytes);
+        chunks = current;
+        arenaBytes += needed;
+        return chunk << CHUNK_BITS | offset;
+    }
+
+    private static void writeText(byte[] target, int pos, byte[] bytes) {
+        for (int rest = bytes.length; ; rest >>>= 7) {
+            if (rest < 0x80) {
+                target[pos++] = (byte) rest;
+                break;
+            }
+            target[pos++] = (byte) (rest & 0x7F | 0x80);
+        }
+        System.arraycopy(bytes, 0, target, pos, bytes.length);
+    }
+
+    private static int readLength(byte[] chunk, int pos) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = chunk[pos++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length;
+            }
+        }
+    }
+
+    private String text(int address) {
+        if (address == NONE) {
+            return null;
+        }
+        byte[] chunk = chunks[address >>> CHUNK_BITS];
+        int pos = address & (CHUNK_SIZE - 1);
+        int length = readLength(chunk, pos);
+        return new String(chunk, pos + varIntSize(length), length, StandardCharsets.UTF_8);
+    }
+
+    private boolean textEquals(int address, String value) {
+        if (address == NONE || value == null) {
+            return address == NONE && value == null;
+        }
+        byte[] chunk = chunks[address >>> CHUNK_BITS];
+        int pos = address & (CHUNK_SIZE - 1);
+        int length = readLength(chunk, pos);
+        pos += varIntSize(length);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length == length && Arrays.equals(chunk, pos, pos + length, bytes, 0, length);
+    }
+
+    /**
+     * Case-insensitive search of {@code needle} (lower case) in {@code prefix}
+     * followed by the text at {@code address}, without decoding: 1 if found,
+     * 0 if not, -1 if either holds non-ASCII text and has to be decoded.
+     */
+    private int asciiContains(String prefix, int address, String needle) {
+        byte[] chunk = chunks[address >>> CHUNK_BITS];
+        int pos = address & (CHUNK_SIZE - 1);
+        int length = readLength(chunk, pos);
+        pos += varIntSize(length);
+        for (int i = 0; i < length; i++) {
+            if (chunk[pos + i] < 0) {
+                return -1;
+            }
+        }
+        int prefixLength = prefix.length();
+        for (int i = 0; i < prefixLength; i++) {
+            if (prefix.charAt(i) >= 0x80) {
+                return -1;
+            }
+        }
+        int total = prefixLength + length;
+        int last = total - needle.length();
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < needle.length()) {
+                int at = start + i;
+                int c = at < prefixLength ? prefix.charAt(at) : chunk[pos + at - prefixLength];
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+                if (c != needle.charAt(i)) {
+                    break;
+                }
+                i++;
+            }
+            if (i == needle.length()) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while (value >= 0x80) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
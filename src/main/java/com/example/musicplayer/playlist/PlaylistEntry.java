@@ -0,0 +1,42 @@
+package com.example.musicplayer.playlist;
+
+/**
+ * One entry of a playlist file. Title, artist and duration are only known when
+ * the file carried them ({@code #EXTINF} or PLS {@code TitleN}/{@code LengthN}).
+ */
+public class PlaylistEntry {
+    public static final int UNKNOWN_DURATION = -1;
+
+    private final String location;
+    private final String title;
+    private final String artist;
+    private final int duration;
+
+    public PlaylistEntry(String location, String title, String artist, int duration) {
+        this.location = location;
+        this.title = title;
+        this.artist = artist;
+        this.duration = duration;
+    }
+
+    /** URI of the media, as accepted by {@code javafx.scene.media.Media}. */
+    public String getLocation() {
+        return location;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public boolean hasMetadata() {
+        return title != null && duration != UNKNOWN_DURATION;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.musicplayer.playlist;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum PlaylistFormat {
+    M3U(StandardCharsets.UTF_8),
+    M3U8(StandardCharsets.UTF_8),
+    PLS(StandardCharsets.UTF_8);
+
+    private final Charset charset;
+
+    PlaylistFormat(Charset charset) {
+        this.charset = charset;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public static PlaylistFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".pls")) {
+            return PLS;
+        }
+        if (name.endsWith(".m3u8")) {
+            return M3U8;
+        }
+        return M3U;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.musicplayer.playlist;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for M3U, extended M3U, M3U8 and PLS files. Entries are
+ * handed to the consumer as they are read, so memory use does not depend on
+ * the size of the playlist.
+ */
+public final class PlaylistReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private PlaylistReader() {
+    }
+
+    public static void read(Path file, Consumer<PlaylistEntry> sink) throws IOException {
+        PlaylistFormat format = PlaylistFormat.of(file);
+        Path baseDir = file.toAbsolutePath().getParent();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), format.getCharset()), BUFFER_SIZE)) {
+            if (format == PlaylistFormat.PLS) {
+                readPls(reader, baseDir, sink);
+            } else {
+                readM3u(reader, baseDir, sink);
+            }
+        }
+    }
+
+    private static void readM3u(BufferedReader reader, Path baseDir, Consumer<PlaylistEntry> sink) throws IOException {
+        String title = null;
+        String artist = null;
+        int duration = PlaylistEntry.UNKNOWN_DURATION;
+
+        String line;
+        boolean first = true;
+        while ((line = reader.readLine()) != null) {
+            if (first) {
+                line = stripBom(line);
+                first = false;
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith("#")) {
+                if (line.regionMatches(true, 0, "#EXTINF:", 0, 8)) {
+                    int comma = line.indexOf(',', 8);
+                    duration = parseDuration(comma < 0 ? line.substring(8) : line.substring(8, comma));
+                    String display = comma < 0 ? "" : line.substring(comma + 1).trim();
+                    int dash = display.indexOf(" - ");
+                    if (dash > 0) {
+                        artist = display.substring(0, dash).trim();
+                        title = display.substring(dash + 3).trim();
+                    } else {
+                        artist = null;
+                        title = display.isEmpty() ? null : display;
+                    }
+                }
+                continue;
+            }
+
+            String location = resolve(baseDir, line);
+            if (location != null) {
+                sink.accept(new PlaylistEntry(location, title, artist, duration));
+            }
+            title = null;
+            artist = null;
+            duration = PlaylistEntry.UNKNOWN_DURATION;
+        }
+    }
+
+    private static void readPls(BufferedReader reader, Path baseDir, Consumer<PlaylistEntry> sink) throws IOException {
+        int current = -1;
+        String location = null;
+        String title = null;
+        int duration = PlaylistEntry.UNKNOWN_DURATION;
+
+        String line;
+        boolean first = true;
+        while ((line = reader.readLine()) != null) {
+            if (first) {
+                line = stripBom(line);
+                first = false;
+            }
+            int eq = line.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String key = line.substring(0, eq).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(eq + 1).trim();
+
+            String field;
+            if (key.startsWith("file")) {
+                field = "file";
+            } else if (key.startsWith("title")) {
+                field = "title";
+            } else if (key.startsWith("length")) {
+                field = "length";
+            } else {
+                continue;
+            }
+            int index;
+            try {
+                index = Integer.parseInt(key.substring(field.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            // PLS groups FileN/TitleN/LengthN together, so an entry is complete once N changes
+            if (index != current) {
+                emitPls(location, title, duration, sink);
+                current = index;
+                location = null;
+                title = null;
+                duration = PlaylistEntry.UNKNOWN_DURATION;
+            }
+            switch (field) {
+                case "file":
+                    location = resolve(baseDir, value);
+                    break;
+                case "title":
+                    title = value.isEmpty() ? null : value;
+                    break;
+                default:
+                    duration = parseDuration(value);
+                    break;
+            }
+        }
+        emitPls(location, title, duration, sink);
+    }
+
+    private static void emitPls(String location, String display, int duration, Consumer<PlaylistEntry> sink) {
+        if (location == null) {
+            return;
+        }
+        String artist = null;
+        String title = display;
+        if (display != null) {
+            int dash = display.indexOf(" - ");
+            if (dash > 0) {
+                artist = display.substring(0, dash).trim();
+                title = display.substring(dash + 3).trim();
+            }
+        }
+        sink.accept(new PlaylistEntry(location, title, artist, duration));
+    }
+
+    private static int parseDuration(String value) {
+        try {
+            int seconds = Integer.parseInt(value.trim());
+            return seconds < 0 ? PlaylistEntry.UNKNOWN_DURATION : seconds;
+        } catch (NumberFormatException e) {
+            return PlaylistEntry.UNKNOWN_DURATION;
+        }
+    }
+
+    /** Turns a playlist line (URI, absolute or relative path) into a URI string. */
+    static String resolve(Path baseDir, String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        int colon = value.indexOf(':');
+        // "C:\..." is a path, "file:/..." or "http://..." is a URI
+        if (colon > 1 && value.substring(0, colon).chars().allMatch(Character::isLetter)) {
+            try {
+                return URI.create(value).toString();
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        try {
+            Path path = baseDir != null ? baseDir.resolve(value) : Path.of(value);
+            return path.normalize().toUri().toString();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static String stripBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+}
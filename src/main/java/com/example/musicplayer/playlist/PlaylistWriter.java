@@ -0,0 +1,96 @@
+package com.example.musicplayer.playlist;
+
+import com.example.musicplayer.model.Track;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes extended M3U/M3U8 or PLS. Every entry carries title, artist and
+ * duration so that loading the file back needs no tag I/O, except tracks whose
+ * tags were not read yet: they get only their location (and length -1 in PLS),
+ * so their placeholder names are not read back as tags.
+ */
+public final class PlaylistWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private PlaylistWriter() {
+    }
+
+    public static void write(Path file, Iterable<Track> tracks) throws IOException {
+        PlaylistFormat format = PlaylistFormat.of(file);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(temp), format.getCharset()), BUFFER_SIZE)) {
+            if (format == PlaylistFormat.PLS) {
+                writePls(writer, tracks);
+            } else {
+                writeM3u(writer, tracks);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeM3u(Writer writer, Iterable<Track> tracks) throws IOException {
+        writer.write("#EXTM3U\n");
+        for (Track track : tracks) {
+            if (!track.isResolved()) {
+                writer.write(location(track.getFilePath()));
+                writer.write('\n');
+                continue;
+            }
+            writer.write("#EXTINF:");
+            writer.write(Integer.toString(track.getDuration()));
+            writer.write(',');
+            writer.write(oneLine(track.getArtist()));
+            writer.write(" - ");
+            writer.write(oneLine(track.getTitle()));
+            writer.write('\n');
+            writer.write(location(track.getFilePath()));
+            writer.write('\n');
+        }
+    }
+
+    private static void writePls(Writer writer, Iterable<Track> tracks) throws IOException {
+        writer.write("[playlist]\n");
+        int index = 0;
+        for (Track track : tracks) {
+            index++;
+            writer.write("File" + index + "=" + location(track.getFilePath()) + "\n");
+            if (!track.isResolved()) {
+                writer.write("Length" + index + "=-1\n");
+                continue;
+            }
+            writer.write("Title" + index + "=" + oneLine(track.getArtist()) + " - " + oneLine(track.getTitle()) + "\n");
+            writer.write("Length" + index + "=" + track.getDuration() + "\n");
+        }
+        writer.write("NumberOfEntries=" + index + "\n");
+        writer.write("Version=2\n");
+    }
+
+    /** Local files are written as plain paths, which every player understands. */
+    private static String location(String uri) {
+        if (uri.startsWith("file:")) {
+            try {
+                return Paths.get(URI.create(uri)).toString();
+            } catch (IllegalArgumentException e) {
+                return uri;
+            }
+        }
+        return uri;
+    }
+
+    private static String oneLine(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('\n', ' ').replace('\r', ' ');
+    }
+}
@@ -0,0 +1,459 @@
+package com.example.musicplayer.remote;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * WebSocket clients of the remote API, served by one selector thread. The
+ * player only swaps in its newest state with {@link #publish}; once per
+ * {@link #TICK_MILLIS} the thread encodes that state into a single frame and
+ * hands every client a read-only view of it, so a hundred clients cost one
+ * encoding and no copies. A client that cannot keep up is never queued more
+ * than the newest state: a frame not yet started is replaced, which also bounds
+ * what a stalled client holds on to.
+ */
+final class EventHub {
+    static final long TICK_MILLIS = 100;
+    static final int MAX_CLIENTS = 1000;
+    private static final long HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+    private static final int MAX_REQUEST_BYTES = 4096;
+    // clients only send control frames, whose payload is at most 125 bytes
+    private static final int MAX_FRAME_BYTES = 256;
+    private static final int MAX_CONTROL_FRAMES = 16;
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Predicate<Request> authorizer;
+    private final Runnable sampler;
+    private final long sampleMillis;
+    private final Thread thread;
+    private final AtomicReference<String> published = new AtomicReference<>();
+    private final List<Client> clients = new ArrayList<>();
+    private volatile int openClients;
+    // selector thread only
+    private String sent;
+    private ByteBuffer frame;
+    private long lastSample;
+
+    /** What a client asked for in its upgrade request, for {@code authorizer} to check. */
+    static final class Request {
+        final String target;
+        final String host;
+        final String origin;
+
+        Request(String target, String host, String origin) {
+            this.target = target;
+            this.host = host;
+            this.origin = origin;
+        }
+    }
+
+    /**
+     * Listens on {@code address}. While any client is connected, {@code sampler}
+     * runs on the selector thread every {@code sampleMillis} so the state it
+     * publishes can advance (the playback position) without events.
+     */
+    EventHub(InetSocketAddress address, Predicate<Request> authorizer, Runnable sampler, long sampleMillis)
+            throws IOException {
+        this.authorizer = authorizer;
+        this.sampler = sampler;
+        this.sampleMillis = sampleMillis;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+        thread = new Thread(this::run, "remote-events");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /** Clients past the handshake. */
+    int getClientCount() {
+        return openClients;
+    }
+
+    /** Makes {@code json} the state sent on the next tick; any thread, never blocks. */
+    void publish(String json) {
+        published.set(json);
+    }
+
+    void close() {
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // the thread exits either way
+        }
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long nextTick = System.currentTimeMillis() + TICK_MILLIS;
+        try {
+            while (selector.isOpen()) {
+                long wait = nextTick - System.currentTimeMillis();
+                if (wait > 0) {
+                    selector.select(wait);
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        handle(key);
+                    }
+                    selector.selectedKeys().clear();
+                }
+                long now = System.currentTimeMillis();
+                if (now >= nextTick) {
+                    tick(now);
+                    nextTick = now + TICK_MILLIS;
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // stopped
+        } catch (IOException e) {
+            // the selector failed, nothing left to serve with
+        } finally {
+            for (Client client : new ArrayList<>(clients)) {
+                drop(client);
+            }
+            try {
+                server.close();
+            } catch (IOException e) {
+                // exiting
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        try {
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            Client client = (Client) key.attachment();
+            if (key.isReadable()) {
+                read(client);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(client);
+            }
+        } catch (IOException | CancelledKeyException e) {
+            if (key.attachment() != null) {
+                drop((Client) key.attachment());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            if (clients.size() >= MAX_CLIENTS) {
+                channel.close();
+                continue;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Client client = new Client(channel, System.currentTimeMillis());
+            client.key = channel.register(selector, SelectionKey.OP_READ, client);
+            clients.add(client);
+        }
+    }
+
+    private void tick(long now) {
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            Client client = clients.get(i);
+            if (!client.open && now - client.connectedAt > HANDSHAKE_TIMEOUT_MILLIS) {
+                drop(client);
+            }
+        }
+        if (openClients == 0) {
+            return;
+        }
+        if (now - lastSample >= sampleMillis) {
+            lastSample = now;
+            sampler.run();
+        }
+        String latest = published.get();
+        if (latest == null || latest.equals(sent)) {
+            return;
+        }
+        sent = latest;
+        frame = encode(0x1, latest.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            Client client = clients.get(i);
+            if (client.open && !client.closing) {
+                client.state = frame.duplicate();
+                try {
+                    send(client);
+                } catch (IOException | CancelledKeyException e) {
+                    drop(client);
+                }
+            }
+        }
+    }
+
+    private void read(Client client) throws IOException {
+        if (client.channel.read(client.in) < 0) {
+            drop(client);
+            return;
+        }
+        if (client.open) {
+            readFrames(client);
+        } else {
+            readHandshake(client);
+        }
+    }
+
+    private void readHandshake(Client client) throws IOException {
+        ByteBuffer in = client.in;
+        String text = new String(in.array(), 0, in.position(), StandardCharsets.ISO_8859_1);
+        int end = text.indexOf("\r\n\r\n");
+        if (end < 0) {
+            if (!in.hasRemaining()) {
+                reject(client, "431 Request Header Fields Too Large");
+            }
+            return;
+        }
+        String[] lines = text.substring(0, end).split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        String key = null;
+        String upgrade = null;
+        String host = null;
+        String origin = null;
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = lines[i].substring(colon + 1).trim();
+            switch (name) {
+                case "sec-websocket-key":
+                    key = value;
+                    break;
+                case "upgrade":
+                    upgrade = value;
+                    break;
+                case "host":
+                    host = value;
+                    break;
+                case "origin":
+                    origin = value;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (requestLine.length != 3 || !requestLine[0].equals("GET")
+                || key == null || !"websocket".equalsIgnoreCase(upgrade)) {
+            reject(client, "400 Bad Request");
+            return;
+        }
+        if (!authorizer.test(new Request(requestLine[1], host, origin))) {
+            reject(client, "403 Forbidden");
+            return;
+        }
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n";
+        client.open = true;
+        client.in = ByteBuffer.allocate(MAX_FRAME_BYTES);
+        openClients++;
+        client.control.add(ByteBuffer.wrap(response.getBytes(StandardCharsets.ISO_8859_1)));
+        if (frame != null) {
+            // a new client starts from the current state, not the next change
+            client.state = frame.duplicate();
+        }
+        send(client);
+    }
+
+    private void reject(Client client, String status) throws IOException {
+        client.control.add(ByteBuffer.wrap(("HTTP/1.1 " + status + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1)));
+        client.closing = true;
+        send(client);
+    }
+
+    private void readFrames(Client client) throws IOException {
+        ByteBuffer in = client.in;
+        in.flip();
+        while (in.remaining() >= 2) {
+            int start = in.position();
+            int opcode = in.get(start) & 0x0F;
+            int second = in.get(start + 1) & 0xFF;
+            int length = second & 0x7F;
+            int header = 2;
+            if (length == 126) {
+                if (in.remaining() < 4) {
+                    break;
+                }
+                length = in.getShort(start + 2) & 0xFFFF;
+                header = 4;
+            } else if (length == 127) {
+                length = Integer.MAX_VALUE;
+            }
+            if ((second & 0x80) == 0 || header + 4 + (long) length > MAX_FRAME_BYTES) {
+                // unmasked or larger than anything a client needs to send
+                closeWith(client, (second & 0x80) == 0 ? 1002 : 1009);
+                in.clear();
+                return;
+            }
+            if (in.remaining() < header + 4 + length) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            int maskAt = start + header;
+            for (int i = 0; i < length; i++) {
+                payload[i] = (byte) (in.get(maskAt + 4 + i) ^ in.get(maskAt + (i & 3)));
+            }
+            in.position(maskAt + 4 + length);
+            if (opcode == 0x8) {
+                client.control.add(encode(0x8, payload));
+                client.closing = true;
+            } else if (opcode == 0x9) {
+                if (client.control.size() >= MAX_CONTROL_FRAMES) {
+                    drop(client);
+                    return;
+                }
+                client.control.add(encode(0xA, payload));
+            }
+            // text, binary and pongs carry nothing the hub acts on
+        }
+        in.compact();
+        send(client);
+    }
+
+    private void closeWith(Client client, int code) throws IOException {
+        client.control.add(encode(0x8, new byte[] {(byte) (code >> 8), (byte) code}));
+        client.closing = true;
+        send(client);
+    }
+
+    private void send(Client client) throws IOException {
+        if (flush(client)) {
+            client.key.interestOps(SelectionKey.OP_READ);
+        } else if (client.key.isValid()) {
+            client.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /** Writes what the socket takes, a frame at a time; true once nothing is left. */
+    private boolean flush(Client client) throws IOException {
+        while (true) {
+            if (client.writing == null || !client.writing.hasRemaining()) {
+                client.writing = client.control.poll();
+                if (client.writing == null && !client.closing) {
+                    client.writing = client.state;
+                    client.state = null;
+                }
+                if (client.writing == null) {
+                    if (client.closing) {
+                        drop(client);
+                        return false;
+                    }
+                    if (client.key.interestOps() != SelectionKey.OP_READ) {
+                        client.key.interestOps(SelectionKey.OP_READ);
+                    }
+                    return true;
+                }
+            }
+            client.channel.write(client.writing);
+            if (client.writing.hasRemaining()) {
+                return false;
+            }
+        }
+    }
+
+    private void drop(Client client) {
+        if (client == null || !clients.remove(client)) {
+            return;
+        }
+        if (client.open) {
+            openClients--;
+        }
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+
+    /** An unmasked, unfragmented server frame. */
+    static ByteBuffer encode(int opcode, byte[] payload) {
+        int header = payload.length < 126 ? 2 : payload.length < 65536 ? 4 : 10;
+        ByteBuffer buffer = ByteBuffer.allocate(header + payload.length);
+        buffer.put((byte) (0x80 | opcode));
+        if (header == 2) {
+            buffer.put((byte) payload.length);
+        } else if (header == 4) {
+            buffer.put((byte) 126).putShort((short) payload.length);
+        } else {
+            buffer.put((byte) 127).putLong(payload.length);
+        }
+        buffer.put(payload).flip();
+        return buffer;
+    }
+
+    private static String accept(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Client {
+        final SocketChannel channel;
+        final long connectedAt;
+        SelectionKey key;
+        ByteBuffer in = ByteBuffer.allocate(MAX_REQUEST_BYTES);
+        boolean open;
+        // a close was sent or the handshake refused: flush, then disconnect
+        boolean closing;
+        final ArrayDeque<ByteBuffer> control = new ArrayDeque<>();
+        // the newest state not yet started; replaced, never queued behind
+        ByteBuffer state;
+        ByteBuffer writing;
+
+        Client(SocketChannel channel, long connectedAt) {
+            this.channel = channel;
+            this.connectedAt = connectedAt;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.musicplayer.remote;
+
+/** Just enough JSON writing for the remote API; values are strings, numbers and booleans. */
+final class Json {
+    private final StringBuilder out = new StringBuilder(256);
+    private boolean first = true;
+
+    Json begin() {
+        separate();
+        out.append('{');
+        first = true;
+        return this;
+    }
+
+    Json end() {
+        out.append('}');
+        first = false;
+        return this;
+    }
+
+    Json beginArray(String name) {
+        key(name);
+        out.append('[');
+        first = true;
+        return this;
+    }
+
+    Json endArray() {
+        out.append(']');
+        first = false;
+        return this;
+    }
+
+    /** Starts an object as the value of {@code name}. */
+    Json beginObject(String name) {
+        key(name);
+        out.append('{');
+        first = true;
+        return this;
+    }
+
+    Json put(String name, String value) {
+        key(name);
+        if (value == null) {
+            out.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    Json put(String name, long value) {
+        key(name);
+        out.append(value);
+        return this;
+    }
+
+    Json put(String name, double value) {
+        key(name);
+        // three decimals are plenty for seconds and volumes
+        out.append(Double.isFinite(value) ? Math.round(value * 1000) / 1000.0 : 0);
+        return this;
+    }
+
+    Json put(String name, boolean value) {
+        key(name);
+        out.append(value);
+        return this;
+    }
+
+    Json putNull(String name) {
+        key(name);
+        out.append("null");
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void key(String name) {
+        separate();
+        string(name);
+        out.append(':');
+    }
+
+    private void separate() {
+        if (!first) {
+            out.append(',');
+        }
+        first = false;
+    }
+
+    private void string(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.musicplayer.remote;
+
+import com.example.musicplayer.controller.PlaybackEngine;
+import com.example.musicplayer.model.PlayQueue;
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.DoubleConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Remote control and now-playing feed on the local machine. Commands are plain
+ * HTTP under {@code /api/} and answer with the player status as JSON; the same
+ * status is pushed to WebSocket clients of the {@link EventHub} on the next
+ * port whenever the track or state changes, and once a second while playing
+ * so progress bars can follow. Each command runs on the engine thread, the
+ * servers never touch the engine themselves.
+ * <p>
+ * Binds to the loopback address unless told otherwise. Without a token, only
+ * requests naming a local host and carrying no browser {@code Origin} are
+ * served, so web pages cannot drive the player; with one, every request must
+ * present it as a bearer token or a {@code token} parameter.
+ */
+public class RemoteServer {
+    public static final String PORT_PROPERTY = "musicplayer.remote.port";
+    public static final String BIND_PROPERTY = "musicplayer.remote.bind";
+    public static final String TOKEN_PROPERTY = "musicplayer.remote.token";
+
+    private static final long COMMAND_TIMEOUT_MILLIS = 2000;
+    private static final long SAMPLE_MILLIS = 1000;
+    private static final int QUEUE_LIMIT = 100;
+    private static final int PAGE_LIMIT = 500;
+
+    private final PlaybackEngine engine;
+    private final Executor engineThread;
+    private final byte[] token;
+    private final String bindHost;
+    private final HttpServer http;
+    private final ExecutorService httpThreads;
+    private final EventHub events;
+    private final PlaybackEngine.Listener listener = new StatusListener();
+    private DoubleConsumer volumeHandler;
+    private DoubleConsumer rateHandler;
+    // engine thread only
+    private double readyDuration = -1;
+
+    /**
+     * Serves HTTP on {@code address} and WebSocket events on the port after it
+     * (any free port if {@code address} has port 0). {@code token} may be null.
+     */
+    public RemoteServer(PlaybackEngine engine, Executor engineThread, InetSocketAddress address, String token)
+            throws IOException {
+        this.engine = engine;
+        this.engineThread = engineThread;
+        this.token = token != null && !token.isEmpty() ? token.getBytes(StandardCharsets.UTF_8) : null;
+        this.bindHost = address.getHostString();
+        this.volumeHandler = engine::setVolume;
+        this.rateHandler = engine::setRate;
+        http = HttpServer.create(address, 0);
+        int eventPort = address.getPort() == 0 ? 0 : address.getPort() + 1;
+        try {
+            events = new EventHub(new InetSocketAddress(address.getAddress(), eventPort),
+                    request -> authorized(request.host, request.origin, null, tokenOf(request.target)),
+                    () -> engineThread.execute(this::publishStatus), SAMPLE_MILLIS);
+        } catch (IOException e) {
+            http.stop(0);
+            throw e;
+        }
+        httpThreads = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "remote-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        http.setExecutor(httpThreads);
+        http.createContext("/api/", this::handle);
+    }
+
+    /**
+     * The server configured by the {@code musicplayer.remote.*} system
+     * properties, or null when {@link #PORT_PROPERTY} is not set.
+     */
+    public static RemoteServer fromSystemProperties(PlaybackEngine engine, Executor engineThread) throws IOException {
+        String port = System.getProperty(PORT_PROPERTY);
+        if (port == null || port.isEmpty()) {
+            return null;
+        }
+        InetAddress bind = InetAddress.getByName(System.getProperty(BIND_PROPERTY, "127.0.0.1"));
+        return new RemoteServer(engine, engineThread, new InetSocketAddress(bind, Integer.parseInt(port)),
+                System.getProperty(TOKEN_PROPERTY));
+    }
+
+    /** How a volume command is applied on the engine thread; by default straight to the engine. */
+    public void setVolumeHandler(DoubleConsumer volumeHandler) {
+        this.volumeHandler = volumeHandler;
+    }
+
+    /** How a rate command is applied on the engine thread; by default straight to the engine. */
+    public void setRateHandler(DoubleConsumer rateHandler) {
+        this.rateHandler = rateHandler;
+    }
+
+    public void start() {
+        engineThread.execute(() -> {
+            engine.addListener(listener);
+            publishStatus();
+        });
+        http.start();
+        events.start();
+    }
+
+    public void stop() {
+        http.stop(0);
+        httpThreads.shutdownNow();
+        events.close();
+        engineThread.execute(() -> engine.removeListener(listener));
+    }
+
+    public InetSocketAddress getHttpAddress() {
+        return http.getAddress();
+    }
+
+    public InetSocketAddress getEventAddress() throws IOException {
+        return events.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+        }
+        int status = 200;
+        String response;
+        try {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (!authorized(exchange.getRequestHeaders().getFirst("Host"),
+                    exchange.getRequestHeaders().getFirst("Origin"),
+                    exchange.getRequestHeaders().getFirst("Authorization"), query.get("token"))) {
+                status = 403;
+                response = error("forbidden");
+            } else {
+                String name = exchange.getRequestURI().getPath().substring("/api/".length());
+                Supplier<String> command = command(exchange.getRequestMethod(), name, query);
+                if (command == null) {
+                    status = 404;
+                    response = error("unknown command " + exchange.getRequestMethod() + " " + name);
+                } else {
+                    response = CompletableFuture.supplyAsync(command, engineThread)
+                            .get(COMMAND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            response = error(e.getMessage());
+        } catch (ExecutionException e) {
+            status = e.getCause() instanceof IllegalArgumentException ? 400 : 500;
+            response = error(e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            status = 503;
+            response = error("player busy");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = 503;
+            response = error("interrupted");
+        }
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** The command for a request, run later on the engine thread; null if there is none. */
+    private Supplier<String> command(String method, String name, Map<String, String> query) {
+        if (method.equals("GET")) {
+            switch (name) {
+                case "status":
+                    return this::status;
+                case "queue":
+                    return this::queue;
+                case "playlist":
+                    int offset = intParam(query, "offset", 0);
+                    int limit = Math.min(intParam(query, "limit", 100), PAGE_LIMIT);
+                    return () -> playlist(offset, limit);
+                default:
+                    return null;
+            }
+        }
+        if (method.equals("DELETE") && name.equals("queue")) {
+            return statusAfter(() -> engine.getQueue().clear());
+        }
+        if (!method.equals("POST")) {
+            return null;
+        }
+        switch (name) {
+            case "play":
+                if (query.containsKey("index")) {
+                    int index = intParam(query, "index", 0);
+                    return statusAfter(() -> engine.play(trackAt(index)));
+                }
+                return statusAfter(engine::play);
+            case "pause":
+                return statusAfter(engine::pause);
+            case "toggle":
+                return statusAfter(engine::togglePlayPause);
+            case "stop":
+                return statusAfter(engine::stop);
+            case "next":
+                return statusAfter(engine::next);
+            case "prev":
+                return statusAfter(engine::prev);
+            case "volume":
+                double volume = doubleParam(query, "value", 0, 1);
+                return statusAfter(() -> volumeHandler.accept(volume));
+            case "rate":
+                double rate = doubleParam(query, "value", 0.5, 2);
+                return statusAfter(() -> rateHandler.accept(rate));
+            case "seek":
+                double seconds = doubleParam(query, "seconds", 0, Double.MAX_VALUE);
+                return statusAfter(() -> engine.seek(seconds));
+            case "queue":
+                int index = intParam(query, "index", -1);
+                boolean next = Boolean.parseBoolean(query.get("next"));
+                return statusAfter(() -> {
+                    Track track = trackAt(index);
+                    if (next) {
+                        engine.getQueue().addFirst(track);
+                    } else {
+                        engine.getQueue().add(track);
+                    }
+                });
+            default:
+                return null;
+        }
+    }
+
+    private Supplier<String> statusAfter(Runnable action) {
+        return () -> {
+            action.run();
+            return status();
+        };
+    }
+
+    private Track trackAt(int index) {
+        Playlist playlist = engine.getPlaylist();
+        if (index < 0 || index >= playlist.size()) {
+            throw new IllegalArgumentException("no track at index " + index);
+        }
+        return playlist.getTrack(index);
+    }
+
+    /** Sends the status to WebSocket clients; engine thread, skipped while nobody listens. */
+    private void publishStatus() {
+        if (events.getClientCount() > 0) {
+            events.publish(status());
+        }
+    }
+
+    private String status() {
+        Track track = engine.getCurrentTrack();
+        Json json = new Json().begin()
+                .put("state", engine.getState().name());
+        if (track != null) {
+            writeTrack(json.beginObject("track"), track).end();
+            json.put("duration", readyDuration >= 0 ? readyDuration : track.getDuration());
+        } else {
+            json.putNull("track");
+        }
+        return json.put("position", engine.getPosition())
+                .put("volume", engine.getVolume())
+                .put("rate", engine.getRate())
+                .put("shuffle", engine.isShuffle())
+                .put("repeat", engine.isRepeat())
+                .put("queued", engine.getQueue().size())
+                .put("playlistSize", engine.getPlaylist().size())
+                .end().toString();
+    }
+
+    private String queue() {
+        Json json = new Json().begin()
+                .put("size", engine.getQueue().size())
+                .beginArray("tracks");
+        for (PlayQueue.Entry entry : engine.getQueue().entries(QUEUE_LIMIT)) {
+            writeTrack(json.begin(), entry.getTrack()).end();
+        }
+        return json.endArray().end().toString();
+    }
+
+    private String playlist(int offset, int limit) {
+        Playlist playlist = engine.getPlaylist();
+        Json json = new Json().begin()
+                .put("size", playlist.size())
+                .put("offset", offset)
+                .beginArray("tracks");
+        for (int i = Math.max(offset, 0); i < Math.min(playlist.size(), offset + limit); i++) {
+            writeTrack(json.begin(), playlist.getTrack(i)).end();
+        }
+        return json.endArray().end().toString();
+    }
+
+    private static Json writeTrack(Json json, Track track) {
+        return json.put("title", track.getTitle())
+                .put("artist", track.getArtist())
+                .put("location", track.getFilePath())
+                .put("duration", track.getDuration());
+    }
+
+    private static String error(String message) {
+        return new Json().begin().put("error", message).end().toString();
+    }
+
+    private boolean authorized(String host, String origin, String authorization, String tokenParam) {
+        if (token != null) {
+            String presented = authorization != null && authorization.startsWith("Bearer ")
+                    ? authorization.substring("Bearer ".length()) : tokenParam;
+            return presented != null && MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8));
+        }
+        return origin == null && host != null && isLocalHost(host);
+    }
+
+    /** The host of a {@code Host} header, without the port, names this machine or the bound address. */
+    private boolean isLocalHost(String host) {
+        String name = host.startsWith("[") ? host.substring(0, host.indexOf(']') + 1)
+                : host.contains(":") ? host.substring(0, host.lastIndexOf(':')) : host;
+        return name.equalsIgnoreCase("localhost") || name.equals("127.0.0.1") || name.equals("[::1]")
+                || name.equals(bindHost) || name.equals("[" + bindHost + "]");
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String tokenOf(String target) {
+        int question = target.indexOf('?');
+        return question < 0 ? null : parseQuery(target.substring(question + 1)).get("token");
+    }
+
+    private static int intParam(Map<String, String> query, String name, int fallback) {
+        String value = query.get(name);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static double doubleParam(Map<String, String> query, String name, double min, double max) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + name);
+        }
+        double parsed;
+        try {
+            parsed = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        if (!(parsed >= min && parsed <= max)) {
+            throw new IllegalArgumentException(max == Double.MAX_VALUE ? name + " must be at least " + min
+                    : name + " must be between " + min + " and " + max);
+        }
+        return parsed;
+    }
+
+    private final class StatusListener implements PlaybackEngine.Listener {
+        @Override
+        public void trackChanged(Track track) {
+            readyDuration = -1;
+            publishStatus();
+        }
+
+        @Override
+        public void stateChanged(PlaybackEngine.State state) {
+            publishStatus();
+        }
+
+        @Override
+        public void trackReady(Track track, double durationSeconds) {
+            readyDuration = durationSeconds;
+            publishStatus();
+        }
+
+        @Override
+        public void playbackFailed(Track track, String message) {
+            publishStatus();
+        }
+    }
+}
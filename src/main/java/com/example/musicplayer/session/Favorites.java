@@ -0,0 +1,34 @@
+package com.example.musicplayer.session;
+
+import com.example.musicplayer.model.Track;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Favorite tracks, by location so they survive the track leaving the playlist. */
+public class Favorites {
+    private final Set<String> locations = new HashSet<>();
+
+    public boolean contains(Track track) {
+        return track != null && locations.contains(track.getFilePath());
+    }
+
+    /** Flips the favorite mark of {@code track} and returns the new state. */
+    public boolean toggle(Track track) {
+        String location = track.getFilePath();
+        if (locations.remove(location)) {
+            return false;
+        }
+        locations.add(location);
+        return true;
+    }
+
+    public Set<String> getLocations() {
+        return Set.copyOf(locations);
+    }
+
+    public void setLocations(Set<String> locations) {
+        this.locations.clear();
+        this.locations.addAll(locations);
+    }
+}
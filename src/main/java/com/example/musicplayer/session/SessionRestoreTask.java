@@ -0,0 +1,41 @@
+package com.example.musicplayer.session;
+
+import com.example.musicplayer.library.BatchingTask;
+import com.example.musicplayer.model.Track;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Reads a saved playlist in the background and hands it to the FX thread in
+ * batches, so the window is interactive before a large playlist is back.
+ */
+public class SessionRestoreTask extends BatchingTask {
+    private static final int BATCH_SIZE = 2000;
+
+    private final Path file;
+
+    public SessionRestoreTask(SessionStore store, Consumer<List<Track>> sink) {
+        this(store.getPlaylistFile(), sink);
+    }
+
+    public SessionRestoreTask(Path file, Consumer<List<Track>> sink) {
+        super(sink, BATCH_SIZE);
+        this.file = file;
+    }
+
+    @Override
+    protected Integer call() throws Exception {
+        updateProgress(-1, 1);
+        int count = SessionStore.readPlaylist(file, track -> {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            emit(track);
+        });
+        flush();
+        return count;
+    }
+}
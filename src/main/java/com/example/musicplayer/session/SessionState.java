@@ -0,0 +1,89 @@
+package com.example.musicplayer.session;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Player settings and position kept between runs. The playlist itself is
+ * stored separately by {@link SessionStore#savePlaylist}, as it changes far
+ * less often than the position.
+ */
+public class SessionState {
+    private int currentIndex = -1;
+    private String currentLocation;
+    private double positionSeconds;
+    private double volume = 0.7;
+    private double rate = 1.0;
+    private boolean repeat;
+    private boolean shuffle;
+    private final Set<String> favorites = new LinkedHashSet<>();
+
+    /** Index of the current track in the saved playlist, -1 if none. */
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    public void setCurrentIndex(int currentIndex) {
+        this.currentIndex = currentIndex;
+    }
+
+    /** Location of the current track, to check the index still points at it. */
+    public String getCurrentLocation() {
+        return currentLocation;
+    }
+
+    public void setCurrentLocation(String currentLocation) {
+        this.currentLocation = currentLocation;
+    }
+
+    public double getPositionSeconds() {
+        return positionSeconds;
+    }
+
+    public void setPositionSeconds(double positionSeconds) {
+        this.positionSeconds = positionSeconds;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public void setVolume(double volume) {
+        this.volume = volume;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    public boolean isRepeat() {
+        return repeat;
+    }
+
+    public void setRepeat(boolean repeat) {
+        this.repeat = repeat;
+    }
+
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+    }
+
+    /** Locations of the favorite tracks. */
+    public Set<String> getFavorites() {
+        return Collections.unmodifiableSet(favorites);
+    }
+
+    public void setFavorites(Set<String> favorites) {
+        this.favorites.clear();
+        this.favorites.addAll(favorites);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.musicplayer.session;
+
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.model.TrackPool;
+import com.example.musicplayer.util.AppDirectories;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The last session on disk: a small state file rewritten every few seconds and
+ * a playlist file rewritten only when the playlist changed. Both are written
+ * to a temporary file and renamed over the old one, so a crash leaves either
+ * the old or the new snapshot. Playlist entries are stored with directories and
+ * artists as back-references to their first occurrence, and are read back as
+ * a stream so the playlist can fill in while the window is already up.
+ */
+public class SessionStore {
+    private static final int STATE_MAGIC = 0x4D505353; // "MPSS"
+    private static final int PLAYLIST_MAGIC = 0x4D505350; // "MPSP"
+    private static final int VERSION = 1;
+    // 2 adds the time each track was added
+    private static final int PLAYLIST_VERSION = 2;
+    // far above any path or tag, far below what a corrupt length could ask for
+    private static final int MAX_STRING_BYTES = 1 << 20;
+    private static final int REPEAT = 1;
+    private static final int SHUFFLE = 2;
+    private static final int RESOLVED = 1;
+    private static final long MINUTE = 60_000;
+
+    private final Path stateFile;
+    private final Path playlistFile;
+
+    public SessionStore(Path directory) {
+        this.stateFile = directory.resolve("session.state");
+        this.playlistFile = directory.resolve("session.playlist");
+    }
+
+    public static SessionStore openDefault() {
+        return new SessionStore(AppDirectories.configDir());
+    }
+
+    public Path getPlaylistFile() {
+        return playlistFile;
+    }
+
+    /** The saved state, or null if there is none or it is unreadable. */
+    public SessionState loadState() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            if (in.readInt() != STATE_MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            SessionState state = new SessionState();
+            state.setCurrentIndex(in.readInt());
+            state.setCurrentLocation(in.readBoolean() ? readString(in) : null);
+            state.setPositionSeconds(in.readDouble());
+            state.setVolume(in.readDouble());
+            state.setRate(in.readDouble());
+            int flags = in.readUnsignedByte();
+            state.setRepeat((flags & REPEAT) != 0);
+            state.setShuffle((flags & SHUFFLE) != 0);
+            int favorites = readVarint(in);
+            Set<String> locations = new LinkedHashSet<>();
+            for (int i = 0; i < favorites; i++) {
+                locations.add(readString(in));
+            }
+            state.setFavorites(locations);
+            return state;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public void saveState(SessionState state) throws IOException {
+        Files.createDirectories(stateFile.getParent());
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(STATE_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(state.getCurrentIndex());
+            out.writeBoolean(state.getCurrentLocation() != null);
+            if (state.getCurrentLocation() != null) {
+                writeString(out, state.getCurrentLocation());
+            }
+            out.writeDouble(state.getPositionSeconds());
+            out.writeDouble(state.getVolume());
+            out.writeDouble(state.getRate());
+            out.writeByte((state.isRepeat() ? REPEAT : 0) | (state.isShuffle() ? SHUFFLE : 0));
+            writeVarint(out, state.getFavorites().size());
+            for (String location : state.getFavorites()) {
+                writeString(out, location);
+            }
+        }
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Streams the saved playlist into {@code sink} and returns the number of
+     * tracks; a missing file is an empty playlist, a truncated or corrupt one
+     * keeps what was read.
+     */
+    public int readPlaylist(Consumer<Track> sink) throws IOException {
+        return readPlaylist(playlistFile, sink);
+    }
+
+    public void savePlaylist(List<Track> tracks) throws IOException {
+        savePlaylist(playlistFile, tracks);
+    }
+
+    /**
+     * Streams the playlist saved in {@code file} into {@code sink}, see
+     * {@link #readPlaylist(Consumer)}. Tracks come from the {@link TrackPool}, so
+     * a track another playlist already loaded is shared, not read twice.
+     */
+    public static int readPlaylist(Path file, Consumer<Track> sink) throws IOException {
+        TrackPool pool = TrackPool.shared();
+        int read = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int version = in.readInt() == PLAYLIST_MAGIC ? in.readInt() : -1;
+            if (version != VERSION && version != PLAYLIST_VERSION) {
+                return 0;
+            }
+            int count = in.readInt();
+            List<String> directories = new ArrayList<>();
+            List<String> artists = new ArrayList<>();
+            long addedMinutes = 0;
+            for (; read < count; read++) {
+                String directory = readReference(in, directories);
+                String location = directory + readString(in);
+                String artist = readReference(in, artists);
+                String title = readString(in);
+                int duration = readVarint(in);
+                int flags = in.readUnsignedByte();
+                if (version == PLAYLIST_VERSION) {
+                    addedMinutes += zigzagDecode(readVarint(in));
+                }
+                long added = version == PLAYLIST_VERSION ? addedMinutes * MINUTE : -1;
+                sink.accept(pool.get(location, at -> {
+                    Track track = new Track(title, artist, at, duration);
+                    if ((flags & RESOLVED) == 0) {
+                        track.setResolved(false);
+                    }
+                    if (added >= 0) {
+                        track.setAddedAt(added);
+                    }
+                    return track;
+                }));
+            }
+        } catch (NoSuchFileException e) {
+            // first run
+        } catch (EOFException | StreamCorruptedException e) {
+            // truncated or corrupt file, keep what was read
+        }
+        return read;
+    }
+
+    public static void savePlaylist(Path file, List<Track> tracks) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(PLAYLIST_MAGIC);
+            out.writeInt(PLAYLIST_VERSION);
+            out.writeInt(tracks.size());
+            Map<String, Integer> directories = new HashMap<>();
+            Map<String, Integer> artists = new HashMap<>();
+            long addedMinutes = 0;
+            for (Track track : tracks) {
+                String location = track.getFilePath();
+                int split = location.lastIndexOf('/') + 1;
+                writeReference(out, location.substring(0, split), directories);
+                writeString(out, location.substring(split));
+                writeReference(out, track.getArtist(), artists);
+                writeString(out, track.getTitle());
+                writeVarint(out, Math.max(0, track.getDuration()));
+                out.writeByte(track.isResolved() ? RESOLVED : 0);
+                // tracks imported together were added in the same minute, the delta is one byte
+                long minutes = track.getAddedAt() / MINUTE;
+                writeVarint(out, zigzagEncode((int) (minutes - addedMinutes)));
+                addedMinutes = minutes;
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** 0 followed by the value the first time, then the 1-based index of that first occurrence. */
+    private static void writeReference(DataOutputStream out, String value, Map<String, Integer> seen) throws IOException {
+        Integer index = seen.get(value);
+        if (index != null) {
+            writeVarint(out, index + 1);
+        } else {
+            seen.put(value, seen.size());
+            writeVarint(out, 0);
+            writeString(out, value);
+        }
+    }
+
+    private static String readReference(DataInputStream in, List<String> seen) throws IOException {
+        int reference = readVarint(in);
+        if (reference == 0) {
+            String value = readString(in);
+            seen.add(value);
+            return value;
+        }
+        if (reference > seen.size()) {
+            throw new StreamCorruptedException("Bad reference " + reference);
+        }
+        return seen.get(reference - 1);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarint(in);
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new StreamCorruptedException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int zigzagEncode(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    private static int zigzagDecode(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.musicplayer.session;
+
+import com.example.musicplayer.util.AppDirectories;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The playlists open as tabs beside the library. The tab list is one small
+ * file; each playlist is a file of its own in the {@link SessionStore} playlist
+ * format, so a tab is read only when it is first shown and rewritten only when
+ * it changed.
+ */
+public class WorkspaceStore {
+    private static final int MAGIC = 0x4D505753; // "MPWS"
+    private static final int VERSION = 1;
+
+    private final Path tabsFile;
+    private final Path playlistDirectory;
+
+    public WorkspaceStore(Path directory) {
+        this.tabsFile = directory.resolve("workspace.tabs");
+        this.playlistDirectory = directory.resolve("playlists");
+    }
+
+    public static WorkspaceStore openDefault() {
+        return new WorkspaceStore(AppDirectories.configDir());
+    }
+
+    /** An open playlist: the number naming its file, and its title. */
+    public static final class Entry {
+        private final int id;
+        private final String name;
+
+        public Entry(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /** The saved tabs in order; none if the file is missing or unreadable. */
+    public List<Entry> load() {
+        List<Entry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(tabsFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return entries;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int id = in.readInt();
+                entries.add(new Entry(id, in.readUTF()));
+            }
+        } catch (NoSuchFileException e) {
+            // no playlists opened yet
+        } catch (EOFException e) {
+            // truncated file, keep what was read
+        } catch (IOException e) {
+            // unreadable, start with the library only
+        }
+        return entries;
+    }
+
+    public void save(List<Entry> entries) throws IOException {
+        Files.createDirectories(tabsFile.getParent());
+        Path temp = tabsFile.resolveSibling(tabsFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeInt(entry.getId());
+                out.writeUTF(entry.getName());
+            }
+        }
+        Files.move(temp, tabsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Where the tracks of playlist {@code id} are kept. */
+    public Path playlistFile(int id) {
+        return playlistDirectory.resolve(id + ".playlist");
+    }
+
+    public void delete(int id) throws IOException {
+        Files.deleteIfExists(playlistFile(id));
+    }
+}
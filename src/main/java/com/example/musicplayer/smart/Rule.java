@@ -0,0 +1,104 @@
+package com.example.musicplayer.smart;
+
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.model.TrackStore;
+
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * One condition of a {@link SmartPlaylist} over the fields of a track. Text is
+ * compared ignoring case; durations are in minutes and ages in days, and a
+ * track of unknown duration is neither shorter nor longer than anything.
+ */
+public final class Rule {
+    public enum Kind {
+        ARTIST_IS("Artist is"),
+        TITLE_CONTAINS("Title contains"),
+        PATH_CONTAINS("Path contains"),
+        SHORTER_THAN("Shorter than (min)"),
+        LONGER_THAN("Longer than (min)"),
+        FAVORITE("Favorite"),
+        ADDED_WITHIN("Added within (days)");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean hasArgument() {
+            return this != FAVORITE;
+        }
+
+        boolean isNumeric() {
+            return this == SHORTER_THAN || this == LONGER_THAN || this == ADDED_WITHIN;
+        }
+    }
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final Kind kind;
+    private final String argument;
+    private final String needle;
+    private final double number;
+
+    /** @throws IllegalArgumentException if a numeric rule gets something that is not a number */
+    public Rule(Kind kind, String argument) {
+        this.kind = kind;
+        this.argument = kind.hasArgument() ? argument.trim() : "";
+        this.needle = this.argument.toLowerCase(Locale.ROOT);
+        if (kind.isNumeric()) {
+            try {
+                this.number = Double.parseDouble(this.argument);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(kind.getLabel() + ": not a number: " + argument);
+            }
+        } else {
+            this.number = 0;
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getArgument() {
+        return argument;
+    }
+
+    /** Whether the outcome can change with the clock alone, without the track changing. */
+    public boolean isTimeDependent() {
+        return kind == Kind.ADDED_WITHIN;
+    }
+
+    boolean test(Track track, Predicate<Track> favorites, long now) {
+        switch (kind) {
+            case ARTIST_IS:
+                return argument.equalsIgnoreCase(track.getArtist());
+            case TITLE_CONTAINS:
+                return TrackStore.shared().titleContains(track.getSlot(), needle);
+            case PATH_CONTAINS:
+                return TrackStore.shared().locationContains(track.getSlot(), needle);
+            case SHORTER_THAN:
+                return track.getDuration() > 0 && track.getDuration() < number * 60;
+            case LONGER_THAN:
+                return track.getDuration() > 0 && track.getDuration() > number * 60;
+            case FAVORITE:
+                return favorites.test(track);
+            case ADDED_WITHIN:
+                return now - track.getAddedAt() <= number * DAY_MILLIS;
+            default:
+                throw new IllegalStateException(kind.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind.hasArgument() ? kind.getLabel() + " " + argument : kind.getLabel();
+    }
+}
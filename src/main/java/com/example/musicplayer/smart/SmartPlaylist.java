@@ -0,0 +1,50 @@
+package com.example.musicplayer.smart;
+
+import com.example.musicplayer.model.Track;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A saved query over the library: a name and rules that a track must all
+ * satisfy. Its tracks are never stored, a {@link SmartView} keeps them live.
+ */
+public final class SmartPlaylist {
+    private final String name;
+    private final List<Rule> rules;
+
+    public SmartPlaylist(String name, List<Rule> rules) {
+        this.name = name;
+        this.rules = List.copyOf(rules);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public boolean isTimeDependent() {
+        return rules.stream().anyMatch(Rule::isTimeDependent);
+    }
+
+    /** The membership test, with favorites answered by {@code favorites}. */
+    public Predicate<Track> predicate(Predicate<Track> favorites) {
+        return track -> {
+            long now = System.currentTimeMillis();
+            for (Rule rule : rules) {
+                if (!rule.test(track, favorites, now)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
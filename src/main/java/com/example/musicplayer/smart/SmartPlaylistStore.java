@@ -0,0 +1,91 @@
+package com.example.musicplayer.smart;
+
+import com.example.musicplayer.util.AppDirectories;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The saved smart playlists, rewritten as a whole whenever one is added or
+ * deleted. Rules are stored by kind name, so reordering kinds keeps old files
+ * readable; a rule of an unknown kind drops its playlist.
+ */
+public class SmartPlaylistStore {
+    private static final int MAGIC = 0x4D50534C; // "MPSL"
+    private static final int VERSION = 1;
+
+    private final Path location;
+
+    public SmartPlaylistStore(Path location) {
+        this.location = location;
+    }
+
+    public static SmartPlaylistStore openDefault() {
+        return new SmartPlaylistStore(AppDirectories.configDir().resolve("smart.playlists"));
+    }
+
+    /** The saved playlists; none if the file is missing or unreadable. */
+    public List<SmartPlaylist> load() {
+        List<SmartPlaylist> playlists = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(location)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return playlists;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                int ruleCount = in.readInt();
+                List<Rule> rules = new ArrayList<>(ruleCount);
+                boolean valid = true;
+                for (int r = 0; r < ruleCount; r++) {
+                    String kind = in.readUTF();
+                    String argument = in.readUTF();
+                    try {
+                        rules.add(new Rule(Rule.Kind.valueOf(kind), argument));
+                    } catch (IllegalArgumentException e) {
+                        valid = false;
+                    }
+                }
+                if (valid) {
+                    playlists.add(new SmartPlaylist(name, rules));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // none saved yet
+        } catch (EOFException e) {
+            // truncated file, keep what was read
+        } catch (IOException e) {
+            // unreadable, start without any
+        }
+        return playlists;
+    }
+
+    public void save(List<SmartPlaylist> playlists) throws IOException {
+        Files.createDirectories(location.getParent());
+        Path temp = location.resolveSibling(location.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(playlists.size());
+            for (SmartPlaylist playlist : playlists) {
+                out.writeUTF(playlist.getName());
+                out.writeInt(playlist.getRules().size());
+                for (Rule rule : playlist.getRules()) {
+                    out.writeUTF(rule.getKind().name());
+                    out.writeUTF(rule.getArgument());
+                }
+            }
+        }
+        Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
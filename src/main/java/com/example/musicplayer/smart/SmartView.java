@@ -0,0 +1,293 @@
+package com.example.musicplayer.smart;
+
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.TransformationList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Live view of the playlist tracks that satisfy a predicate, usable as the
+ * items of a {@code ListView} and as a {@link Playlist#setScope scope}.
+ * <p>
+ * Membership is a flag per playlist position with a Fenwick tree of the flags
+ * on top, so positional access, {@link #indexOf} and a single track changing
+ * are O(log n), and only the changed tracks are tested. Appends are
+ * incremental too; removals and insertions in the middle shift the flags and
+ * rebuild the tree, O(n) without re-testing anything. Must be used on the FX
+ * thread, like the playlist.
+ */
+public class SmartView extends TransformationList<Track, Track> {
+    private final Playlist playlist;
+    private final Predicate<Track> predicate;
+    private boolean[] matches = new boolean[16];
+    // 1-based: tree[i] counts the matches among positions (i - lowbit(i), i]
+    private int[] tree = new int[17];
+    private int sourceSize;
+    private int size;
+
+    public SmartView(Playlist playlist, Predicate<Track> predicate) {
+        super(playlist.getTracks());
+        this.playlist = playlist;
+        this.predicate = predicate;
+        evaluateAll();
+    }
+
+    @Override
+    public Track get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        return getSource().get(select(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getSourceIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        return select(index);
+    }
+
+    @Override
+    public int getViewIndex(int index) {
+        return index >= 0 && index < sourceSize && matches[index] ? prefix(index) : -1;
+    }
+
+    /** O(log n), through the playlist's position index. */
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Track ? getViewIndex(playlist.indexOf((Track) o)) : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /** Tests every track again, for rules that depend on the clock. */
+    public void refresh() {
+        List<Track> removed = new ArrayList<>(size);
+        for (int i = 0; i < sourceSize; i++) {
+            if (matches[i]) {
+                removed.add(getSource().get(i));
+            }
+        }
+        beginChange();
+        if (!removed.isEmpty()) {
+            nextRemove(0, removed);
+        }
+        evaluateAll();
+        if (size > 0) {
+            nextAdd(0, size);
+        }
+        endChange();
+    }
+
+    @Override
+    protected void sourceChanged(ListChangeListener.Change<? extends Track> change) {
+        beginChange();
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                permute(change);
+            } else if (change.wasUpdated()) {
+                retest(change.getFrom(), change.getTo(), null);
+            } else if (change.wasReplaced() && change.getRemovedSize() == change.getAddedSize()) {
+                // a row set in place, e.g. a track whose tags were read
+                retest(change.getFrom(), change.getTo(), change.getRemoved());
+            } else {
+                if (change.wasRemoved()) {
+                    removeRange(change.getFrom(), change.getRemoved());
+                }
+                if (change.wasAdded()) {
+                    insertRange(change.getFrom(), change.getAddedSize());
+                }
+            }
+        }
+        endChange();
+    }
+
+    private void retest(int from, int to, List<? extends Track> previous) {
+        for (int i = from; i < to; i++) {
+            Track old = previous != null ? previous.get(i - from) : getSource().get(i);
+            boolean was = matches[i];
+            boolean now = predicate.test(getSource().get(i));
+            int viewIndex = prefix(i);
+            if (was && now) {
+                nextSet(viewIndex, old);
+            } else if (was) {
+                matches[i] = false;
+                add(i, -1);
+                size--;
+                nextRemove(viewIndex, old);
+            } else if (now) {
+                matches[i] = true;
+                add(i, 1);
+                size++;
+                nextAdd(viewIndex, viewIndex + 1);
+            }
+        }
+    }
+
+    private void removeRange(int from, List<? extends Track> removed) {
+        int viewFrom = prefix(from);
+        List<Track> removedMatches = new ArrayList<>();
+        for (int i = 0; i < removed.size(); i++) {
+            if (matches[from + i]) {
+                removedMatches.add(removed.get(i));
+            }
+        }
+        int to = from + removed.size();
+        boolean tail = to == sourceSize;
+        System.arraycopy(matches, to, matches, from, sourceSize - to);
+        Arrays.fill(matches, sourceSize - removed.size(), sourceSize, false);
+        sourceSize -= removed.size();
+        size -= removedMatches.size();
+        // removing unmatched tracks from the end leaves the tree as it is
+        if (!tail || !removedMatches.isEmpty()) {
+            rebuild();
+        }
+        if (!removedMatches.isEmpty()) {
+            nextRemove(viewFrom, removedMatches);
+        }
+    }
+
+    private void insertRange(int from, int count) {
+        boolean append = from == sourceSize;
+        ensureCapacity(sourceSize + count);
+        if (!append) {
+            System.arraycopy(matches, from, matches, from + count, sourceSize - from);
+        }
+        sourceSize += count;
+        int added = 0;
+        for (int i = from; i < from + count; i++) {
+            matches[i] = predicate.test(getSource().get(i));
+            if (matches[i]) {
+                added++;
+                if (append) {
+                    add(i, 1);
+                }
+            }
+        }
+        if (!append) {
+            rebuild();
+        }
+        size += added;
+        if (added > 0) {
+            int viewFrom = prefix(from);
+            nextAdd(viewFrom, viewFrom + added);
+        }
+    }
+
+    private void permute(ListChangeListener.Change<? extends Track> change) {
+        int from = change.getFrom();
+        int to = change.getTo();
+        boolean[] old = Arrays.copyOfRange(matches, from, to);
+        int[] oldSources = new int[size];
+        int viewFrom = prefix(from);
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (old[i - from]) {
+                oldSources[count++] = i;
+            }
+            matches[i] = false;
+        }
+        for (int i = from; i < to; i++) {
+            matches[change.getPermutation(i)] = old[i - from];
+        }
+        rebuild();
+        if (count > 0) {
+            int[] permutation = new int[count];
+            for (int k = 0; k < count; k++) {
+                permutation[k] = prefix(change.getPermutation(oldSources[k]));
+            }
+            nextPermutation(viewFrom, viewFrom + count, shift(permutation, viewFrom));
+        }
+    }
+
+    /** A permutation of view indexes, given for the range starting at {@code viewFrom}. */
+    private static int[] shift(int[] permutation, int viewFrom) {
+        if (viewFrom == 0) {
+            return permutation;
+        }
+        int[] full = new int[viewFrom + permutation.length];
+        for (int i = 0; i < viewFrom; i++) {
+            full[i] = i;
+        }
+        System.arraycopy(permutation, 0, full, viewFrom, permutation.length);
+        return full;
+    }
+
+    private void evaluateAll() {
+        sourceSize = getSource().size();
+        matches = new boolean[Math.max(16, sourceSize)];
+        tree = new int[matches.length + 1];
+        size = 0;
+        for (int i = 0; i < sourceSize; i++) {
+            matches[i] = predicate.test(getSource().get(i));
+            if (matches[i]) {
+                size++;
+            }
+        }
+        rebuild();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > matches.length) {
+            matches = Arrays.copyOf(matches, Math.max(capacity, matches.length * 2));
+            tree = new int[matches.length + 1];
+            rebuild();
+        }
+    }
+
+    /** Builds the tree from the flags in O(n). */
+    private void rebuild() {
+        Arrays.fill(tree, 0);
+        for (int i = 1; i < tree.length; i++) {
+            if (matches[i - 1]) {
+                tree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void add(int position, int delta) {
+        for (int i = position + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Matches among positions before {@code end}. */
+    private int prefix(int end) {
+        int sum = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** Position of the match with view index {@code index}. */
+    private int select(int index) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= index) {
+                position = next;
+                index -= tree[next];
+            }
+        }
+        return position;
+    }
+}
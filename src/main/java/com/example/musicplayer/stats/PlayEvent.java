@@ -0,0 +1,48 @@
+package com.example.musicplayer.stats;
+
+/** One listen of a track, as it is appended to the {@link StatsLog}. */
+public final class PlayEvent {
+    /** Heard this long, a listen counts as a play even if the track is left early. */
+    static final double PLAY_SECONDS = 240;
+
+    public enum Kind { PLAYED, SKIPPED }
+
+    private final Kind kind;
+    private final String location;
+    private final long time;
+    private final int heardMillis;
+
+    public PlayEvent(Kind kind, String location, long time, int heardMillis) {
+        this.kind = kind;
+        this.location = location;
+        this.time = time;
+        this.heardMillis = heardMillis;
+    }
+
+    /**
+     * A listen that ended at {@code time}. It is a play if the track ran to its
+     * end or at least half of it, or four minutes, were heard; otherwise a skip.
+     */
+    public static PlayEvent of(String location, long time, double heardSeconds, double durationSeconds, boolean completed) {
+        double needed = durationSeconds > 0 ? Math.min(durationSeconds / 2, PLAY_SECONDS) : PLAY_SECONDS;
+        Kind kind = completed || heardSeconds >= needed ? Kind.PLAYED : Kind.SKIPPED;
+        return new PlayEvent(kind, location, time, (int) Math.min(Integer.MAX_VALUE, Math.round(heardSeconds * 1000)));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    /** Epoch milliseconds. */
+    public long getTime() {
+        return time;
+    }
+
+    public int getHeardMillis() {
+        return heardMillis;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.musicplayer.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Per-track aggregates plus two orderings of them kept up to date on every
+ * event, by play count and by last play. The queries the view asks read a
+ * prefix of one ordering, so they cost the size of the answer rather than of
+ * the library. Not thread-safe.
+ */
+final class PlayStats {
+    private static final Comparator<TrackStats> MOST_PLAYED = Comparator
+            .comparingInt(TrackStats::getPlayCount).reversed()
+            .thenComparing(Comparator.comparingLong(TrackStats::getLastPlayed).reversed())
+            .thenComparing(TrackStats::getLocation);
+    private static final Comparator<TrackStats> LEAST_RECENT = Comparator
+            .comparingLong(TrackStats::getLastPlayed)
+            .thenComparing(TrackStats::getLocation);
+
+    private final Map<String, TrackStats> byLocation = new HashMap<>();
+    private final TreeSet<TrackStats> byPlays = new TreeSet<>(MOST_PLAYED);
+    private final TreeSet<TrackStats> byLastPlayed = new TreeSet<>(LEAST_RECENT);
+
+    void apply(PlayEvent event) {
+        TrackStats stats = byLocation.get(event.getLocation());
+        if (stats == null) {
+            stats = new TrackStats(event.getLocation());
+            byLocation.put(stats.getLocation(), stats);
+        } else {
+            // out of the orderings while the keys they sort by change
+            byPlays.remove(stats);
+            byLastPlayed.remove(stats);
+        }
+        stats.apply(event);
+        byPlays.add(stats);
+        byLastPlayed.add(stats);
+    }
+
+    /** Adds aggregates read from a snapshot. */
+    void put(TrackStats stats) {
+        TrackStats old = byLocation.put(stats.getLocation(), stats);
+        if (old != null) {
+            byPlays.remove(old);
+            byLastPlayed.remove(old);
+        }
+        byPlays.add(stats);
+        byLastPlayed.add(stats);
+    }
+
+    TrackStats get(String location) {
+        return byLocation.get(location);
+    }
+
+    /** Up to {@code limit} tracks played at least once, most played first. */
+    List<TrackStats> mostPlayed(int limit) {
+        List<TrackStats> result = new ArrayList<>(Math.min(limit, byPlays.size()));
+        for (TrackStats stats : byPlays) {
+            if (result.size() == limit || stats.getPlayCount() == 0) {
+                break;
+            }
+            result.add(stats.copy());
+        }
+        return result;
+    }
+
+    /** Up to {@code limit} tracks last played before {@code cutoff}, longest ago first; only skipped ones lead. */
+    List<TrackStats> playedBefore(long cutoff, int limit) {
+        List<TrackStats> result = new ArrayList<>();
+        for (TrackStats stats : byLastPlayed.headSet(new TrackStats("", 0, 0, cutoff, 0), false)) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(stats.copy());
+        }
+        return result;
+    }
+
+    List<TrackStats> copyAll() {
+        List<TrackStats> result = new ArrayList<>(byLocation.size());
+        for (TrackStats stats : byLocation.values()) {
+            result.add(stats.copy());
+        }
+        return result;
+    }
+
+    int size() {
+        return byLocation.size();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.musicplayer.stats;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The append-only file of {@link PlayEvent}s since the last compaction. Each
+ * record carries its length and a CRC, so a write torn by a crash is cut off
+ * when the log is next opened instead of spoiling what was read before it.
+ * The header holds the log's generation: a snapshot covering generation g
+ * makes a log of generation g or older obsolete, so a compaction interrupted
+ * between writing the snapshot and starting the new log counts nothing twice.
+ * Not thread-safe.
+ */
+final class StatsLog implements Closeable {
+    private static final int MAGIC = 0x4D505345; // "MPSE"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_RECORD_BYTES = 1 << 16;
+
+    private final Path file;
+    private FileChannel channel;
+    private long generation;
+    private int records;
+
+    private StatsLog(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the log in {@code file}, replaying its events into {@code replay}
+     * unless a snapshot already covers its generation, in which case, or if
+     * there is no usable log, a new one of the next generation is started.
+     */
+    static StatsLog open(Path file, long coveredGeneration, Consumer<PlayEvent> replay) throws IOException {
+        StatsLog log = new StatsLog(file);
+        long end = log.replay(coveredGeneration, replay);
+        if (end < 0) {
+            log.rotate(coveredGeneration + 1);
+        } else {
+            log.channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            // drop a torn last record
+            log.channel.truncate(end);
+            log.channel.position(end);
+        }
+        return log;
+    }
+
+    /** Reads the events and returns where the valid records end, or -1 if the log is missing, foreign or covered. */
+    private long replay(long coveredGeneration, Consumer<PlayEvent> sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return -1;
+            }
+            generation = in.readLong();
+            if (generation <= coveredGeneration) {
+                return -1;
+            }
+            long end = HEADER_BYTES;
+            CRC32 crc = new CRC32();
+            try {
+                while (true) {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                    sink.accept(decode(payload));
+                    records++;
+                    end += 8 + length;
+                }
+            } catch (EOFException e) {
+                // torn or clean end of the log
+            }
+            return end;
+        } catch (NoSuchFileException | EOFException e) {
+            return -1;
+        }
+    }
+
+    /** Appends {@code events} with one write and one fsync. */
+    void append(List<PlayEvent> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (channel == null) {
+            throw new IOException("Stats log is closed");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(events.size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(96);
+        DataOutputStream record = new DataOutputStream(payload);
+        CRC32 crc = new CRC32();
+        for (PlayEvent event : events) {
+            payload.reset();
+            record.writeByte(event.getKind().ordinal());
+            record.writeLong(event.getTime());
+            record.writeInt(event.getHeardMillis());
+            record.writeUTF(event.getLocation());
+            crc.reset();
+            crc.update(payload.toByteArray());
+            out.writeInt(payload.size());
+            payload.writeTo(out);
+            out.writeInt((int) crc.getValue());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        records += events.size();
+    }
+
+    /** Replaces the log with an empty one of {@code newGeneration}. */
+    void rotate(long newGeneration) throws IOException {
+        close();
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putLong(newGeneration);
+        header.flip();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            out.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.position(HEADER_BYTES);
+        generation = newGeneration;
+        records = 0;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    /** Events in the log, i.e. replayed at the next start. */
+    int getRecords() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static PlayEvent decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int kind = in.readUnsignedByte();
+        if (kind >= PlayEvent.Kind.values().length) {
+            throw new EOFException("Unknown event kind " + kind);
+        }
+        long time = in.readLong();
+        int heardMillis = in.readInt();
+        return new PlayEvent(PlayEvent.Kind.values()[kind], in.readUTF(), time, heardMillis);
+    }
+}
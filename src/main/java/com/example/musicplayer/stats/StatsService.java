@@ -0,0 +1,178 @@
+package com.example.musicplayer.stats;
+
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.util.AppDirectories;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Play counts, skips, last play and listening time per track. A listen is
+ * applied to the in-memory aggregates at once, so queries never touch the log,
+ * and appended to the {@link StatsLog} by a writer thread in group commits:
+ * listens within {@link #COMMIT_DELAY_MILLIS} of each other share one write
+ * and one fsync. Once the log holds {@link #COMPACT_EVENTS} events the
+ * aggregates are written as a {@link StatsSnapshot} and the log starts over,
+ * so a start replays at most that many. Safe to call from any thread.
+ */
+public class StatsService {
+    static final long COMMIT_DELAY_MILLIS = 2000;
+    static final int COMPACT_EVENTS = 5000;
+
+    private final PlayStats stats = new PlayStats();
+    private final Path snapshotFile;
+    // both null when nothing is kept across runs; the log belongs to the writer thread
+    private final StatsLog log;
+    private final ScheduledExecutorService writer;
+    // writer thread only: a batch missed the log, only a snapshot can keep it
+    private boolean unlogged;
+    // guarded by stats
+    private final List<PlayEvent> pending = new ArrayList<>();
+    private boolean commitScheduled;
+
+    private StatsService() {
+        snapshotFile = null;
+        log = null;
+        writer = null;
+    }
+
+    private StatsService(Path directory) throws IOException {
+        snapshotFile = directory.resolve("stats.snapshot");
+        long covered = StatsSnapshot.load(snapshotFile, stats);
+        log = StatsLog.open(directory.resolve("stats.log"), covered, stats::apply);
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Reads the snapshot and replays the log in {@code directory}. */
+    public static StatsService open(Path directory) throws IOException {
+        return new StatsService(directory);
+    }
+
+    /** A service that keeps nothing across runs. */
+    public static StatsService inMemory() {
+        return new StatsService();
+    }
+
+    public static StatsService createDefault() {
+        try {
+            return open(AppDirectories.configDir());
+        } catch (IOException e) {
+            return inMemory();
+        }
+    }
+
+    /** Records a listen of {@code track} that just ended, see {@link PlayEvent#of}. */
+    public void record(Track track, double heardSeconds, double durationSeconds, boolean completed) {
+        record(PlayEvent.of(track.getFilePath(), System.currentTimeMillis(), heardSeconds, durationSeconds, completed));
+    }
+
+    public void record(PlayEvent event) {
+        synchronized (stats) {
+            stats.apply(event);
+            if (log == null || writer.isShutdown()) {
+                return;
+            }
+            pending.add(event);
+            if (!commitScheduled) {
+                commitScheduled = true;
+                writer.schedule(this::commit, COMMIT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /** The stats of the track at {@code location}, or null if it was never played or skipped. */
+    public TrackStats get(String location) {
+        synchronized (stats) {
+            TrackStats found = stats.get(location);
+            return found != null ? found.copy() : null;
+        }
+    }
+
+    /** Up to {@code limit} tracks played at least once, most played first; ties go to the one played last. */
+    public List<TrackStats> mostPlayed(int limit) {
+        synchronized (stats) {
+            return stats.mostPlayed(limit);
+        }
+    }
+
+    /**
+     * Up to {@code limit} known tracks not played since {@code cutoff} (epoch
+     * milliseconds), longest ago first; tracks that were only ever skipped lead.
+     */
+    public List<TrackStats> playedBefore(long cutoff, int limit) {
+        synchronized (stats) {
+            return stats.playedBefore(cutoff, limit);
+        }
+    }
+
+    /** Number of tracks with stats. */
+    public int size() {
+        synchronized (stats) {
+            return stats.size();
+        }
+    }
+
+    /** Writes what is pending and compacts, so the next start reads only the snapshot. */
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        writer.execute(() -> {
+            commit();
+            try {
+                if (log.getRecords() > 0 || unlogged) {
+                    compact();
+                }
+                log.close();
+            } catch (IOException e) {
+                // the log keeps what the snapshot could not take
+            }
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void commit() {
+        List<PlayEvent> batch;
+        synchronized (stats) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+            commitScheduled = false;
+        }
+        try {
+            log.append(batch);
+            if (log.getRecords() >= COMPACT_EVENTS) {
+                compact();
+            }
+        } catch (IOException e) {
+            // the aggregates still count the batch, the next snapshot keeps it
+            unlogged = true;
+        }
+    }
+
+    private void compact() throws IOException {
+        List<TrackStats> snapshot;
+        synchronized (stats) {
+            snapshot = stats.copyAll();
+            // already in the aggregates the snapshot is taken from
+            pending.clear();
+        }
+        long generation = log.getGeneration();
+        StatsSnapshot.save(snapshotFile, generation, snapshot);
+        log.rotate(generation + 1);
+        unlogged = false;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.musicplayer.stats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The aggregates as of the end of one {@link StatsLog} generation. Written to
+ * a temporary file and renamed over the old one, so a crash keeps either.
+ */
+final class StatsSnapshot {
+    private static final int MAGIC = 0x4D505341; // "MPSA"
+    private static final int VERSION = 1;
+
+    private StatsSnapshot() {
+    }
+
+    /** Reads the snapshot into {@code stats} and returns the log generation it covers, 0 if none. */
+    static long load(Path file, PlayStats stats) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return 0;
+            }
+            long generation = in.readLong();
+            int count = in.readInt();
+            List<TrackStats> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String location = in.readUTF();
+                entries.add(new TrackStats(location, in.readInt(), in.readInt(), in.readLong(), in.readLong()));
+            }
+            entries.forEach(stats::put);
+            return generation;
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (EOFException e) {
+            // a torn snapshot never replaces the old one, so this is not ours
+            return 0;
+        }
+    }
+
+    static void save(Path file, long generation, List<TrackStats> entries) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(entries.size());
+            for (TrackStats stats : entries) {
+                out.writeUTF(stats.getLocation());
+                out.writeInt(stats.getPlayCount());
+                out.writeInt(stats.getSkipCount());
+                out.writeLong(stats.getLastPlayed());
+                out.writeLong(stats.getHeardMillis());
+            }
+            out.flush();
+            // on disk before the log it replaces is dropped
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.musicplayer.stats;
+
+/** What the stats know about one track location, folded from all its {@link PlayEvent}s. */
+public final class TrackStats {
+    private final String location;
+    private int playCount;
+    private int skipCount;
+    private long lastPlayed;
+    private long heardMillis;
+
+    TrackStats(String location) {
+        this.location = location;
+    }
+
+    TrackStats(String location, int playCount, int skipCount, long lastPlayed, long heardMillis) {
+        this.location = location;
+        this.playCount = playCount;
+        this.skipCount = skipCount;
+        this.lastPlayed = lastPlayed;
+        this.heardMillis = heardMillis;
+    }
+
+    void apply(PlayEvent event) {
+        if (event.getKind() == PlayEvent.Kind.PLAYED) {
+            playCount++;
+            lastPlayed = Math.max(lastPlayed, event.getTime());
+        } else {
+            skipCount++;
+        }
+        heardMillis += event.getHeardMillis();
+    }
+
+    TrackStats copy() {
+        return new TrackStats(location, playCount, skipCount, lastPlayed, heardMillis);
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public int getPlayCount() {
+        return playCount;
+    }
+
+    public int getSkipCount() {
+        return skipCount;
+    }
+
+    /** Epoch milliseconds of the last play, 0 if it was only ever skipped. */
+    public long getLastPlayed() {
+        return lastPlayed;
+    }
+
+    /** Total listening time, seeks and skipped-over parts not counted. */
+    public long getHeardMillis() {
+        return heardMillis;
+    }
+}
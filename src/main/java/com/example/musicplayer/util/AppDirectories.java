@@ -0,0 +1,28 @@
+package com.example.musicplayer.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Locations of the files the player keeps between runs.
+ */
+public final class AppDirectories {
+    private AppDirectories() {
+    }
+
+    public static Path configDir() {
+        String override = System.getProperty("musicplayer.home");
+        if (override != null && !override.isEmpty()) {
+            return Paths.get(override);
+        }
+        return Paths.get(System.getProperty("user.home"), ".musicplayer");
+    }
+
+    public static Path configFile(String name) throws IOException {
+        Path dir = configDir();
+        Files.createDirectories(dir);
+        return dir.resolve(name);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.musicplayer.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fast non-cryptographic 64-bit hash, processed eight bytes at a time.
+ * Good enough to key caches and detect identical content, not for security.
+ */
+public final class Hash64 {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long M = 0xC6A4A7935BD1E995L;
+
+    private Hash64() {
+    }
+
+    public static long hash(byte[] data) {
+        return hash(ByteBuffer.wrap(data));
+    }
+
+    /** Hashes the remaining bytes of {@code buffer} without moving its position. */
+    public static long hash(ByteBuffer buffer) {
+        return finish(update(SEED, buffer), buffer.remaining());
+    }
+
+    /** Mixes the remaining bytes of {@code buffer} into {@code h}; chain calls and call {@link #finish}. */
+    public static long update(long h, ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        while (in.remaining() >= 8) {
+            long k = in.getLong();
+            k *= M;
+            k ^= k >>> 47;
+            k *= M;
+            h ^= k;
+            h *= M;
+        }
+        if (in.hasRemaining()) {
+            long tail = 0;
+            int shift = 0;
+            while (in.hasRemaining()) {
+                tail |= (in.get() & 0xFFL) << shift;
+                shift += 8;
+            }
+            h ^= tail;
+            h *= M;
+        }
+        return h;
+    }
+
+    public static long seed() {
+        return SEED;
+    }
+
+    public static long finish(long h, long length) {
+        h ^= length;
+        h ^= h >>> 47;
+        h *= M;
+        h ^= h >>> 47;
+        return h;
+    }
+}
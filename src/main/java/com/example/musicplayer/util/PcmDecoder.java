@@ -0,0 +1,77 @@
+package com.example.musicplayer.util;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Decodes audio files to 16-bit signed little-endian PCM through javax.sound.
+ * WAV and AIFF are built in, MP3 and FLAC come from the decoders bundled with
+ * the player. The frame length is taken from the file header when the decoder
+ * does not know it, as MP3 decoders do not; it stays unknown only if neither
+ * does.
+ */
+public final class PcmDecoder {
+    private static final String DURATION_MICROS = "duration";
+
+    private PcmDecoder() {
+    }
+
+    /** The sound of {@code file}; fails for formats without a decoder. */
+    public static AudioInputStream open(Path file, int bufferSize) throws IOException, UnsupportedAudioFileException {
+        InputStream raw = new BufferedInputStream(Files.newInputStream(file), bufferSize);
+        try {
+            AudioInputStream source = AudioSystem.getAudioInputStream(raw);
+            AudioFormat format = source.getFormat();
+            AudioInputStream decoded = source;
+            if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding())
+                    && !AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding())) {
+                // decoders want a complete target, at the source depth when it has one
+                int bits = format.getSampleSizeInBits() > 0 ? format.getSampleSizeInBits() : 16;
+                int frameSize = format.getChannels() * ((bits + 7) / 8);
+                AudioFormat target = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), bits,
+                        format.getChannels(), frameSize, format.getSampleRate(), false);
+                decoded = AudioSystem.getAudioInputStream(target, source);
+            }
+            AudioFormat decodedFormat = decoded.getFormat();
+            float rate = decodedFormat.getSampleRate();
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, rate, 16,
+                    decodedFormat.getChannels(), decodedFormat.getChannels() * 2, rate, false);
+            AudioInputStream in = decodedFormat.matches(pcm) ? decoded : AudioSystem.getAudioInputStream(pcm, decoded);
+
+            long frames = source.getFrameLength();
+            if (frames == AudioSystem.NOT_SPECIFIED) {
+                frames = framesFromHeader(file, rate);
+            }
+            return frames == in.getFrameLength() ? in : new AudioInputStream(in, pcm, frames);
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /** Frames in {@code file} by the duration its header states, or unknown. */
+    private static long framesFromHeader(Path file, float rate) {
+        try {
+            AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(file.toFile());
+            if (fileFormat.getFrameLength() != AudioSystem.NOT_SPECIFIED
+                    && fileFormat.getFormat().getFrameRate() == rate) {
+                return fileFormat.getFrameLength();
+            }
+            Object micros = fileFormat.properties().get(DURATION_MICROS);
+            if (micros instanceof Long && (Long) micros > 0) {
+                return Math.round((Long) micros / 1e6 * rate);
+            }
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+            // the length stays unknown
+        }
+        return AudioSystem.NOT_SPECIFIED;
+    }
+}
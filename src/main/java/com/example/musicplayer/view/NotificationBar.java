@@ -0,0 +1,53 @@
+package com.example.musicplayer.view;
+
+import javafx.animation.PauseTransition;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.util.Duration;
+
+/**
+ * A strip for errors that should not interrupt anything, such as a track that
+ * could not be opened while auto-advance moves on. It hides itself after a few
+ * seconds; messages arriving while it is shown are counted instead of stacked.
+ */
+public class NotificationBar extends HBox {
+    private static final Duration SHOWN_FOR = Duration.seconds(6);
+
+    private final Label message = new Label();
+    private final PauseTransition hideDelay = new PauseTransition(SHOWN_FOR);
+    private int more;
+
+    public NotificationBar() {
+        super(10);
+        getStyleClass().add("notification");
+        setAlignment(Pos.CENTER_LEFT);
+        message.setMaxWidth(Double.MAX_VALUE);
+        HBox.setHgrow(message, Priority.ALWAYS);
+        Button dismiss = new Button("✕");
+        dismiss.setOnAction(e -> hide());
+        getChildren().addAll(message, dismiss);
+
+        managedProperty().bind(visibleProperty());
+        setVisible(false);
+        hideDelay.setOnFinished(e -> hide());
+    }
+
+    public void show(String text) {
+        if (isVisible()) {
+            more++;
+        } else {
+            more = 0;
+        }
+        message.setText(more > 0 ? text + "  (+" + more + " more)" : text);
+        setVisible(true);
+        hideDelay.playFromStart();
+    }
+
+    public void hide() {
+        hideDelay.stop();
+        setVisible(false);
+    }
+}
@@ -1,39 +1,106 @@
 package com.example.musicplayer.view;
 
 import javafx.animation.*;
+import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.beans.binding.Bindings;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
-import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
+import com.example.musicplayer.analysis.AnalysisService;
+import com.example.musicplayer.artwork.ArtworkService;
+import com.example.musicplayer.controller.PlaybackEngine;
 import com.example.musicplayer.controller.PlayerController;
+import com.example.musicplayer.duplicates.Duplicate;
+import com.example.musicplayer.duplicates.DuplicateService;
+import com.example.musicplayer.library.ImportService;
+import com.example.musicplayer.library.LibraryIndex;
+import com.example.musicplayer.library.LibraryWatcher;
+import com.example.musicplayer.library.PlaylistImportTask;
+import com.example.musicplayer.library.MetadataCache;
+import com.example.musicplayer.library.TagReader;
+import com.example.musicplayer.library.TrackResolver;
+import com.example.musicplayer.metrics.FxStallMonitor;
+import com.example.musicplayer.playlist.PlaylistWriter;
+import com.example.musicplayer.remote.RemoteServer;
+import com.example.musicplayer.session.Favorites;
+import com.example.musicplayer.smart.SmartPlaylist;
+import com.example.musicplayer.smart.SmartPlaylistStore;
+import com.example.musicplayer.smart.SmartView;
+import com.example.musicplayer.stats.StatsService;
+import com.example.musicplayer.session.SessionRestoreTask;
+import com.example.musicplayer.session.SessionState;
+import com.example.musicplayer.session.SessionStore;
+import com.example.musicplayer.session.WorkspaceStore;
+import com.example.musicplayer.model.PlayQueue;
 import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.SortKey;
 import com.example.musicplayer.model.Track;
-import org.jaudiotagger.audio.AudioFile;
-import org.jaudiotagger.audio.AudioFileIO;
-import org.jaudiotagger.tag.FieldKey;
-import org.jaudiotagger.tag.Tag;
+import com.example.musicplayer.model.TrackSorter;
 
 import java.io.*;
-import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class PlayerView {
+    private static final int ALBUM_ART_SIZE = 300;
+    private static final int WAVEFORM_WIDTH = 560;
+    private static final int WAVEFORM_HEIGHT = 48;
+    private static final Duration SEARCH_DELAY = Duration.millis(150);
+    private static final Duration SESSION_SAVE_INTERVAL = Duration.seconds(15);
+    private static final Map<String, List<SortKey>> SORT_ORDERS = new LinkedHashMap<>();
+    private static final String LIBRARY = "Library";
+
+    static {
+        SORT_ORDERS.put("Artist, title", List.of(
+                SortKey.ascending(SortKey.Field.ARTIST), SortKey.ascending(SortKey.Field.TITLE)));
+        SORT_ORDERS.put("Title", List.of(SortKey.ascending(SortKey.Field.TITLE)));
+        SORT_ORDERS.put("Longest first", List.of(SortKey.descending(SortKey.Field.DURATION)));
+        SORT_ORDERS.put("Folder", List.of(SortKey.ascending(SortKey.Field.PATH)));
+    }
+
     private Playlist playlist;
     private PlayerController controller;
     private MediaPlayer mediaPlayer;
 
     // UI Components
+    private TabPane playlistTabs;
+    private Tab libraryTab;
+    private Button newPlaylistButton;
     private ListView<Track> playlistView;
+    private FilteredList<Track> visibleTracks;
+    private ComboBox<String> smartBox;
+    private Button newSmartButton;
+    private Button deleteSmartButton;
+    private TextField searchField;
+    private ComboBox<String> sortBox;
     private Label currentTrackLabel;
     private Label timeLabel;
     private Slider volumeSlider;
@@ -44,27 +111,135 @@ public class PlayerView {
     private Button nextButton;
     private Button prevButton;
     private Button addTrackButton;
+    private Button addFolderButton;
+    private CheckBox watchFoldersBox;
     private Button removeTrackButton;
+    private Button removeDuplicatesButton;
     private Button savePlaylistButton;
     private Button loadPlaylistButton;
     private Button changeAlbumArtButton;
     private ToggleButton repeatButton;
     private ToggleButton shuffleButton;
     private ToggleButton favoriteButton;
+    private Button statsButton;
     private Label nowPlayingLabel;
+    private Label upNextLabel;
+    private Button clearQueueButton;
+    private HBox upNextPanel;
+    private ContextMenu queueMenu;
+    private Menu addToPlaylistMenu;
+    private Track queueMenuTrack;
+    private Playlist queueMenuPlaylist;
     private ProgressBar songProgressBar;
+    private WaveformView waveformView;
     private ImageView albumArt;
     private StackPane albumArtContainer;
-
-    private boolean isRepeating = false;
-    private boolean isShuffling = false;
-    private boolean isPlaying = false;
-    private Random random = new Random();
+    private ProgressRenderer progressRenderer;
+    private ProgressBar importProgressBar;
+    private Button cancelImportButton;
+    private HBox importPanel;
+    private NotificationBar notificationBar;
+
+    private ImportService importService;
+    private TrackResolver trackResolver;
+    private ArtworkService artworkService;
+    private AnalysisService analysisService;
+    private DuplicateService duplicateService;
+    private StatsService statsService;
+    private RemoteServer remoteServer;
+    private LibraryIndex libraryIndex;
+    private LibraryWatcher libraryWatcher;
+    private FxStallMonitor stallMonitor;
+    private final List<Path> importedFolders = new ArrayList<>();
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+    private long searchSequence;
+    private long sortSequence;
+    private Image defaultAlbumArt;
+    // imports run side by side, Cancel stops all of them
+    private final List<Task<Integer>> imports = new ArrayList<>();
+
+    private final ObjectProperty<Track> nowPlaying = new SimpleObjectProperty<>();
+
+    // Session
+    private SessionStore sessionStore;
+    private final Favorites favorites = new Favorites();
+    private final Map<String, SmartPlaylist> smartPlaylists = new LinkedHashMap<>();
+    private final Map<String, SmartView> smartViews = new HashMap<>();
+    private SmartPlaylistStore smartPlaylistStore;
+    private WorkspaceStore workspaceStore;
+    private int nextPlaylistId = 1;
+    private boolean workspaceDirty;
+    private ExecutorService sessionWriter;
+    private Timeline sessionSaver;
+    private SessionRestoreTask restoreTask;
+    // the saved playlist was not read in full, writing ours would lose the rest of it
+    private boolean restoreIncomplete;
+    private int savedPlaylistVersion = -1;
+    private Track resumeTrack;
+    private double resumePosition;
     private String customAlbumArtPath = null;
 
     public void show(Stage stage) {
         playlist = new Playlist();
         controller = new PlayerController(playlist);
+        controller.getEngine().addListener(new PlaybackEngine.Listener() {
+            @Override
+            public void trackChanged(Track track) {
+                onTrackChanged(track);
+            }
+
+            @Override
+            public void stateChanged(PlaybackEngine.State state) {
+                analysisService.setPlaybackActive(state == PlaybackEngine.State.PLAYING);
+                nowPlaying.set(state == PlaybackEngine.State.PLAYING ? controller.getEngine().getCurrentTrack() : null);
+            }
+
+            @Override
+            public void trackReady(Track track, double durationSeconds) {
+                onTrackReady(durationSeconds);
+            }
+
+            @Override
+            public void playbackFailed(Track track, String message) {
+                notificationBar.show("Cannot play " + (track != null ? track.getTitle() : "track") + ": " + message);
+                currentTrackLabel.setText("Error playing track");
+            }
+
+            @Override
+            public void trackFinished(Track track, double heardSeconds, double durationSeconds, boolean completed) {
+                statsService.record(track, heardSeconds, durationSeconds, completed);
+            }
+        });
+        importService = new ImportService(new TagReader(MetadataCache.openDefault()));
+        libraryIndex = new LibraryIndex();
+        libraryWatcher = new LibraryWatcher(new LibraryWatcher.Listener() {
+            @Override
+            public void filesCreated(List<Path> files) {
+                onFilesCreated(files);
+            }
+
+            @Override
+            public void filesModified(List<Path> files) {
+                onFilesModified(files);
+            }
+
+            @Override
+            public void pathsDeleted(List<Path> paths) {
+                onPathsDeleted(paths);
+            }
+        });
+        artworkService = ArtworkService.createDefault(importService.getTagReader().getCache());
+        analysisService = AnalysisService.createDefault();
+        duplicateService = DuplicateService.createDefault();
+        statsService = StatsService.createDefault();
+        if (Boolean.parseBoolean(System.getProperty("musicplayer.replaygain", "true"))) {
+            controller.getEngine().setGainProvider(analysisService::gain);
+        }
+        stallMonitor = new FxStallMonitor(Long.getLong("musicplayer.stall.millis", 100));
+        stallMonitor.start();
+        trackResolver = new TrackResolver(importService.getTagReader(), this::tracksResolved);
+        // a file imported again after an edit updates the pooled track in every playlist
+        importService.getTagReader().setOnRefreshed(track -> Platform.runLater(() -> tracksResolved(List.of(track))));
 
         initializeUI();
         BorderPane mainLayout = createMainLayout();
@@ -76,6 +251,177 @@ public class PlayerView {
         stage.setTitle("Modern Music Player");
         stage.setResizable(false);
         stage.show();
+
+        startRemoteControl();
+        restoreSession();
+    }
+
+    /** Serves the remote API if configured; volume and rate go through the sliders so they stay in step. */
+    private void startRemoteControl() {
+        try {
+            remoteServer = RemoteServer.fromSystemProperties(controller.getEngine(), Platform::runLater);
+        } catch (IOException | IllegalArgumentException e) {
+            notificationBar.show("Remote control unavailable: " + e.getMessage());
+            return;
+        }
+        if (remoteServer != null) {
+            remoteServer.setVolumeHandler(volumeSlider::setValue);
+            remoteServer.setRateHandler(speedSlider::setValue);
+            remoteServer.start();
+        }
+    }
+
+    /** Applies the saved settings and streams the saved playlist in behind the visible window. */
+    private void restoreSession() {
+        sessionStore = SessionStore.openDefault();
+        smartPlaylistStore = SmartPlaylistStore.openDefault();
+        workspaceStore = WorkspaceStore.openDefault();
+        sessionWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sessionSaver = new Timeline(new KeyFrame(SESSION_SAVE_INTERVAL, e -> saveSession()));
+        sessionSaver.setCycleCount(Animation.INDEFINITE);
+
+        CompletableFuture.supplyAsync(sessionStore::loadState).thenAccept(state -> Platform.runLater(() -> {
+            if (state != null) {
+                applySettings(state);
+            }
+            // after the favorites, which smart playlists may test
+            CompletableFuture.supplyAsync(smartPlaylistStore::load)
+                    .thenAccept(saved -> Platform.runLater(() -> saved.forEach(this::addSmartPlaylist)));
+            // only the tab names, each playlist is read when its tab is first shown
+            CompletableFuture.supplyAsync(workspaceStore::load)
+                    .thenAccept(saved -> Platform.runLater(() -> saved.forEach(entry -> {
+                        openPlaylistTab(entry.getId(), entry.getName(), false);
+                        nextPlaylistId = Math.max(nextPlaylistId, entry.getId() + 1);
+                    })));
+            restoreTask = new SessionRestoreTask(sessionStore, this::restoreTracks);
+            restoreTask.setOnSucceeded(e -> finishRestore(state, true));
+            restoreTask.setOnFailed(e -> finishRestore(state, false));
+            restoreTask.setOnCancelled(e -> finishRestore(state, false));
+            showRestoreProgress();
+            // saves queue up behind the restore on the same thread
+            sessionWriter.execute(restoreTask);
+        }));
+    }
+
+    private void applySettings(SessionState state) {
+        volumeSlider.setValue(state.getVolume());
+        speedSlider.setValue(state.getRate());
+        PlaybackEngine engine = controller.getEngine();
+        if (engine.isRepeat() != state.isRepeat()) {
+            toggleRepeat();
+        }
+        if (engine.isShuffle() != state.isShuffle()) {
+            toggleShuffle();
+        }
+        favorites.setLocations(state.getFavorites());
+    }
+
+    private void finishRestore(SessionState state, boolean complete) {
+        restoreTask = null;
+        if (imports.isEmpty()) {
+            importProgressBar.progressProperty().unbind();
+            importPanel.setVisible(false);
+        }
+        if (complete) {
+            savedPlaylistVersion = playlist.getModificationCount();
+        } else {
+            restoreIncomplete = true;
+            notificationBar.show("The saved playlist could not be read in full, it will not be overwritten");
+        }
+        if (state != null && controller.getEngine().getCurrentTrack() == null
+                && state.getCurrentIndex() >= 0 && state.getCurrentIndex() < playlist.size()) {
+            Track track = playlist.getTrack(state.getCurrentIndex());
+            if (track.getFilePath().equals(state.getCurrentLocation())) {
+                // cue it without playing, play() starts it and seeks to where it was
+                playlist.setCurrentTrackIndex(state.getCurrentIndex());
+                resumeTrack = track;
+                resumePosition = state.getPositionSeconds();
+                currentTrackLabel.setText(track.getTitle() + " - " + track.getArtist());
+                playlistView.scrollTo(track);
+            }
+        }
+        sessionSaver.play();
+    }
+
+    /** Writes the state, and the playlist if it changed since it was last written. */
+    private void saveSession() {
+        if (restoreTask != null) {
+            return;
+        }
+        SessionState state = captureState();
+        List<Track> tracks = !restoreIncomplete && playlist.getModificationCount() != savedPlaylistVersion
+                ? List.copyOf(playlist.getTracks()) : null;
+        savedPlaylistVersion = playlist.getModificationCount();
+        sessionWriter.execute(() -> {
+            try {
+                if (tracks != null) {
+                    sessionStore.savePlaylist(tracks);
+                }
+                sessionStore.saveState(state);
+            } catch (IOException e) {
+                // try the playlist again next time
+                Platform.runLater(() -> savedPlaylistVersion = -1);
+            }
+        });
+        saveWorkspace();
+    }
+
+    /** Writes the tab list if tabs came or went, and every read playlist that changed. */
+    private void saveWorkspace() {
+        List<WorkspaceStore.Entry> entries = null;
+        if (workspaceDirty) {
+            entries = new ArrayList<>();
+            for (PlaylistTab tab : playlistTabs()) {
+                entries.add(new WorkspaceStore.Entry(tab.getPlaylistId(), tab.getText()));
+            }
+            workspaceDirty = false;
+        }
+        List<WorkspaceStore.Entry> tabs = entries;
+        for (PlaylistTab tab : playlistTabs()) {
+            if (tab.needsSave()) {
+                List<Track> tracks = List.copyOf(tab.getPlaylist().getTracks());
+                Path file = workspaceStore.playlistFile(tab.getPlaylistId());
+                tab.markSaved();
+                sessionWriter.execute(() -> {
+                    try {
+                        SessionStore.savePlaylist(file, tracks);
+                    } catch (IOException e) {
+                        Platform.runLater(tab::markUnsaved);
+                    }
+                });
+            }
+        }
+        if (tabs != null) {
+            sessionWriter.execute(() -> {
+                try {
+                    workspaceStore.save(tabs);
+                } catch (IOException e) {
+                    Platform.runLater(() -> workspaceDirty = true);
+                }
+            });
+        }
+    }
+
+    private SessionState captureState() {
+        PlaybackEngine engine = controller.getEngine();
+        SessionState state = new SessionState();
+        Track current = engine.getCurrentTrack() != null ? engine.getCurrentTrack() : resumeTrack;
+        int index = current != null ? playlist.indexOf(current) : -1;
+        if (index >= 0) {
+            state.setCurrentIndex(index);
+            state.setCurrentLocation(current.getFilePath());
+            state.setPositionSeconds(current == resumeTrack ? resumePosition : engine.getPosition());
+        }
+        state.setVolume(volumeSlider.getValue());
+        state.setRate(speedSlider.getValue());
+        state.setRepeat(engine.isRepeat());
+        state.setShuffle(engine.isShuffle());
+        state.setFavorites(favorites.getLocations());
+        return state;
     }
 
     private void initializeUI() {
@@ -87,7 +433,12 @@ public class PlayerView {
 
         // Feature Buttons
         addTrackButton = createIconButton("Add", "/icons/add.png", () -> addTracks());
+        addFolderButton = createIconButton("Add Folder", "/icons/folder.png", () -> addFolder());
+        watchFoldersBox = new CheckBox("Watch");
+        watchFoldersBox.setTooltip(new Tooltip("Follow changes in imported folders"));
+        watchFoldersBox.selectedProperty().addListener((obs, wasSelected, selected) -> setWatchFolders(selected));
         removeTrackButton = createIconButton("Remove", "/icons/remove.png", () -> removeSelectedTrack());
+        removeDuplicatesButton = createIconButton("Dedupe", "/icons/dedupe.png", () -> removeDuplicates());
         savePlaylistButton = createIconButton("Save", "/icons/save.png", () -> savePlaylist());
         loadPlaylistButton = createIconButton("Load", "/icons/load.png", () -> loadPlaylist());
         changeAlbumArtButton = createIconButton("Change Art", "/icons/art.png", () -> changeAlbumArt());
@@ -97,8 +448,11 @@ public class PlayerView {
         repeatButton.setOnAction(e -> toggleRepeat());
         shuffleButton = new ToggleButton("🎲");
         shuffleButton.setOnAction(e -> toggleShuffle());
-        favoriteButton = new ToggleButton("❤");
+        favoriteButton = new ToggleButton("♡");
         favoriteButton.setOnAction(e -> toggleFavorite());
+        statsButton = new Button("📊");
+        statsButton.setTooltip(new Tooltip("Listening statistics"));
+        statsButton.setOnAction(e -> new StatsDialog(statsService).show());
 
         // Labels
         currentTrackLabel = new Label("No track selected");
@@ -108,10 +462,31 @@ public class PlayerView {
         nowPlayingLabel = new Label("Now Playing");
         nowPlayingLabel.getStyleClass().add("now-playing");
 
+        // Play Queue
+        PlayQueue queue = controller.getEngine().getQueue();
+        MenuItem playNextItem = new MenuItem("Play Next");
+        // the queue plays ahead of whichever playlist is playing, wherever a track was queued from
+        playNextItem.setOnAction(e -> queue.addFirst(queueMenuTrack, queueMenuPlaylist));
+        MenuItem addToQueueItem = new MenuItem("Add to Queue");
+        addToQueueItem.setOnAction(e -> queue.add(queueMenuTrack, queueMenuPlaylist));
+        addToPlaylistMenu = new Menu("Add to Playlist");
+        queueMenu = new ContextMenu(playNextItem, addToQueueItem, addToPlaylistMenu);
+        queueMenu.setOnShowing(e -> fillAddToPlaylistMenu());
+        upNextLabel = new Label();
+        upNextLabel.setMaxWidth(240);
+        clearQueueButton = new Button("Clear");
+        clearQueueButton.setOnAction(e -> queue.clear());
+        upNextPanel = new HBox(10, upNextLabel, clearQueueButton);
+        upNextPanel.setAlignment(Pos.CENTER);
+        upNextPanel.setVisible(false);
+        upNextPanel.managedProperty().bind(upNextPanel.visibleProperty());
+        queue.addListener(this::updateUpNext);
+
         // Sliders
         volumeSlider = new Slider(0, 1, 0.7);
         volumeSlider.valueProperty().addListener((obs, oldVal, newVal) ->
                 controller.setVolume(newVal.doubleValue()));
+        controller.setVolume(volumeSlider.getValue());
 
         speedSlider = new Slider(0.5, 2.0, 1.0);
         speedSlider.setMajorTickUnit(0.5);
@@ -119,18 +494,39 @@ public class PlayerView {
         speedSlider.setShowTickMarks(true);
         speedSlider.valueProperty().addListener((obs, oldVal, newVal) ->
                 controller.setPlaybackRate(newVal.doubleValue()));
+        controller.setPlaybackRate(speedSlider.getValue());
 
         progressSlider = new Slider();
         progressSlider.setDisable(true);
         songProgressBar = new ProgressBar(0);
         songProgressBar.setPrefWidth(Double.MAX_VALUE);
+        progressRenderer = new ProgressRenderer(timeLabel, progressSlider, songProgressBar,
+                Double.parseDouble(System.getProperty("musicplayer.progress.hz", "10")));
+        waveformView = new WaveformView(WAVEFORM_WIDTH, WAVEFORM_HEIGHT,
+                fraction -> controller.getEngine().seek(fraction * progressRenderer.getTotalSeconds()));
+        songProgressBar.progressProperty().addListener((obs, oldVal, newVal) ->
+                waveformView.setProgress(newVal.doubleValue()));
+
+        notificationBar = new NotificationBar();
+
+        // Import
+        importProgressBar = new ProgressBar(0);
+        importProgressBar.setPrefWidth(300);
+        cancelImportButton = new Button("Cancel");
+        cancelImportButton.setOnAction(e -> cancelImport());
+        importPanel = new HBox(10, importProgressBar, cancelImportButton);
+        importPanel.setAlignment(Pos.CENTER);
+        importPanel.setVisible(false);
+        importPanel.managedProperty().bind(importPanel.visibleProperty());
 
         // Album Art
         albumArt = new ImageView();
-        albumArt.setFitWidth(300);
-        albumArt.setFitHeight(300);
+        albumArt.setFitWidth(ALBUM_ART_SIZE);
+        albumArt.setFitHeight(ALBUM_ART_SIZE);
         albumArt.setPreserveRatio(true);
         albumArt.setSmooth(true);
+        InputStream defaultArt = getClass().getResourceAsStream("/icons/default_album.png");
+        defaultAlbumArt = defaultArt != null ? new Image(defaultArt, ALBUM_ART_SIZE, ALBUM_ART_SIZE, true, true) : null;
 
         albumArtContainer = new StackPane(albumArt);
         albumArtContainer.setAlignment(Pos.CENTER);
@@ -140,28 +536,73 @@ public class PlayerView {
         // Playlist
         playlistView = new ListView<>();
         playlistView.setPrefHeight(300);
-        playlistView.setCellFactory(lv -> new ListCell<Track>() {
-            @Override
-            protected void updateItem(Track track, boolean empty) {
-                super.updateItem(track, empty);
-                if (empty || track == null) {
-                    setText(null);
-                    setGraphic(null);
-                } else {
-                    setText(track.toString());
-                    if (track == playlist.getCurrentTrack() && isPlaying) {
-                        setStyle("-fx-background-color: #1DB954; -fx-text-fill: white;");
-                    } else {
-                        setStyle("");
-                    }
+        visibleTracks = new FilteredList<>(playlist.getTracks());
+        playlistView.setItems(visibleTracks);
+        playlistView.setCellFactory(lv -> createTrackCell(playlist));
+        libraryTab = new Tab(LIBRARY, playlistView);
+        libraryTab.setClosable(false);
+        playlistTabs = new TabPane(libraryTab);
+        playlistTabs.setPrefHeight(300);
+        playlistTabs.setTabClosingPolicy(TabPane.TabClosingPolicy.ALL_TABS);
+        playlistTabs.getSelectionModel().selectedItemProperty().addListener((obs, oldTab, tab) -> {
+            if (tab instanceof PlaylistTab) {
+                loadPlaylistTab((PlaylistTab) tab);
+            }
+        });
+        newPlaylistButton = new Button("+");
+        newPlaylistButton.setTooltip(new Tooltip("New playlist"));
+        newPlaylistButton.setOnAction(e -> newPlaylist());
+
+        // Search
+        searchField = new TextField();
+        searchField.setPromptText("Search title, artist or path");
+        searchField.textProperty().addListener((obs, oldText, newText) -> searchDelay.playFromStart());
+        searchDelay.setOnFinished(e -> runSearch());
+        smartBox = new ComboBox<>();
+        smartBox.getItems().add(LIBRARY);
+        smartBox.setValue(LIBRARY);
+        smartBox.setOnAction(e -> showSmartPlaylist(smartBox.getValue()));
+        newSmartButton = new Button("+");
+        newSmartButton.setTooltip(new Tooltip("New smart playlist"));
+        newSmartButton.setOnAction(e -> newSmartPlaylist());
+        deleteSmartButton = new Button("✕");
+        deleteSmartButton.setTooltip(new Tooltip("Delete smart playlist"));
+        deleteSmartButton.setOnAction(e -> deleteSmartPlaylist());
+        deleteSmartButton.setDisable(true);
+
+        sortBox = new ComboBox<>();
+        sortBox.getItems().addAll(SORT_ORDERS.keySet());
+        sortBox.setPromptText("Sort");
+        sortBox.setOnAction(e -> {
+            if (sortBox.getValue() != null) {
+                sortPlaylist(SORT_ORDERS.get(sortBox.getValue()));
+            }
+        });
+        libraryIndex.attach(playlist);
+        playlist.getTracks().addListener((ListChangeListener<Track>) change -> {
+            List<Track> removed = new ArrayList<>();
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    removed.addAll(change.getRemoved());
                 }
             }
+            // a replace reports tracks that stay as removed too
+            removed.removeIf(playlist::contains);
+            if (!removed.isEmpty()) {
+                duplicateService.forget(removed);
+            }
+        });
+        playlist.getTracks().addListener((ListChangeListener<Track>) change -> {
+            // new or edited tracks are matched by re-running the current query
+            if (!searchField.getText().isBlank()) {
+                searchDelay.playFromStart();
+            }
         });
 
         playlistView.getSelectionModel().selectedItemProperty().addListener(
                 (obs, oldVal, newVal) -> {
                     if (newVal != null) {
-                        playSelectedTrack(newVal);
+                        playSelectedTrack(newVal, playlist);
                     }
                 });
 
@@ -186,7 +627,7 @@ public class PlayerView {
 
         // Mode Panel
         HBox modePanel = new HBox(10,
-                shuffleButton, repeatButton, favoriteButton);
+                shuffleButton, repeatButton, favoriteButton, statsButton);
         modePanel.setAlignment(Pos.CENTER);
 
         leftPanel.getChildren().addAll(
@@ -194,7 +635,8 @@ public class PlayerView {
                 nowPlayingLabel,
                 currentTrackLabel,
                 controlPanel,
-                modePanel
+                modePanel,
+                upNextPanel
         );
 
         // Right Panel - Playlist and Settings
@@ -205,7 +647,8 @@ public class PlayerView {
 
         // Playlist Controls
         HBox playlistControls = new HBox(10,
-                addTrackButton, removeTrackButton, savePlaylistButton, loadPlaylistButton);
+                addTrackButton, addFolderButton, removeTrackButton, removeDuplicatesButton, savePlaylistButton,
+                loadPlaylistButton, watchFoldersBox);
         playlistControls.setAlignment(Pos.CENTER);
 
         // Volume and Speed Controls
@@ -214,16 +657,28 @@ public class PlayerView {
                 new VBox(5, new Label("Speed:"), speedSlider));
         settingsPanel.setAlignment(Pos.CENTER);
 
+        HBox playlistHeader = new HBox(10, new Label("Playlist"), newPlaylistButton);
+        playlistHeader.setAlignment(Pos.CENTER);
+
+        // Search and Sort
+        HBox searchBar = new HBox(10, smartBox, newSmartButton, deleteSmartButton, searchField, sortBox);
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+        // search, smart playlists and sorting work on the library
+        searchBar.disableProperty().bind(libraryTab.selectedProperty().not());
+
         // Progress Section
         VBox progressSection = new VBox(10,
                 new HBox(10, new Label("0:00"), progressSlider, timeLabel),
+                waveformView,
                 songProgressBar);
         progressSection.setAlignment(Pos.CENTER);
 
         rightPanel.getChildren().addAll(
-                new Label("Playlist"),
-                playlistView,
+                playlistHeader,
+                searchBar,
+                playlistTabs,
                 playlistControls,
+                importPanel,
                 progressSection,
                 settingsPanel
         );
@@ -232,6 +687,7 @@ public class PlayerView {
         BorderPane mainLayout = new BorderPane();
         mainLayout.setLeft(leftPanel);
         mainLayout.setRight(rightPanel);
+        mainLayout.setBottom(notificationBar);
         mainLayout.setStyle("-fx-background-color: #121212;");
 
         return mainLayout;
@@ -259,143 +715,368 @@ public class PlayerView {
     private void setupMediaPlayer() {
         progressSlider.valueChangingProperty().addListener((obs, oldVal, newVal) -> {
             if (!newVal && mediaPlayer != null) {
-                mediaPlayer.seek(Duration.seconds(progressSlider.getValue()));
+                controller.getEngine().seek(progressSlider.getValue());
             }
         });
 
         progressSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            if (mediaPlayer != null && !progressSlider.isValueChanging()) {
-                songProgressBar.setProgress(newVal.doubleValue() / mediaPlayer.getTotalDuration().toSeconds());
+            // the renderer already updated the bar for the value it set
+            if (mediaPlayer != null && !progressSlider.isValueChanging() && !progressRenderer.isRendering()
+                    && progressRenderer.getTotalSeconds() > 0) {
+                songProgressBar.setProgress(newVal.doubleValue() / progressRenderer.getTotalSeconds());
             }
         });
     }
 
     // Остальные методы остаются без изменений
     private void playTrack() {
-        if (playlist.getCurrentTrack() == null && !playlist.getTracks().isEmpty()) {
-            playlist.setCurrentTrackIndex(0);
+        controller.play();
+    }
+
+    private void onTrackChanged(Track track) {
+        if (track == null) {
+            mediaPlayer = null;
+            progressRenderer.detach();
+            waveformView.setAnalysis(null);
+            currentTrackLabel.setText("No track selected");
+            albumArt.setImage(null);
+            return;
         }
 
-        if (mediaPlayer != null) {
-            mediaPlayer.stop();
-            mediaPlayer.dispose();
+        if (track != resumeTrack) {
+            resumeTrack = null;
         }
+        updateFavoriteButton(track);
+        trackResolver.request(track);
+        waveformView.setAnalysis(null);
+        analysisService.request(track, analysis -> {
+            waveformView.setAnalysis(analysis);
+            // a track opened before its first analysis played at gain 1 until now
+            controller.getEngine().gainChanged(track);
+        });
+        currentTrackLabel.setText(track.getTitle() + " - " + track.getArtist());
+        loadAlbumArt(track);
+        attachPlayer();
+        ListView<Track> view = listViewOf(controller.getEngine().getPlaylist());
+        view.getSelectionModel().select(track);
+        view.scrollTo(track);
+    }
 
-        Track currentTrack = playlist.getCurrentTrack();
-        if (currentTrack != null) {
-            Media media = new Media(currentTrack.getFilePath());
-            mediaPlayer = new MediaPlayer(media);
-            controller.setMediaPlayer(mediaPlayer);
+    private void attachPlayer() {
+        MediaPlayer player = controller.getMediaPlayer();
+        if (player == mediaPlayer) {
+            return;
+        }
+        mediaPlayer = player;
+        if (player != null) {
+            progressRenderer.attach(player);
+        } else {
+            progressRenderer.detach();
+        }
+    }
 
-            currentTrackLabel.setText(currentTrack.getTitle() + " - " + currentTrack.getArtist());
-            loadAlbumArt(currentTrack);
+    private void onTrackReady(double durationSeconds) {
+        Track track = controller.getEngine().getCurrentTrack();
+        if (track != null && track == resumeTrack) {
+            controller.getEngine().seek(resumePosition);
+        }
+        resumeTrack = null;
+        // a track that had to be opened in the background gets its player only now
+        attachPlayer();
+        if (durationSeconds < 0) {
+            return;
+        }
+        progressSlider.setMax(durationSeconds);
+        progressSlider.setDisable(false);
+        progressRenderer.setTotalDuration(Duration.seconds(durationSeconds));
+    }
 
-            mediaPlayer.currentTimeProperty().addListener((obs, oldTime, newTime) -> {
-                if (!progressSlider.isValueChanging()) {
-                    progressSlider.setValue(newTime.toSeconds());
-                }
-                timeLabel.setText(
-                        formatTime(newTime.toSeconds()) + " / " + formatTime(media.getDuration().toSeconds())
-                );
-                songProgressBar.setProgress(newTime.toSeconds() / media.getDuration().toSeconds());
-            });
+    // Остальные методы остаются без изменений
+    private void pauseTrack() {
+        controller.pause();
+    }
 
-            mediaPlayer.setOnReady(() -> {
-                progressSlider.setMax(media.getDuration().toSeconds());
-                progressSlider.setDisable(false);
-            });
+    private void nextTrack() {
+        controller.next();
+    }
 
-            mediaPlayer.setOnEndOfMedia(() -> {
-                if (isRepeating) {
-                    mediaPlayer.seek(Duration.ZERO);
-                    mediaPlayer.play();
-                } else {
-                    nextTrack();
-                }
-            });
+    private void prevTrack() {
+        controller.prev();
+    }
 
-            mediaPlayer.setOnError(() -> {
-                showAlert("Error", "Cannot play the selected track: " + mediaPlayer.getError().getMessage());
-                currentTrackLabel.setText("Error playing track");
-            });
+    /** Plays {@code track} and makes next and previous continue in {@code owner}, the playlist it was picked in. */
+    private void playSelectedTrack(Track track, Playlist owner) {
+        PlaybackEngine engine = controller.getEngine();
+        boolean switched = engine.getPlaylist() != owner;
+        engine.setPlaylist(owner);
+        // selecting the row of the track that just started must not reopen it
+        if (track == engine.getCurrentTrack()) {
+            if (switched) {
+                owner.setCurrentTrackIndex(owner.indexOf(track));
+            }
+            return;
+        }
+        controller.play(track);
+    }
+
+    private ListCell<Track> createTrackCell(Playlist owner) {
+        TrackCell cell = new TrackCell(nowPlaying, trackResolver::request);
+        // a right click must not select the row, selecting plays it
+        cell.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if (e.getButton() == MouseButton.SECONDARY) {
+                e.consume();
+            }
+        });
+        cell.setOnContextMenuRequested(e -> {
+            if (cell.getItem() != null) {
+                queueMenuTrack = cell.getItem();
+                queueMenuPlaylist = owner;
+                queueMenu.show(cell, e.getScreenX(), e.getScreenY());
+            }
+            e.consume();
+        });
+        return cell;
+    }
 
-            mediaPlayer.play();
-            isPlaying = true;
-            playlistView.refresh();
+    private void fillAddToPlaylistMenu() {
+        addToPlaylistMenu.getItems().clear();
+        for (PlaylistTab tab : playlistTabs()) {
+            if (tab.getPlaylist() != queueMenuPlaylist) {
+                MenuItem item = new MenuItem(tab.getText());
+                Track track = queueMenuTrack;
+                item.setOnAction(e -> addToPlaylist(tab, List.of(track)));
+                addToPlaylistMenu.getItems().add(item);
+            }
         }
+        if (!addToPlaylistMenu.getItems().isEmpty()) {
+            addToPlaylistMenu.getItems().add(new SeparatorMenuItem());
+        }
+        MenuItem newItem = new MenuItem("New Playlist...");
+        Track track = queueMenuTrack;
+        newItem.setOnAction(e -> newPlaylist().ifPresent(tab -> addToPlaylist(tab, List.of(track))));
+        addToPlaylistMenu.getItems().add(newItem);
     }
 
-    // Остальные методы остаются без изменений
-    private void pauseTrack() {
-        if (mediaPlayer != null) {
-            mediaPlayer.pause();
-            isPlaying = false;
-            playlistView.refresh();
+    private Optional<PlaylistTab> newPlaylist() {
+        TextInputDialog dialog = new TextInputDialog("Playlist " + nextPlaylistId);
+        dialog.setTitle("New Playlist");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Name:");
+        return dialog.showAndWait().map(String::strip).filter(name -> !name.isEmpty()).map(name -> {
+            PlaylistTab tab = openPlaylistTab(nextPlaylistId++, name, true);
+            workspaceDirty = true;
+            playlistTabs.getSelectionModel().select(tab);
+            return tab;
+        });
+    }
+
+    private PlaylistTab openPlaylistTab(int id, String name, boolean loaded) {
+        PlaylistTab tab = new PlaylistTab(id, name, loaded, this::createTrackCell);
+        tab.getListView().getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) {
+                playSelectedTrack(newVal, tab.getPlaylist());
+            }
+        });
+        tab.setOnClosed(e -> closePlaylistTab(tab));
+        playlistTabs.getTabs().add(tab);
+        return tab;
+    }
+
+    /** Reads the saved tracks of {@code tab} the first time it is shown. */
+    private void loadPlaylistTab(PlaylistTab tab) {
+        if (tab.getState() != PlaylistTab.State.UNLOADED) {
+            return;
         }
+        tab.startLoading();
+        SessionRestoreTask task = new SessionRestoreTask(workspaceStore.playlistFile(tab.getPlaylistId()),
+                tracks -> appendTo(tab.getPlaylist(), tracks));
+        // a truncated file keeps what was read
+        task.setOnSucceeded(e -> tab.finishLoading());
+        task.setOnFailed(e -> tab.finishLoading());
+        sessionWriter.execute(task);
     }
 
-    private void nextTrack() {
-        if (isShuffling) {
-            int randomIndex = random.nextInt(playlist.getTracks().size());
-            playlist.setCurrentTrackIndex(randomIndex);
-        } else {
-            playlist.nextTrack();
+    private void addToPlaylist(PlaylistTab tab, List<Track> tracks) {
+        loadPlaylistTab(tab);
+        tab.whenLoaded(() -> appendTo(tab.getPlaylist(), tracks));
+    }
+
+    private void closePlaylistTab(PlaylistTab tab) {
+        if (controller.getEngine().getPlaylist() == tab.getPlaylist()) {
+            controller.getEngine().setPlaylist(playlist);
         }
+        controller.getEngine().getQueue().removeIf(entry -> entry.getSource() == tab.getPlaylist());
+        workspaceDirty = true;
+        saveWorkspace();
+        sessionWriter.execute(() -> {
+            try {
+                workspaceStore.delete(tab.getPlaylistId());
+            } catch (IOException e) {
+                // an orphaned file is never read again
+            }
+        });
+    }
 
-        if (playlist.getCurrentTrack() != null) {
-            playTrack();
-            playlistView.getSelectionModel().select(playlist.getCurrentTrack());
-            playlistView.scrollTo(playlist.getCurrentTrack());
+    private List<PlaylistTab> playlistTabs() {
+        List<PlaylistTab> tabs = new ArrayList<>();
+        for (Tab tab : playlistTabs.getTabs()) {
+            if (tab instanceof PlaylistTab) {
+                tabs.add((PlaylistTab) tab);
+            }
         }
+        return tabs;
     }
 
-    private void prevTrack() {
-        if (isShuffling) {
-            int randomIndex = random.nextInt(playlist.getTracks().size());
-            playlist.setCurrentTrackIndex(randomIndex);
-        } else {
-            playlist.prevTrack();
+    private ListView<Track> listViewOf(Playlist target) {
+        for (PlaylistTab tab : playlistTabs()) {
+            if (tab.getPlaylist() == target) {
+                return tab.getListView();
+            }
         }
+        return playlistView;
+    }
 
-        if (playlist.getCurrentTrack() != null) {
-            playTrack();
-            playlistView.getSelectionModel().select(playlist.getCurrentTrack());
-            playlistView.scrollTo(playlist.getCurrentTrack());
+    /** The playlist of the selected tab. */
+    private Playlist selectedPlaylist() {
+        Tab selected = playlistTabs.getSelectionModel().getSelectedItem();
+        return selected instanceof PlaylistTab ? ((PlaylistTab) selected).getPlaylist() : playlist;
+    }
+
+    private void tracksResolved(List<Track> tracks) {
+        // pooled tracks may be in any of the read playlists
+        tracks.forEach(playlist::trackUpdated);
+        for (PlaylistTab tab : playlistTabs()) {
+            if (tab.getState() != PlaylistTab.State.UNLOADED) {
+                tracks.forEach(tab.getPlaylist()::trackUpdated);
+            }
         }
     }
 
-    private void playSelectedTrack(Track track) {
-        if (mediaPlayer != null) {
-            mediaPlayer.stop();
-            mediaPlayer.dispose();
+    private void runSearch() {
+        long sequence = ++searchSequence;
+        libraryIndex.search(searchField.getText()).thenAccept(matches -> Platform.runLater(() -> {
+            // a newer query has been started meanwhile
+            if (sequence == searchSequence) {
+                visibleTracks.setPredicate(matches == null ? null : matches::contains);
+            }
+        }));
+    }
+
+    private void addSmartPlaylist(SmartPlaylist smart) {
+        String name = smart.getName();
+        if (smartPlaylists.put(name, smart) == null) {
+            smartBox.getItems().add(name);
+        }
+        smartViews.put(name, new SmartView(playlist, smart.predicate(favorites::contains)));
+    }
+
+    private void newSmartPlaylist() {
+        Track current = controller.getEngine().getCurrentTrack();
+        new SmartPlaylistDialog(current != null ? current.getArtist() : null, smartBox.getItems()).showAndWait().ifPresent(smart -> {
+            addSmartPlaylist(smart);
+            saveSmartPlaylists();
+            smartBox.setValue(smart.getName());
+            showSmartPlaylist(smart.getName());
+        });
+    }
+
+    private void deleteSmartPlaylist() {
+        String name = smartBox.getValue();
+        if (smartPlaylists.remove(name) == null) {
+            return;
         }
+        smartBox.setValue(LIBRARY);
+        showSmartPlaylist(LIBRARY);
+        smartBox.getItems().remove(name);
+        smartViews.remove(name);
+        saveSmartPlaylists();
+    }
+
+    /** Shows the smart playlist {@code name}, or the whole library, and makes next and previous stay in it. */
+    private void showSmartPlaylist(String name) {
+        SmartView view = smartViews.get(name);
+        if (view != null && smartPlaylists.get(name).isTimeDependent()) {
+            view.refresh();
+        }
+        visibleTracks = new FilteredList<>(view != null ? view : playlist.getTracks(), visibleTracks.getPredicate());
+        playlistView.setItems(visibleTracks);
+        if (controller.getEngine().getPlaylist() == playlist) {
+            controller.getEngine().setScope(view);
+        } else {
+            playlist.setScope(view);
+        }
+        deleteSmartButton.setDisable(view == null);
+    }
+
+    private void saveSmartPlaylists() {
+        List<SmartPlaylist> saved = List.copyOf(smartPlaylists.values());
+        sessionWriter.execute(() -> {
+            try {
+                smartPlaylistStore.save(saved);
+            } catch (IOException e) {
+                Platform.runLater(() -> notificationBar.show("Cannot save smart playlists: " + e.getMessage()));
+            }
+        });
+    }
 
-        playlist.setCurrentTrackIndex(playlist.getTracks().indexOf(track));
-        playTrack();
-        playlistView.getSelectionModel().select(track);
-        playlistView.scrollTo(track);
+    private void sortPlaylist(List<SortKey> keys) {
+        long sequence = ++sortSequence;
+        int modificationCount = playlist.getModificationCount();
+        Track[] tracks = playlist.getTracks().toArray(new Track[0]);
+        CompletableFuture.supplyAsync(() -> TrackSorter.sort(tracks, keys, Locale.getDefault()))
+                .thenAccept(sorted -> Platform.runLater(() -> {
+                    if (sequence != sortSequence) {
+                        return;
+                    }
+                    // tracks came or went while sorting, sort the new contents
+                    if (modificationCount != playlist.getModificationCount()) {
+                        sortPlaylist(keys);
+                        return;
+                    }
+                    if (controller.getEngine().getPlaylist() == playlist) {
+                        controller.getEngine().applyOrder(Arrays.asList(sorted));
+                    } else {
+                        playlist.applyOrder(Arrays.asList(sorted));
+                    }
+                }));
+    }
+
+    private void updateUpNext() {
+        PlayQueue queue = controller.getEngine().getQueue();
+        upNextPanel.setVisible(!queue.isEmpty());
+        if (!queue.isEmpty()) {
+            int more = queue.size() - 1;
+            upNextLabel.setText("Up next: " + queue.peek().getTitle() + (more > 0 ? " (+" + more + ")" : ""));
+        }
     }
 
     private void toggleRepeat() {
-        isRepeating = !isRepeating;
-        repeatButton.setSelected(isRepeating);
-        repeatButton.setText(isRepeating ? "🔁" : "🔂");
+        PlaybackEngine engine = controller.getEngine();
+        engine.setRepeat(!engine.isRepeat());
+        repeatButton.setSelected(engine.isRepeat());
+        repeatButton.setText(engine.isRepeat() ? "🔁" : "🔂");
     }
 
     private void toggleShuffle() {
-        isShuffling = !isShuffling;
-        shuffleButton.setSelected(isShuffling);
-        if (isShuffling) {
-            shufflePlaylist();
-        }
+        PlaybackEngine engine = controller.getEngine();
+        engine.setShuffle(!engine.isShuffle());
+        shuffleButton.setSelected(engine.isShuffle());
     }
 
     private void toggleFavorite() {
-        Track currentTrack = playlist.getCurrentTrack();
+        Track currentTrack = controller.getEngine().getCurrentTrack();
         if (currentTrack != null) {
-            boolean isFavorite = favoriteButton.isSelected();
-            favoriteButton.setText(isFavorite ? "❤" : "♡");
+            favorites.toggle(currentTrack);
+            // smart playlists of favorites re-test the track
+            playlist.trackUpdated(currentTrack);
         }
+        updateFavoriteButton(currentTrack);
+    }
+
+    private void updateFavoriteButton(Track track) {
+        boolean isFavorite = favorites.contains(track);
+        favoriteButton.setSelected(isFavorite);
+        favoriteButton.setText(isFavorite ? "❤" : "♡");
     }
 
     private void changeAlbumArt() {
@@ -409,7 +1090,7 @@ public class PlayerView {
         File selectedFile = fileChooser.showOpenDialog(null);
         if (selectedFile != null) {
             customAlbumArtPath = selectedFile.toURI().toString();
-            albumArt.setImage(new Image(customAlbumArtPath));
+            albumArt.setImage(new Image(customAlbumArtPath, ALBUM_ART_SIZE, ALBUM_ART_SIZE, true, true, true));
             animateAlbumArt();
         }
     }
@@ -423,82 +1104,333 @@ public class PlayerView {
         );
 
         List<File> selectedFiles = fileChooser.showOpenMultipleDialog(null);
-        if (selectedFiles != null) {
-            for (File file : selectedFiles) {
-                try {
-                    AudioFile audioFile = AudioFileIO.read(file);
-                    Tag tag = audioFile.getTag();
+        if (selectedFiles != null && !selectedFiles.isEmpty()) {
+            startImport(selectedFiles);
+        }
+    }
 
-                    String title = tag.getFirst(FieldKey.TITLE);
-                    String artist = tag.getFirst(FieldKey.ARTIST);
-                    int duration = audioFile.getAudioHeader().getTrackLength();
+    private void addFolder() {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Music Folder");
+        File selectedDirectory = directoryChooser.showDialog(null);
+        if (selectedDirectory != null) {
+            Path root = selectedDirectory.toPath();
+            Task<Integer> task = importService.importFolder(root, this::importTracks);
+            // watching reports what appeared during the import, and a cancelled import is not a library folder
+            task.setOnSucceeded(e -> {
+                importedFolders.add(root);
+                if (watchFoldersBox.isSelected()) {
+                    watchFolder(root);
+                }
+            });
+            trackImport(task);
+        }
+    }
 
-                    if (title == null || title.isEmpty()) {
-                        title = file.getName().replaceFirst("[.][^.]+$", "");
-                    }
+    private void setWatchFolders(boolean watch) {
+        if (watch) {
+            importedFolders.forEach(this::watchFolder);
+        } else {
+            libraryWatcher.stop();
+        }
+    }
 
-                    if (artist == null || artist.isEmpty()) {
-                        artist = "Unknown Artist";
-                    }
+    private void watchFolder(Path root) {
+        // registering walks the whole tree, keep it off the FX thread
+        CompletableFuture.runAsync(() -> {
+            try {
+                libraryWatcher.watch(root);
+            } catch (IOException e) {
+                Platform.runLater(() -> showAlert("Error", "Cannot watch " + root + ": " + e.getMessage()));
+            }
+        });
+    }
 
-                    Track track = new Track(title, artist, file.toURI().toString(), duration);
-                    playlist.addTrack(track);
-                } catch (Exception e) {
-                    Track track = new Track(
-                            file.getName(),
-                            "Unknown Artist",
-                            file.toURI().toString(),
-                            0
-                    );
-                    playlist.addTrack(track);
-                }
+    private void onFilesCreated(List<Path> files) {
+        List<File> fresh = new ArrayList<>();
+        for (Path file : files) {
+            if (playlist.findByLocation(file.toUri().toString()) == null) {
+                fresh.add(file.toFile());
             }
-            updatePlaylistView();
+        }
+        if (!fresh.isEmpty()) {
+            importService.importFiles(fresh, this::importCreatedTracks);
         }
     }
 
-    private void removeSelectedTrack() {
-        Track selectedTrack = playlistView.getSelectionModel().getSelectedItem();
-        if (selectedTrack != null) {
-            playlist.removeTrack(selectedTrack);
-            updatePlaylistView();
-
-            if (playlist.getTracks().isEmpty()) {
-                currentTrackLabel.setText("No track selected");
-                albumArt.setImage(null);
-                if (mediaPlayer != null) {
-                    mediaPlayer.stop();
-                }
+    private void onFilesModified(List<Path> files) {
+        for (Path file : files) {
+            Track track = playlist.findByLocation(file.toUri().toString());
+            if (track != null) {
+                track.setResolved(false);
+                trackResolver.request(track);
+            }
+        }
+    }
+
+    private void onPathsDeleted(List<Path> paths) {
+        List<Track> removed = new ArrayList<>();
+        for (Path path : paths) {
+            String location = path.toUri().toString();
+            Track track = playlist.findByLocation(location);
+            if (track != null) {
+                removed.add(track);
             } else {
-                if (playlist.getCurrentTrack() == null && !playlist.getTracks().isEmpty()) {
-                    playlist.setCurrentTrackIndex(0);
-                    playSelectedTrack(playlist.getCurrentTrack());
+                // a deleted directory, whose location no longer ends in a slash
+                removed.addAll(playlist.findBelow(location));
+            }
+        }
+        if (!removed.isEmpty()) {
+            removeFrom(playlist, removed);
+        }
+    }
+
+    private void startImport(List<File> files) {
+        trackImport(importService.importFiles(files, this::importTracks));
+    }
+
+    /** Adds imported tracks, leaving out files already in the playlist. */
+    private void importTracks(List<Track> tracks) {
+        duplicateService.filter(tracks, (added, duplicates) -> {
+            appendTracks(added);
+            showDuplicates(duplicates);
+        });
+    }
+
+    /**
+     * Adds files that appeared in a watched folder. Files the library got
+     * meanwhile, e.g. from the import of the folder, are left out quietly.
+     */
+    private void importCreatedTracks(List<Track> tracks) {
+        duplicateService.filter(tracks, (added, duplicates) -> {
+            appendTracks(added);
+            List<Duplicate> copies = new ArrayList<>(duplicates);
+            copies.removeIf(duplicate -> duplicate.getTrack() == duplicate.getOriginal());
+            showDuplicates(copies);
+        });
+    }
+
+    /** Tells how many identical files were skipped and how many added tracks sound like known ones. */
+    private void showDuplicates(List<Duplicate> duplicates) {
+        int skipped = 0;
+        for (Duplicate duplicate : duplicates) {
+            if (duplicate.getKind() == Duplicate.Kind.IDENTICAL) {
+                skipped++;
+            }
+        }
+        int similar = duplicates.size() - skipped;
+        List<String> parts = new ArrayList<>(2);
+        if (skipped > 0) {
+            parts.add("Skipped " + skipped + (skipped == 1 ? " duplicate" : " duplicates")
+                    + " of tracks already in the playlist");
+        }
+        if (similar > 0) {
+            parts.add("added " + similar + (similar == 1 ? " track that sounds" : " tracks that sound")
+                    + " like one already there, Dedupe offers to remove them");
+        }
+        if (!parts.isEmpty()) {
+            String message = String.join("; ", parts);
+            notificationBar.show(Character.toUpperCase(message.charAt(0)) + message.substring(1));
+        }
+    }
+
+    private void restoreTracks(List<Track> tracks) {
+        appendTracks(tracks);
+        duplicateService.register(tracks);
+    }
+
+    private void appendTracks(List<Track> tracks) {
+        appendTo(playlist, tracks);
+    }
+
+    private void appendTo(Playlist target, List<Track> tracks) {
+        // edits of the playlist being played go through the engine, so what plays next follows them
+        if (target == controller.getEngine().getPlaylist()) {
+            controller.getEngine().addTracks(tracks);
+        } else {
+            target.addTracks(tracks);
+        }
+        analysisService.enqueue(tracks);
+    }
+
+    private void removeFrom(Playlist target, List<Track> tracks) {
+        if (target == controller.getEngine().getPlaylist()) {
+            controller.getEngine().removeTracks(tracks);
+        } else {
+            target.removeTracks(tracks);
+        }
+    }
+
+    private void removeFrom(Playlist target, int index) {
+        if (target == controller.getEngine().getPlaylist()) {
+            controller.getEngine().removeTrack(index);
+        } else {
+            target.removeTrack(index);
+        }
+    }
+
+    /**
+     * Scans the whole playlist and removes every file that repeats an earlier
+     * one. Tracks that only sound like an earlier one may be another mix or
+     * master, so they go only once the user agrees.
+     */
+    private void removeDuplicates() {
+        removeDuplicatesButton.setDisable(true);
+        duplicateService.scan(List.copyOf(playlist.getTracks()), duplicates -> {
+            removeDuplicatesButton.setDisable(false);
+            if (duplicates.isEmpty()) {
+                notificationBar.show("No duplicates found");
+                return;
+            }
+            List<Track> removed = new ArrayList<>();
+            List<Duplicate> similar = new ArrayList<>();
+            for (Duplicate duplicate : duplicates) {
+                if (duplicate.getKind() == Duplicate.Kind.IDENTICAL) {
+                    removed.add(duplicate.getTrack());
+                } else {
+                    similar.add(duplicate);
                 }
             }
+            if (!similar.isEmpty() && confirmRemoveSimilar(similar)) {
+                similar.forEach(duplicate -> removed.add(duplicate.getTrack()));
+            }
+            if (!removed.isEmpty()) {
+                removeFrom(playlist, removed);
+            }
+            notificationBar.show("Removed " + removed.size() + (removed.size() == 1 ? " duplicate" : " duplicates"));
+        });
+    }
+
+    private boolean confirmRemoveSimilar(List<Duplicate> similar) {
+        StringBuilder message = new StringBuilder();
+        for (Duplicate duplicate : similar.subList(0, Math.min(similar.size(), 10))) {
+            message.append(duplicate.getTrack()).append("\n    sounds like ").append(duplicate.getOriginal()).append('\n');
+        }
+        if (similar.size() > 10) {
+            message.append("and ").append(similar.size() - 10).append(" more\n");
         }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, message.toString(), ButtonType.YES, ButtonType.NO);
+        alert.setTitle("Dedupe");
+        alert.setHeaderText(similar.size() + (similar.size() == 1 ? " track sounds" : " tracks sound")
+                + " like an earlier one but is a different file. Remove "
+                + (similar.size() == 1 ? "it" : "them") + " too?");
+        return alert.showAndWait().filter(ButtonType.YES::equals).isPresent();
     }
 
-    private void loadAlbumArt(Track track) {
+    private void trackImport(Task<Integer> task) {
+        imports.add(task);
+        showImportProgress();
+        task.runningProperty().addListener((obs, wasRunning, running) -> {
+            if (!running && imports.remove(task)) {
+                if (!imports.isEmpty()) {
+                    showImportProgress();
+                } else if (restoreTask != null) {
+                    showRestoreProgress();
+                } else {
+                    importProgressBar.progressProperty().unbind();
+                    importPanel.setVisible(false);
+                }
+            }
+        });
+    }
+
+    /** Shows the progress of all running imports together. */
+    private void showImportProgress() {
+        List<Task<Integer>> running = List.copyOf(imports);
+        importProgressBar.progressProperty().bind(Bindings.createDoubleBinding(() -> {
+            double sum = 0;
+            for (Task<Integer> task : running) {
+                if (task.getProgress() < 0) {
+                    // one import that does not know its size yet makes the whole bar indeterminate
+                    return -1.0;
+                }
+                sum += task.getProgress();
+            }
+            return sum / running.size();
+        }, running.stream().map(Task::progressProperty).toArray(Observable[]::new)));
+        cancelImportButton.setDisable(false);
+        importPanel.setVisible(true);
+    }
+
+    /** Shows the restore in the import panel; it is not an import, so Cancel and new imports leave it alone. */
+    private void showRestoreProgress() {
+        importProgressBar.progressProperty().bind(restoreTask.progressProperty());
+        cancelImportButton.setDisable(true);
+        importPanel.setVisible(true);
+    }
+
+    private void cancelImport() {
+        List.copyOf(imports).forEach(Task::cancel);
+    }
+
+    public void shutdown() {
+        stallMonitor.stop();
+        if (remoteServer != null) {
+            remoteServer.stop();
+        }
+        if (sessionSaver != null) {
+            sessionSaver.stop();
+            saveSession();
+            sessionWriter.shutdown();
+            try {
+                sessionWriter.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        cancelImport();
+        importService.shutdown();
+        trackResolver.shutdown();
+        libraryWatcher.stop();
+        libraryIndex.shutdown();
+        artworkService.shutdown();
+        analysisService.shutdown();
+        duplicateService.shutdown();
         try {
-            if (customAlbumArtPath != null) {
-                albumArt.setImage(new Image(customAlbumArtPath));
-                return;
+            importService.getTagReader().getCache().saveIfDirty();
+        } catch (IOException e) {
+            // nothing useful to do while exiting
+        }
+        progressRenderer.detach();
+        // closing reports the open track as left, record it before the stats close
+        controller.close();
+        statsService.shutdown();
+    }
+
+    private void removeSelectedTrack() {
+        Tab selected = playlistTabs.getSelectionModel().getSelectedItem();
+        if (selected instanceof PlaylistTab) {
+            PlaylistTab tab = (PlaylistTab) selected;
+            int index = tab.getListView().getSelectionModel().getSelectedIndex();
+            if (index >= 0) {
+                tab.getListView().getSelectionModel().clearSelection();
+                tab.whenLoaded(() -> removeFrom(tab.getPlaylist(), index));
             }
+            return;
+        }
+        int selectedIndex = playlistView.getSelectionModel().getSelectedIndex();
+        if (selectedIndex >= 0) {
+            // only the selected entry, the playlist may hold the track elsewhere too
+            int index = visibleTracks.getSourceIndexFor(playlist.getTracks(), selectedIndex);
+            playlistView.getSelectionModel().clearSelection();
+            removeFrom(playlist, index);
+        }
+    }
 
-            File file = new File(new java.net.URI(track.getFilePath()));
-            AudioFile audioFile = AudioFileIO.read(file);
-            Tag tag = audioFile.getTag();
+    private void loadAlbumArt(Track track) {
+        if (customAlbumArtPath != null) {
+            albumArt.setImage(new Image(customAlbumArtPath, ALBUM_ART_SIZE, ALBUM_ART_SIZE, true, true, true));
+            return;
+        }
 
-            if (tag.getFirstArtwork() != null) {
-                Image albumImage = new Image(new java.io.ByteArrayInputStream(tag.getFirstArtwork().getBinaryData()));
-                albumArt.setImage(albumImage);
+        artworkService.load(track, ALBUM_ART_SIZE, image -> {
+            if (image != null) {
+                albumArt.setImage(image);
                 animateAlbumArt();
             } else {
-                albumArt.setImage(new Image(getClass().getResourceAsStream("/icons/default_album.png")));
+                albumArt.setImage(defaultAlbumArt);
             }
-        } catch (Exception e) {
-            albumArt.setImage(new Image(getClass().getResourceAsStream("/icons/default_album.png")));
-        }
+        });
     }
 
     private void animateAlbumArt() {
@@ -516,33 +1448,6 @@ public class PlayerView {
         transition.play();
     }
 
-    private void shufflePlaylist() {
-        List<Track> tracks = playlist.getTracks();
-        for (int i = tracks.size() - 1; i > 0; i--) {
-            int j = random.nextInt(i + 1);
-            Track temp = tracks.get(i);
-            tracks.set(i, tracks.get(j));
-            tracks.set(j, temp);
-        }
-        updatePlaylistView();
-    }
-
-    private String formatTime(double seconds) {
-        int hours = (int) (seconds / 3600);
-        int minutes = (int) ((seconds % 3600) / 60);
-        int secs = (int) (seconds % 60);
-
-        if (hours > 0) {
-            return String.format("%d:%02d:%02d", hours, minutes, secs);
-        } else {
-            return String.format("%02d:%02d", minutes, secs);
-        }
-    }
-
-    private void updatePlaylistView() {
-        playlistView.getItems().setAll(playlist.getTracks());
-    }
-
     private void savePlaylist() {
         DirectoryChooser directoryChooser = new DirectoryChooser();
         directoryChooser.setTitle("Select Directory to Save Playlist");
@@ -553,11 +1458,7 @@ public class PlayerView {
                 String playlistName = "MyPlaylist_" + System.currentTimeMillis() + ".m3u";
                 File playlistFile = new File(selectedDirectory, playlistName);
 
-                try (PrintWriter writer = new PrintWriter(playlistFile)) {
-                    for (Track track : playlist.getTracks()) {
-                        writer.println(track.getFilePath());
-                    }
-                }
+                PlaylistWriter.write(playlistFile.toPath(), selectedPlaylist().getTracks());
 
                 showAlert("Success", "Playlist saved to:\n" + playlistFile.getAbsolutePath());
             } catch (Exception e) {
@@ -570,56 +1471,21 @@ public class PlayerView {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select Playlist File");
         fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("Playlist Files", "*.m3u", "*.pls"),
+                new FileChooser.ExtensionFilter("Playlist Files", "*.m3u", "*.m3u8", "*.pls"),
                 new FileChooser.ExtensionFilter("All Files", "*.*")
         );
 
         File selectedFile = fileChooser.showOpenDialog(null);
         if (selectedFile != null) {
-            try {
-                playlist.getTracks().clear();
-                List<String> lines = Files.readAllLines(selectedFile.toPath());
-
-                for (String line : lines) {
-                    if (!line.trim().isEmpty() && !line.startsWith("#")) {
-                        File audioFile = new File(line);
-                        if (audioFile.exists()) {
-                            try {
-                                AudioFile audio = AudioFileIO.read(audioFile);
-                                Tag tag = audio.getTag();
-
-                                String title = tag.getFirst(FieldKey.TITLE);
-                                String artist = tag.getFirst(FieldKey.ARTIST);
-                                int duration = audio.getAudioHeader().getTrackLength();
-
-                                if (title == null || title.isEmpty()) {
-                                    title = audioFile.getName().replaceFirst("[.][^.]+$", "");
-                                }
-
-                                if (artist == null || artist.isEmpty()) {
-                                    artist = "Unknown Artist";
-                                }
-
-                                Track track = new Track(title, artist, audioFile.toURI().toString(), duration);
-                                playlist.addTrack(track);
-                            } catch (Exception e) {
-                                Track track = new Track(
-                                        audioFile.getName(),
-                                        "Unknown Artist",
-                                        audioFile.toURI().toString(),
-                                        0
-                                );
-                                playlist.addTrack(track);
-                            }
-                        }
-                    }
-                }
-
-                updatePlaylistView();
-                showAlert("Success", "Playlist loaded successfully!");
-            } catch (Exception e) {
-                showAlert("Error", "Failed to load playlist: " + e.getMessage());
-            }
+            // opens beside the library, sharing the tracks it already has
+            PlaylistTab tab = openPlaylistTab(nextPlaylistId++, selectedFile.getName().replaceFirst("[.][^.]+$", ""), true);
+            workspaceDirty = true;
+            playlistTabs.getSelectionModel().select(tab);
+
+            PlaylistImportTask task = importService.importPlaylist(selectedFile.toPath(), tracks -> appendTo(tab.getPlaylist(), tracks));
+            task.setOnSucceeded(e -> showAlert("Success", "Playlist loaded successfully!"));
+            task.setOnFailed(e -> showAlert("Error", "Failed to load playlist: " + task.getException().getMessage()));
+            trackImport(task);
         }
     }
 
@@ -0,0 +1,86 @@
+package com.example.musicplayer.view;
+
+import com.example.musicplayer.model.Playlist;
+import com.example.musicplayer.model.Track;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Tab;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A tab holding one playlist of the workspace, with its own list and
+ * selection. The tracks are pooled, so they are shared with the library and
+ * other tabs; a saved playlist is read only when its tab is first shown, until
+ * then the tab costs its name.
+ */
+public class PlaylistTab extends Tab {
+    public enum State { UNLOADED, LOADING, LOADED }
+
+    private final int playlistId;
+    private final Playlist playlist = new Playlist();
+    private final ListView<Track> listView = new ListView<>(playlist.getTracks());
+    private State state;
+    private int savedVersion = -1;
+    private final List<Runnable> pending = new ArrayList<>();
+
+    public PlaylistTab(int id, String name, boolean loaded, Function<Playlist, ListCell<Track>> cellFactory) {
+        super(name);
+        this.playlistId = id;
+        this.state = loaded ? State.LOADED : State.UNLOADED;
+        listView.setCellFactory(lv -> cellFactory.apply(playlist));
+        setContent(listView);
+    }
+
+    public int getPlaylistId() {
+        return playlistId;
+    }
+
+    public Playlist getPlaylist() {
+        return playlist;
+    }
+
+    public ListView<Track> getListView() {
+        return listView;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void startLoading() {
+        state = State.LOADING;
+    }
+
+    /** Marks the saved tracks as read, then runs the edits that waited for them. */
+    public void finishLoading() {
+        state = State.LOADED;
+        markSaved();
+        pending.forEach(Runnable::run);
+        pending.clear();
+    }
+
+    /** Runs {@code edit} now if the playlist is read, or else once it is, so edits never race the file. */
+    public void whenLoaded(Runnable edit) {
+        if (state == State.LOADED) {
+            edit.run();
+        } else {
+            pending.add(edit);
+        }
+    }
+
+    /** Whether the playlist changed since it was last written; never before it is fully read. */
+    public boolean needsSave() {
+        return state == State.LOADED && playlist.getModificationCount() != savedVersion;
+    }
+
+    public void markSaved() {
+        savedVersion = playlist.getModificationCount();
+    }
+
+    public void markUnsaved() {
+        savedVersion = -1;
+    }
+}
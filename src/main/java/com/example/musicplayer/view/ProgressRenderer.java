@@ -0,0 +1,130 @@
+package com.example.musicplayer.view;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Slider;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+/**
+ * Renders the playback position into the time label, slider and progress bar.
+ * <p>
+ * Instead of reacting to every {@code currentTime} change, the position is
+ * sampled from an {@link AnimationTimer} at most {@code maxRate} times a
+ * second. Controls are only touched when what they show would change: the
+ * label once per displayed second, formatted into a reused buffer, and the
+ * bar and slider once per thousandth of the track.
+ */
+public class ProgressRenderer {
+    private static final double STEPS = 1000;
+
+    private final Label timeLabel;
+    private final Slider progressSlider;
+    private final ProgressBar progressBar;
+    private final long minIntervalNanos;
+
+    private final char[] text = new char[TimeFormatter.MAX_LENGTH * 2 + 3];
+    private final char[] totalText = new char[TimeFormatter.MAX_LENGTH + 3];
+    private int totalLength;
+
+    private MediaPlayer player;
+    private double totalSeconds;
+    private long lastSampleNanos;
+    private long shownSecond = -1;
+    private double shownStep = -1;
+    private boolean rendering;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (now - lastSampleNanos >= minIntervalNanos) {
+                lastSampleNanos = now;
+                render();
+            }
+        }
+    };
+
+    /** @param maxRate samples per second; 0 or less renders on every frame */
+    public ProgressRenderer(Label timeLabel, Slider progressSlider, ProgressBar progressBar, double maxRate) {
+        this.timeLabel = timeLabel;
+        this.progressSlider = progressSlider;
+        this.progressBar = progressBar;
+        this.minIntervalNanos = maxRate > 0 ? (long) (1_000_000_000L / maxRate) : 0;
+        setTotal(0);
+    }
+
+    public void attach(MediaPlayer player) {
+        this.player = player;
+        shownSecond = -1;
+        shownStep = -1;
+        setTotal(0);
+        timer.start();
+    }
+
+    public void detach() {
+        timer.stop();
+        player = null;
+    }
+
+    /** Caches the total duration; call once the media is ready. */
+    public void setTotalDuration(Duration total) {
+        double seconds = total == null || total.isUnknown() || total.isIndefinite() ? 0 : total.toSeconds();
+        setTotal(seconds);
+        shownSecond = -1;
+        shownStep = -1;
+        render();
+    }
+
+    public double getTotalSeconds() {
+        return totalSeconds;
+    }
+
+    /** True while the renderer itself is writing to the controls. */
+    public boolean isRendering() {
+        return rendering;
+    }
+
+    private void setTotal(double seconds) {
+        totalSeconds = seconds;
+        totalText[0] = ' ';
+        totalText[1] = '/';
+        totalText[2] = ' ';
+        totalLength = 3 + TimeFormatter.format((long) seconds, totalText, 3);
+    }
+
+    private void render() {
+        if (player == null) {
+            return;
+        }
+        Duration time = player.getCurrentTime();
+        if (time == null || time.isUnknown()) {
+            return;
+        }
+        double seconds = time.toSeconds();
+
+        rendering = true;
+        try {
+            long second = (long) seconds;
+            if (second != shownSecond) {
+                shownSecond = second;
+                int length = TimeFormatter.format(second, text, 0);
+                System.arraycopy(totalText, 0, text, length, totalLength);
+                timeLabel.setText(new String(text, 0, length + totalLength));
+            }
+
+            if (totalSeconds > 0) {
+                double step = Math.floor(seconds / totalSeconds * STEPS);
+                if (step != shownStep) {
+                    shownStep = step;
+                    progressBar.setProgress(step / STEPS);
+                    if (!progressSlider.isValueChanging()) {
+                        progressSlider.setValue(seconds);
+                    }
+                }
+            }
+        } finally {
+            rendering = false;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.musicplayer.view;
+
+import com.example.musicplayer.smart.Rule;
+import com.example.musicplayer.smart.SmartPlaylist;
+import javafx.event.ActionEvent;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asks for the name and rules of a new smart playlist. Every filled-in field
+ * becomes a rule and a track has to satisfy all of them.
+ */
+public class SmartPlaylistDialog extends Dialog<SmartPlaylist> {
+    private final TextField nameField = new TextField();
+    private final Map<Rule.Kind, TextField> arguments = new EnumMap<>(Rule.Kind.class);
+    private final CheckBox favoriteBox = new CheckBox(Rule.Kind.FAVORITE.getLabel());
+    private final Label errorLabel = new Label();
+    private final Collection<String> takenNames;
+
+    public SmartPlaylistDialog(String suggestedArtist, Collection<String> takenNames) {
+        this.takenNames = takenNames;
+        setTitle("New Smart Playlist");
+        setHeaderText(null);
+        getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.setPadding(new Insets(10));
+        nameField.setPromptText("Name");
+        grid.addRow(0, new Label("Name"), nameField);
+        int row = 1;
+        for (Rule.Kind kind : Rule.Kind.values()) {
+            if (kind.hasArgument()) {
+                TextField field = new TextField();
+                arguments.put(kind, field);
+                grid.addRow(row++, new Label(kind.getLabel()), field);
+            }
+        }
+        if (suggestedArtist != null) {
+            arguments.get(Rule.Kind.ARTIST_IS).setPromptText(suggestedArtist);
+        }
+        grid.add(favoriteBox, 1, row++);
+        errorLabel.setStyle("-fx-text-fill: #c62828;");
+        grid.add(errorLabel, 0, row, 2, 1);
+        getDialogPane().setContent(grid);
+
+        // keep the dialog open until the input makes a playlist
+        Node ok = getDialogPane().lookupButton(ButtonType.OK);
+        ok.addEventFilter(ActionEvent.ACTION, e -> {
+            try {
+                build();
+            } catch (IllegalArgumentException ex) {
+                errorLabel.setText(ex.getMessage());
+                e.consume();
+            }
+        });
+        setResultConverter(button -> button == ButtonType.OK ? build() : null);
+    }
+
+    private SmartPlaylist build() {
+        String name = nameField.getText().trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Give the playlist a name");
+        }
+        if (takenNames.contains(name)) {
+            throw new IllegalArgumentException("\"" + name + "\" already exists");
+        }
+        List<Rule> rules = new ArrayList<>();
+        for (Map.Entry<Rule.Kind, TextField> e : arguments.entrySet()) {
+            if (!e.getValue().getText().isBlank()) {
+                rules.add(new Rule(e.getKey(), e.getValue().getText()));
+            }
+        }
+        if (favoriteBox.isSelected()) {
+            rules.add(new Rule(Rule.Kind.FAVORITE, ""));
+        }
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("Fill in at least one rule");
+        }
+        return new SmartPlaylist(name, rules);
+    }
+}
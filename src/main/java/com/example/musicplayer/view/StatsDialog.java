@@ -0,0 +1,78 @@
+package com.example.musicplayer.view;
+
+import com.example.musicplayer.model.Track;
+import com.example.musicplayer.model.TrackPool;
+import com.example.musicplayer.stats.StatsService;
+import com.example.musicplayer.stats.TrackStats;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The most played tracks and the ones not played for a while. Both lists are
+ * prefixes of orderings the {@link StatsService} keeps, so the dialog opens
+ * instantly however long the history is.
+ */
+public class StatsDialog extends Dialog<Void> {
+    private static final int LIMIT = 100;
+    private static final int FORGOTTEN_DAYS = 90;
+
+    public StatsDialog(StatsService stats) {
+        setTitle("Listening Statistics");
+        setHeaderText(null);
+        getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+
+        List<String> mostPlayed = new ArrayList<>();
+        for (TrackStats entry : stats.mostPlayed(LIMIT)) {
+            mostPlayed.add(entry.getPlayCount() + (entry.getPlayCount() == 1 ? " play" : " plays")
+                    + ", " + TimeFormatter.format(entry.getHeardMillis() / 1000.0) + " heard - " + describe(entry));
+        }
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(FORGOTTEN_DAYS);
+        List<String> forgotten = new ArrayList<>();
+        for (TrackStats entry : stats.playedBefore(cutoff, LIMIT)) {
+            String when = entry.getLastPlayed() == 0
+                    ? "never played, skipped " + entry.getSkipCount() + "x"
+                    : "last played " + LocalDate.ofInstant(Instant.ofEpochMilli(entry.getLastPlayed()), ZoneId.systemDefault());
+            forgotten.add(when + " - " + describe(entry));
+        }
+
+        TabPane tabs = new TabPane(
+                new Tab("Most played", list(mostPlayed, "Nothing played yet")),
+                new Tab("Not played in " + FORGOTTEN_DAYS + " days", list(forgotten, "Everything was played recently")));
+        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        tabs.setPrefSize(560, 420);
+        getDialogPane().setContent(tabs);
+    }
+
+    private static ListView<String> list(List<String> rows, String placeholder) {
+        ListView<String> view = new ListView<>();
+        view.getItems().setAll(rows);
+        view.setPlaceholder(new Label(placeholder));
+        return view;
+    }
+
+    /** The track as the playlists show it, or its file name if no playlist holds it any more. */
+    private static String describe(TrackStats entry) {
+        Track track = TrackPool.shared().get(entry.getLocation());
+        if (track != null) {
+            return track.toString();
+        }
+        try {
+            String path = URI.create(entry.getLocation()).getPath();
+            return path != null ? path.substring(path.lastIndexOf('/') + 1) : entry.getLocation();
+        } catch (IllegalArgumentException e) {
+            return entry.getLocation();
+        }
+    }
+}
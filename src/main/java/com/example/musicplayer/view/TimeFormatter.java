@@ -0,0 +1,52 @@
+package com.example.musicplayer.view;
+
+/**
+ * Formats playback times as {@code mm:ss} or {@code h:mm:ss}. The char[]
+ * variant writes into a caller-owned buffer and does not allocate.
+ */
+public final class TimeFormatter {
+    /** Longest output of {@link #format(long, char[], int)}. */
+    public static final int MAX_LENGTH = 20;
+
+    private TimeFormatter() {
+    }
+
+    public static String format(double seconds) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format((long) seconds, buffer, 0));
+    }
+
+    /** Writes {@code seconds} at {@code offset} and returns the number of chars written. */
+    public static int format(long seconds, char[] out, int offset) {
+        if (seconds < 0) {
+            seconds = 0;
+        }
+        long hours = seconds / 3600;
+        int minutes = (int) ((seconds % 3600) / 60);
+        int secs = (int) (seconds % 60);
+
+        int pos = offset;
+        if (hours > 0) {
+            pos = writeNumber(hours, out, pos);
+            out[pos++] = ':';
+        }
+        out[pos++] = (char) ('0' + minutes / 10);
+        out[pos++] = (char) ('0' + minutes % 10);
+        out[pos++] = ':';
+        out[pos++] = (char) ('0' + secs / 10);
+        out[pos++] = (char) ('0' + secs % 10);
+        return pos - offset;
+    }
+
+    private static int writeNumber(long value, char[] out, int pos) {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + digits;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.musicplayer.view;
+
+import com.example.musicplayer.model.Track;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.beans.value.WeakChangeListener;
+import javafx.css.PseudoClass;
+import javafx.scene.control.ListCell;
+
+import java.util.function.Consumer;
+
+/**
+ * Playlist row. The "now playing" highlight is a {@code :playing} pseudo-class
+ * driven by an observable property, so a track change re-styles the two rows
+ * involved instead of refreshing the whole list.
+ */
+public class TrackCell extends ListCell<Track> {
+    private static final PseudoClass PLAYING = PseudoClass.getPseudoClass("playing");
+
+    private final ObservableValue<Track> nowPlaying;
+    private final Consumer<Track> onShown;
+    // held weakly by nowPlaying, so the cells of a closed playlist tab can go
+    private final ChangeListener<Track> playingListener = (obs, oldTrack, newTrack) -> {
+        Track item = getItem();
+        if (item != null && (item == oldTrack || item == newTrack)) {
+            pseudoClassStateChanged(PLAYING, item == newTrack);
+        }
+    };
+
+    public TrackCell(ObservableValue<Track> nowPlaying, Consumer<Track> onShown) {
+        this.nowPlaying = nowPlaying;
+        this.onShown = onShown;
+        nowPlaying.addListener(new WeakChangeListener<>(playingListener));
+    }
+
+    @Override
+    protected void updateItem(Track track, boolean empty) {
+        super.updateItem(track, empty);
+        if (empty || track == null) {
+            setText(null);
+            setGraphic(null);
+            pseudoClassStateChanged(PLAYING, false);
+        } else {
+            onShown.accept(track);
+            setText(track.toString());
+            pseudoClassStateChanged(PLAYING, track == nowPlaying.getValue());
+        }
+    }
+}
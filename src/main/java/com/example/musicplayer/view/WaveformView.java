@@ -0,0 +1,71 @@
+package com.example.musicplayer.view;
+
+import com.example.musicplayer.analysis.TrackAnalysis;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Peak/RMS waveform of the current track with the played part highlighted.
+ * Redraws only when the analysis changes or progress crosses a pixel column;
+ * clicking reports the position as a fraction of the track.
+ */
+public class WaveformView extends Canvas {
+    private static final Color PEAK = Color.web("#3E3E3E");
+    private static final Color RMS = Color.web("#5A5A5A");
+    private static final Color PLAYED_PEAK = Color.web("#19A347");
+    private static final Color PLAYED_RMS = Color.web("#1DB954");
+
+    private TrackAnalysis analysis;
+    private int playedColumns = -1;
+
+    public WaveformView(double width, double height, DoubleConsumer onSeek) {
+        super(width, height);
+        setOnMouseClicked(e -> {
+            if (analysis != null && analysis.hasWaveform()) {
+                onSeek.accept(Math.max(0, Math.min(1, e.getX() / getWidth())));
+            }
+        });
+    }
+
+    /** Shows {@code analysis}; null or an analysis without waveform clears the view. */
+    public void setAnalysis(TrackAnalysis analysis) {
+        this.analysis = analysis;
+        playedColumns = 0;
+        redraw();
+    }
+
+    /** Played fraction of the track, 0..1. */
+    public void setProgress(double progress) {
+        int columns = (int) (Math.max(0, Math.min(1, progress)) * getWidth());
+        if (columns != playedColumns) {
+            playedColumns = columns;
+            redraw();
+        }
+    }
+
+    private void redraw() {
+        GraphicsContext g = getGraphicsContext2D();
+        double width = getWidth();
+        double height = getHeight();
+        g.clearRect(0, 0, width, height);
+        if (analysis == null || !analysis.hasWaveform()) {
+            return;
+        }
+
+        int points = analysis.getPoints();
+        double middle = height / 2;
+        for (int x = 0; x < (int) width; x++) {
+            int point = (int) ((long) x * points / (int) width);
+            boolean played = x < playedColumns;
+            double peak = analysis.getPeak(point) * middle;
+            double rms = analysis.getRms(point) * middle;
+            g.setFill(played ? PLAYED_PEAK : PEAK);
+            g.fillRect(x, middle - peak, 1, Math.max(1, peak * 2));
+            g.setFill(played ? PLAYED_RMS : RMS);
+            g.fillRect(x, middle - rms, 1, Math.max(1, rms * 2));
+        }
+    }
+}